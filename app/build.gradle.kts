@@ -1,6 +1,8 @@
 plugins {
     java
     alias(libs.plugins.springframework.boot)
+    alias(libs.plugins.springframework.boot.aot)
+    alias(libs.plugins.jmh)
 }
 
 group = "ru.cft"
@@ -14,6 +16,7 @@ dependencies {
     implementation(libs.spring.boot.starter.data.jpa)
     implementation(libs.spring.boot.starter.web)
     implementation(libs.spring.boot.starter.validation)
+    implementation(libs.spring.boot.starter.actuator)
     testImplementation(libs.spring.boot.starter.test)
 
     compileOnly(libs.lombok)
@@ -23,10 +26,15 @@ dependencies {
 
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.11")
 
-    runtimeOnly(libs.postgresql)
+    implementation(libs.postgresql)
+
+    implementation(libs.jackson.dataformat.cbor)
+    implementation(libs.jackson.dataformat.smile)
 
     testImplementation(libs.junit.jupiter)
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    jmh(libs.spring.boot.starter.test)
 }
 
 java {
@@ -38,3 +46,142 @@ java {
 tasks.named<Test>("test") {
     useJUnitPlatform()
 }
+
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+}
+
+val startupDirectory = layout.buildDirectory.dir("startup")
+val startupJar = startupDirectory.zip(tasks.bootJar.flatMap { it.archiveFileName }) { directory, name -> directory.file("app/$name") }
+val startupCdsArchive = startupDirectory.map { it.file("app.jsa") }
+val startupLauncher = javaToolchains.launcherFor { languageVersion = JavaLanguageVersion.of(21) }
+
+val extractBootJar by tasks.registering(JavaExec::class) {
+    group = "startup"
+    description = "Extracts the boot jar into a CDS-friendly layout (application jar + lib/)."
+    dependsOn(tasks.bootJar)
+    javaLauncher = startupLauncher
+    classpath = files(tasks.bootJar)
+    mainClass = "org.springframework.boot.loader.launch.JarLauncher"
+    jvmArgs("-Djarmode=tools")
+    args("extract", "--force", "--destination", startupDirectory.get().dir("app").asFile.absolutePath)
+    outputs.file(startupJar)
+}
+
+val trainCdsArchive by tasks.registering(JavaExec::class) {
+    group = "startup"
+    description = "Runs a training start with AOT-generated code that exits after refresh and dumps an AppCDS archive."
+    dependsOn(extractBootJar)
+    javaLauncher = startupLauncher
+    classpath = files(startupJar)
+    mainClass = "ru.cft.Application"
+    jvmArgs(
+        "-XX:ArchiveClassesAtExit=${startupCdsArchive.get().asFile.absolutePath}",
+        "-Dspring.aot.enabled=true",
+        "-Dspring.context.exit=onRefresh",
+    )
+    outputs.file(startupCdsArchive)
+}
+
+tasks.register<JavaExec>("bootRunOptimized") {
+    group = "startup"
+    description = "Starts the application from the extracted jar with the AppCDS archive and AOT-generated code."
+    dependsOn(trainCdsArchive)
+    javaLauncher = startupLauncher
+    classpath = files(startupJar)
+    mainClass = "ru.cft.Application"
+    jvmArgs(
+        "-XX:SharedArchiveFile=${startupCdsArchive.get().asFile.absolutePath}",
+        "-Dspring.aot.enabled=true",
+    )
+}
+
+abstract class StartupBenchmark : DefaultTask() {
+    @get:Nested
+    abstract val launcher: Property<JavaLauncher>
+
+    @get:InputFile
+    abstract val bootJar: RegularFileProperty
+
+    @get:InputFile
+    abstract val extractedJar: RegularFileProperty
+
+    @get:InputFile
+    abstract val cdsArchive: RegularFileProperty
+
+    @get:Input
+    abstract val port: Property<Int>
+
+    @get:Input
+    abstract val path: Property<String>
+
+    @get:Input
+    abstract val runs: Property<Int>
+
+    @TaskAction
+    fun benchmark() {
+        val java = launcher.get().executablePath.asFile.absolutePath
+        val baseline = measure(listOf(java, "-jar", bootJar.get().asFile.absolutePath))
+        val optimized = measure(listOf(
+            java,
+            "-XX:SharedArchiveFile=${cdsArchive.get().asFile.absolutePath}",
+            "-Dspring.aot.enabled=true",
+            "-cp", extractedJar.get().asFile.absolutePath,
+            "ru.cft.Application",
+        ))
+        logger.lifecycle("Time to first request (median of ${runs.get()} runs, GET ${path.get()}):")
+        logger.lifecycle("  java -jar:       %6d ms".format(baseline))
+        logger.lifecycle("  AppCDS + AOT:    %6d ms".format(optimized))
+        logger.lifecycle("  improvement:     %6.1f %%".format(100.0 * (baseline - optimized) / baseline))
+    }
+
+    private fun measure(command: List<String>): Long {
+        val uri = java.net.URI.create("http://localhost:${port.get()}${path.get()}")
+        val client = java.net.http.HttpClient.newBuilder().connectTimeout(java.time.Duration.ofMillis(200)).build()
+        val request = java.net.http.HttpRequest.newBuilder(uri).timeout(java.time.Duration.ofSeconds(5)).build()
+        val samples = (1..runs.get()).map {
+            val started = System.nanoTime()
+            val process = ProcessBuilder(command + "--server.port=${port.get()}")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start()
+            try {
+                val deadline = started + java.util.concurrent.TimeUnit.MINUTES.toNanos(2)
+                while (true) {
+                    check(process.isAlive) { "Application exited with code ${process.exitValue()}" }
+                    check(System.nanoTime() < deadline) { "Application did not answer on $uri within 2 minutes" }
+                    val status = try {
+                        client.send(request, java.net.http.HttpResponse.BodyHandlers.discarding()).statusCode()
+                    } catch (e: java.io.IOException) {
+                        Thread.sleep(20)
+                        continue
+                    }
+                    check(status < 500) { "First request to $uri failed with status $status" }
+                    break
+                }
+                (System.nanoTime() - started) / 1_000_000
+            } finally {
+                process.destroy()
+                process.waitFor()
+            }
+        }
+        return samples.sorted()[samples.size / 2]
+    }
+}
+
+tasks.register<StartupBenchmark>("startupBenchmark") {
+    group = "startup"
+    description = "Reports time-to-first-request for a plain boot jar and for the AppCDS + AOT launch mode."
+    dependsOn(trainCdsArchive)
+    launcher = startupLauncher
+    bootJar = tasks.bootJar.flatMap { it.archiveFile }
+    extractedJar = startupJar
+    cdsArchive = startupCdsArchive
+    port = providers.gradleProperty("startupBenchmark.port").map { it.toInt() }.orElse(18080)
+    path = providers.gradleProperty("startupBenchmark.path").orElse("/api/v1/seller")
+    runs = providers.gradleProperty("startupBenchmark.runs").map { it.toInt() }.orElse(5)
+    doNotTrackState("Benchmark results depend on the machine and must be measured on every run")
+}
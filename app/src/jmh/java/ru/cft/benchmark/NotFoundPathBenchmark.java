@@ -0,0 +1,69 @@
+package ru.cft.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.cft.advice.GlobalExceptionHandler;
+import ru.cft.api.SellerController;
+import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.service.SellerService;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /api/v1/seller/{id} for a missing seller, with the exception thrown either stackless (current)
+ * or with a captured stack trace (previous behaviour).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NotFoundPathBenchmark {
+    @Param({"STACKLESS", "STACK_TRACE"})
+    public String exceptionMode;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        var stackTrace = "STACK_TRACE".equals(this.exceptionMode);
+        var sellerService = Mockito.mock(SellerService.class);
+        Mockito.when(sellerService.findById(anyLong())).thenAnswer(invocation -> {
+            var message = String.format("There is no seller with id %d", invocation.<Long>getArgument(0));
+            throw stackTrace ? new StackCapturingNotFoundException(message) : new ResourceNotFoundException(message);
+        });
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new SellerController(sellerService))
+                .setControllerAdvice(new GlobalExceptionHandler(Duration.ofSeconds(10)))
+                .build();
+    }
+
+    @Benchmark
+    public MvcResult sellerNotFound() throws Exception {
+        return this.mockMvc.perform(get("/api/v1/seller/{id}", 42L)).andReturn();
+    }
+
+    @Benchmark
+    public Exception createException() {
+        return "STACK_TRACE".equals(this.exceptionMode)
+                ? new StackCapturingNotFoundException("There is no seller with id 42")
+                : new ResourceNotFoundException("There is no seller with id 42");
+    }
+
+    private static final class StackCapturingNotFoundException extends ResourceNotFoundException {
+        private StackCapturingNotFoundException(String message) {
+            super(message, true);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.cft.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.cft.configuration.BinaryFormatConfiguration;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of a GET /api/v1/transaction response in every supported format. The benchmark measures
+ * serialization time and reports the encoded size of each format as the {@code bytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 1, 9, 0, 0);
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public String format;
+
+    @Param({"1000"})
+    public int transactions;
+
+    @Param({"50"})
+    public int sellers;
+
+    private ObjectMapper objectMapper;
+    private List<TransactionDto> response;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.objectMapper = switch (this.format) {
+            case "JSON" -> Jackson2ObjectMapperBuilder.json().build();
+            case "CBOR" -> BinaryFormatConfiguration.cborObjectMapper(Jackson2ObjectMapperBuilder.json());
+            case "SMILE" -> BinaryFormatConfiguration.smileObjectMapper(Jackson2ObjectMapperBuilder.json());
+            default -> throw new IllegalArgumentException("Unknown format " + this.format);
+        };
+        var sellerDtos = new ArrayList<SellerDto>(this.sellers);
+        for (long id = 1; id <= this.sellers; id++) {
+            sellerDtos.add(SellerDto.builder()
+                    .id(id)
+                    .name("Seller " + id)
+                    .contactInfo("seller" + id + "@example.com")
+                    .registrationDate(START.minusDays(id))
+                    .build());
+        }
+        this.response = new ArrayList<>(this.transactions);
+        for (int i = 0; i < this.transactions; i++) {
+            this.response.add(TransactionDto.builder()
+                    .id((long) i + 1)
+                    .seller(sellerDtos.get(i % this.sellers))
+                    .amount(BigDecimal.valueOf(10_000 + i * 37L, 2))
+                    .paymentType(PAYMENT_TYPES[i % PAYMENT_TYPES.length])
+                    .transactionDate(START.plusSeconds(i * 61L))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize payloadSize) throws Exception {
+        var payload = this.objectMapper.writeValueAsBytes(this.response);
+        payloadSize.bytes = payload.length;
+        return payload;
+    }
+
+    /**
+     * Holds the size of the last encoded response. Single-threaded runs report it as is, since the counter is
+     * assigned rather than accumulated.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.cft.advice;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets one log line per error type through per interval and counts the occurrences in between.
+ */
+final class ErrorLogSampler {
+    static final long SUPPRESSED = -1;
+
+    private final long intervalNanos;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    ErrorLogSampler(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * @return the number of occurrences suppressed since the previous log line if this one should be logged,
+     * {@link #SUPPRESSED} otherwise
+     */
+    long record(String errorType) {
+        var window = this.windows.computeIfAbsent(errorType, type -> new Window());
+        window.total.increment();
+        long now = System.nanoTime();
+        long nextLogAt = window.nextLogAt.get();
+        if (now - nextLogAt >= 0 && window.nextLogAt.compareAndSet(nextLogAt, now + this.intervalNanos)) {
+            return window.suppressed.sumThenReset();
+        }
+        window.suppressed.increment();
+        return SUPPRESSED;
+    }
+
+    long total(String errorType) {
+        var window = this.windows.get(errorType);
+        return window == null ? 0 : window.total.sum();
+    }
+
+    private static final class Window {
+        private final AtomicLong nextLogAt = new AtomicLong(System.nanoTime());
+        private final LongAdder suppressed = new LongAdder();
+        private final LongAdder total = new LongAdder();
+    }
+}
@@ -2,6 +2,7 @@ package ru.cft.advice;
 
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -15,8 +16,12 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 import ru.cft.dto.ErrorDetailsDto;
+import ru.cft.exception.ImportFailedException;
+import ru.cft.exception.IngestionUnavailableException;
 import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.exception.StatementBudgetExceededException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
@@ -24,6 +29,12 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
+    private final ErrorLogSampler errorLogSampler;
+
+    public GlobalExceptionHandler(@Value("${crm.error-log.sample-interval:10s}") Duration sampleInterval) {
+        this.errorLogSampler = new ErrorLogSampler(sampleInterval);
+    }
+
     @ExceptionHandler({
             MissingServletRequestParameterException.class,
             MethodArgumentTypeMismatchException.class,
@@ -49,7 +60,7 @@ public class GlobalExceptionHandler {
 
                 })
                 .collect(Collectors.joining(", "));
-        return this.handleException(message, request, HttpStatus.BAD_REQUEST);
+        return this.handleException(e.getClass().getSimpleName(), message, request, HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(ResourceNotFoundException.class)
@@ -58,13 +69,36 @@ public class GlobalExceptionHandler {
         return this.handleException(e, request, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ImportFailedException.class)
+    public ResponseEntity<ErrorDetailsDto> handleImportFailedException(final ImportFailedException e,
+                                                                       final WebRequest request) {
+        return this.handleException(e, request, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(IngestionUnavailableException.class)
+    public ResponseEntity<ErrorDetailsDto> handleIngestionUnavailableException(final IngestionUnavailableException e,
+                                                                               final WebRequest request) {
+        return this.handleException(e, request, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(StatementBudgetExceededException.class)
+    public ResponseEntity<ErrorDetailsDto> handleStatementBudgetExceededException(final StatementBudgetExceededException e,
+                                                                                  final WebRequest request) {
+        return this.handleException(e, request, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     private ResponseEntity<ErrorDetailsDto> handleException(final Exception e, final WebRequest request, final HttpStatus status) {
-        return this.handleException(e.getMessage(), request, status);
+        return this.handleException(e.getClass().getSimpleName(), e.getMessage(), request, status);
     }
 
-    private ResponseEntity<ErrorDetailsDto> handleException(final String message, final WebRequest request, final HttpStatus status) {
+    private ResponseEntity<ErrorDetailsDto> handleException(final String errorType, final String message,
+                                                            final WebRequest request, final HttpStatus status) {
         var errorDto = new ErrorDetailsDto(LocalDateTime.now(), message, request.getDescription(false), status.value());
-        log.error("Error: {}", errorDto);
+        long suppressed = this.errorLogSampler.record(errorType);
+        if (suppressed != ErrorLogSampler.SUPPRESSED) {
+            log.warn("{} ({} since last report, {} total): {}",
+                    errorType, suppressed + 1, this.errorLogSampler.total(errorType), errorDto);
+        }
         return ResponseEntity.status(status).body(errorDto);
     }
 }
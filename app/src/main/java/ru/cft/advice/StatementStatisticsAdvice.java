@@ -0,0 +1,41 @@
+package ru.cft.advice;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ru.cft.configuration.StatementStatisticsProperties;
+import ru.cft.sql.StatementStatistics;
+
+import java.util.Locale;
+
+/**
+ * Reports the SQL statements of the request in response headers, right before the body is written.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class StatementStatisticsAdvice implements ResponseBodyAdvice<Object> {
+    private final StatementStatisticsProperties properties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return this.properties.enabled() && this.properties.responseHeaders();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        var statistics = StatementStatistics.current();
+        if (statistics != null) {
+            var headers = response.getHeaders();
+            headers.set(StatementStatistics.STATEMENTS_HEADER, Integer.toString(statistics.statements()));
+            headers.set(StatementStatistics.TIME_HEADER, String.format(Locale.ROOT, "%.3f", statistics.nanos() / 1e6));
+        }
+        return body;
+    }
+}
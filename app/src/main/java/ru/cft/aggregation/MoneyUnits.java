@@ -0,0 +1,28 @@
+package ru.cft.aggregation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class MoneyUnits {
+    public static final int SCALE = 2;
+    /**
+     * Largest accepted transaction amount. Amounts are summed as cents in {@code long}s, so the bound leaves room
+     * for about 900 000 maximal transactions per sum.
+     */
+    public static final String MAX_AMOUNT = "99999999999.99";
+
+    private MoneyUnits() {
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static boolean fitsInCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.cft.aggregation;
+
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+
+public final class PaymentTypeAccumulator {
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    private final long[] incomeCents = new long[PAYMENT_TYPES.length];
+    private final long[] counts = new long[PAYMENT_TYPES.length];
+
+    public void add(PaymentType paymentType, BigDecimal amount) {
+        this.add(paymentType, MoneyUnits.toCents(amount), 1);
+    }
+
+    public void add(PaymentType paymentType, BigDecimal income, long count) {
+        this.add(paymentType, MoneyUnits.toCents(income), count);
+    }
+
+    public void add(PaymentType paymentType, long incomeCents, long count) {
+        int i = paymentType.ordinal();
+        this.incomeCents[i] = Math.addExact(this.incomeCents[i], incomeCents);
+        this.counts[i] += count;
+    }
+
+    public void merge(PaymentTypeAccumulator other) {
+        for (int i = 0; i < PAYMENT_TYPES.length; i++) {
+            this.incomeCents[i] = Math.addExact(this.incomeCents[i], other.incomeCents[i]);
+            this.counts[i] += other.counts[i];
+        }
+    }
+
+    public BigDecimal income(PaymentType paymentType) {
+        return MoneyUnits.fromCents(this.incomeCents[paymentType.ordinal()]);
+    }
+
+    public long count(PaymentType paymentType) {
+        return this.counts[paymentType.ordinal()];
+    }
+
+    public BigDecimal totalIncome() {
+        long total = 0;
+        for (long cents : this.incomeCents) {
+            total = Math.addExact(total, cents);
+        }
+        return MoneyUnits.fromCents(total);
+    }
+
+    public long totalCount() {
+        long total = 0;
+        for (long count : this.counts) {
+            total += count;
+        }
+        return total;
+    }
+}
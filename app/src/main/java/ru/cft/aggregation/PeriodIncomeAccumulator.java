@@ -0,0 +1,101 @@
+package ru.cft.aggregation;
+
+import ru.cft.dto.DateRangeDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-seller income of many (possibly overlapping) periods, filled in a single pass over transactions.
+ * Rows are expected in non-decreasing date order: the periods containing the current date are kept in a
+ * sweep window, so each row only touches the periods it belongs to. An out-of-order row is still counted,
+ * just by checking every period.
+ */
+public final class PeriodIncomeAccumulator {
+    private final LocalDateTime[] starts;
+    private final LocalDateTime[] ends;
+    private final Integer[] byStart;
+    private final List<Map<Long, long[]>> incomeBySeller;
+    private final int[] active;
+    private int activeCount;
+    private int nextToOpen;
+    private LocalDateTime lastDate;
+
+    public PeriodIncomeAccumulator(List<DateRangeDto> periods) {
+        int periodCount = periods.size();
+        this.starts = periods.stream().map(DateRangeDto::startDate).toArray(LocalDateTime[]::new);
+        this.ends = periods.stream().map(DateRangeDto::endDate).toArray(LocalDateTime[]::new);
+        this.byStart = new Integer[periodCount];
+        Arrays.setAll(this.byStart, i -> i);
+        Arrays.sort(this.byStart, Comparator.comparing(i -> this.starts[i]));
+        this.incomeBySeller = new ArrayList<>(periodCount);
+        for (int i = 0; i < periodCount; i++) {
+            this.incomeBySeller.add(new HashMap<>());
+        }
+        this.active = new int[periodCount];
+    }
+
+    public void add(long sellerId, long cents, LocalDateTime date) {
+        if (this.lastDate != null && date.isBefore(this.lastDate)) {
+            for (int period = 0; period < this.starts.length; period++) {
+                if (this.contains(period, date)) {
+                    this.addTo(period, sellerId, cents);
+                }
+            }
+            return;
+        }
+        this.lastDate = date;
+        while (this.nextToOpen < this.byStart.length && !this.starts[this.byStart[this.nextToOpen]].isAfter(date)) {
+            this.active[this.activeCount++] = this.byStart[this.nextToOpen++];
+        }
+        for (int i = 0; i < this.activeCount; ) {
+            int period = this.active[i];
+            if (this.ends[period].isBefore(date)) {
+                this.active[i] = this.active[--this.activeCount];
+                continue;
+            }
+            this.addTo(period, sellerId, cents);
+            i++;
+        }
+    }
+
+    public void merge(PeriodIncomeAccumulator other) {
+        if (other.starts.length != this.starts.length) {
+            throw new IllegalArgumentException("Accumulators cover different periods");
+        }
+        for (int period = 0; period < this.starts.length; period++) {
+            var target = this.incomeBySeller.get(period);
+            other.incomeBySeller.get(period).forEach((sellerId, cents) ->
+                    this.addTo(target, sellerId, cents[0]));
+        }
+    }
+
+    public int periodCount() {
+        return this.starts.length;
+    }
+
+    /**
+     * Income in cents of every seller with at least one transaction in the period, keyed by seller id.
+     */
+    public Map<Long, long[]> incomeBySeller(int period) {
+        return this.incomeBySeller.get(period);
+    }
+
+    private boolean contains(int period, LocalDateTime date) {
+        return !date.isBefore(this.starts[period]) && !date.isAfter(this.ends[period]);
+    }
+
+    private void addTo(int period, long sellerId, long cents) {
+        this.addTo(this.incomeBySeller.get(period), sellerId, cents);
+    }
+
+    private void addTo(Map<Long, long[]> incomeBySeller, long sellerId, long cents) {
+        var income = incomeBySeller.computeIfAbsent(sellerId, id -> new long[1]);
+        income[0] = Math.addExact(income[0], cents);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.cft.anomaly;
+
+/**
+ * Exponentially weighted mean and variance of transaction amounts per seller. Sellers live in an
+ * open-addressing table keyed by primitive {@code long}, split into independently locked segments,
+ * so an update is a hash probe and a few floating point operations.
+ */
+final class SellerAmountStatistics {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final double alpha;
+
+    SellerAmountStatistics(double alpha) {
+        this.alpha = alpha;
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Scores {@code amount} against the seller's statistics so far, then folds it in.
+     *
+     * @return standard deviations above the seller's mean, or {@code NaN} while the seller has fewer than
+     * {@code minSamples} transactions
+     */
+    double scoreAndUpdate(long sellerId, double amount, int minSamples, double minStdDev) {
+        long hash = mix(sellerId);
+        var segment = this.segments[(int) (hash >>> 60)];
+        synchronized (segment) {
+            return segment.scoreAndUpdate(sellerId, hash, amount, this.alpha, minSamples, minStdDev);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (var segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    private static long mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static final class Segment {
+        private long[] keys = new long[64];
+        private boolean[] used = new boolean[64];
+        private double[] means = new double[64];
+        private double[] variances = new double[64];
+        private long[] counts = new long[64];
+        private int size;
+
+        double scoreAndUpdate(long sellerId, long hash, double amount, double alpha, int minSamples, double minStdDev) {
+            int slot = this.slotOf(sellerId, hash);
+            if (!this.used[slot]) {
+                if ((this.size + 1) * 4 > this.keys.length * 3) {
+                    this.grow();
+                    slot = this.slotOf(sellerId, hash);
+                }
+                this.used[slot] = true;
+                this.keys[slot] = sellerId;
+                this.means[slot] = amount;
+                this.variances[slot] = 0;
+                this.counts[slot] = 1;
+                this.size++;
+                return Double.NaN;
+            }
+            double mean = this.means[slot];
+            double variance = this.variances[slot];
+            double score = this.counts[slot] >= minSamples
+                    ? (amount - mean) / Math.max(Math.sqrt(variance), minStdDev)
+                    : Double.NaN;
+            double diff = amount - mean;
+            double increment = alpha * diff;
+            this.means[slot] = mean + increment;
+            this.variances[slot] = (1 - alpha) * (variance + diff * increment);
+            this.counts[slot]++;
+            return score;
+        }
+
+        private int slotOf(long sellerId, long hash) {
+            int mask = this.keys.length - 1;
+            int slot = (int) hash & mask;
+            while (this.used[slot] && this.keys[slot] != sellerId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            var oldKeys = this.keys;
+            var oldUsed = this.used;
+            var oldMeans = this.means;
+            var oldVariances = this.variances;
+            var oldCounts = this.counts;
+            int capacity = oldKeys.length * 2;
+            this.keys = new long[capacity];
+            this.used = new boolean[capacity];
+            this.means = new double[capacity];
+            this.variances = new double[capacity];
+            this.counts = new long[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = this.slotOf(oldKeys[i], mix(oldKeys[i]));
+                    this.used[slot] = true;
+                    this.keys[slot] = oldKeys[i];
+                    this.means[slot] = oldMeans[i];
+                    this.variances[slot] = oldVariances[i];
+                    this.counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+}
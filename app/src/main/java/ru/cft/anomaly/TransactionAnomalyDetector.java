@@ -0,0 +1,62 @@
+package ru.cft.anomaly;
+
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.AnomalyProperties;
+import ru.cft.dto.transaction.TransactionDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+
+/**
+ * Scores created transactions against their seller's running amount statistics and keeps the most
+ * recent anomalies, those scoring at least {@code crm.anomaly.threshold}, in memory. Statistics start
+ * empty on every instance and only see the transactions created through it.
+ */
+@Component
+public class TransactionAnomalyDetector {
+    private final AnomalyProperties properties;
+    private final SellerAmountStatistics statistics;
+    private final TransactionDto[] recent;
+    private int recentCount;
+    private int recentNext;
+
+    public TransactionAnomalyDetector(AnomalyProperties properties) {
+        this.properties = properties;
+        this.statistics = new SellerAmountStatistics(properties.alpha());
+        this.recent = new TransactionDto[properties.recentSize()];
+    }
+
+    /**
+     * Standard deviations the amount lies above the seller's mean, rounded to hundredths; empty until the
+     * seller has {@code crm.anomaly.min-samples} transactions.
+     */
+    public OptionalDouble score(long sellerId, BigDecimal amount) {
+        double score = this.statistics.scoreAndUpdate(sellerId, amount.doubleValue(),
+                this.properties.minSamples(), this.properties.minStdDev());
+        return Double.isNaN(score) ? OptionalDouble.empty() : OptionalDouble.of(Math.round(score * 100) / 100.0);
+    }
+
+    public synchronized void recordIfAnomalous(TransactionDto transaction) {
+        if (this.recent.length == 0 || transaction.anomalyScore() == null
+                || transaction.anomalyScore() < this.properties.threshold()) {
+            return;
+        }
+        this.recent[this.recentNext] = transaction;
+        this.recentNext = (this.recentNext + 1) % this.recent.length;
+        this.recentCount = Math.min(this.recentCount + 1, this.recent.length);
+    }
+
+    /**
+     * Most recent anomalies, newest first.
+     */
+    public synchronized List<TransactionDto> findRecent(int limit) {
+        int count = Math.min(limit, this.recentCount);
+        var result = new ArrayList<TransactionDto>(count);
+        for (int i = 1; i <= count; i++) {
+            result.add(this.recent[Math.floorMod(this.recentNext - i, this.recent.length)]);
+        }
+        return result;
+    }
+}
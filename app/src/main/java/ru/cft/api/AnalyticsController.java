@@ -9,27 +9,43 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.dto.DateRangeDto;
 import ru.cft.dto.ErrorDetailsDto;
+import ru.cft.dto.analytics.IncomeSeriesDto;
+import ru.cft.dto.analytics.LeaderboardDto;
+import ru.cft.dto.analytics.PaymentBreakdownDto;
+import ru.cft.dto.analytics.PeriodAnalyticsDto;
+import ru.cft.dto.analytics.PeriodAnalyticsRequestDto;
+import ru.cft.dto.analytics.SellerRankDto;
 import ru.cft.dto.analytics.SellerWithIncomeDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.enums.IncomeGranularity;
 import ru.cft.service.AnalyticsService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static ru.cft.configuration.WebPath.API_VERSION_V1;
@@ -42,6 +58,9 @@ import static ru.cft.configuration.WebPath.PATH_SELLER;
 @Slf4j
 @RequiredArgsConstructor
 public class AnalyticsController {
+    private static final int MAX_BATCH_PERIODS = 1000;
+    private static final int MAX_SERIES_BUCKETS = 1000;
+
     private final AnalyticsService analyticsService;
 
     @GetMapping("/top-seller")
@@ -140,4 +159,306 @@ public class AnalyticsController {
         var sellers = this.analyticsService.findSellersWithIncomeLessThanThresholdByPeriod(threshold, start, end);
         return ResponseEntity.ok(sellers);
     }
+
+    @GetMapping("/payment-breakdown")
+    @Operation(summary = "Get income breakdown by payment type", description = "Returns total income and transaction count per payment type for a given period, globally or for a single seller")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved breakdown",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PaymentBreakdownDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Invalid date range",
+                                            value = "{ \"timestamp\": \"2025-08-29T12:00:00\", " +
+                                                    "\"message\": \"End date must be after start date\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/payment-breakdown\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Seller not found",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"There is no seller with id 42\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/payment-breakdown\", " +
+                                                    "\"errorCode\": 404 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<PaymentBreakdownDto> findPaymentBreakdown(
+            @Parameter(description = "Start of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "start") LocalDateTime start,
+
+            @Parameter(description = "End of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "end") LocalDateTime end,
+
+            @Parameter(description = "Seller identifier, omit for the global breakdown", example = "42")
+            @RequestParam(name = "sellerId", required = false) Long sellerId
+    ) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date must be after start date");
+        }
+        var paymentBreakdownDto = this.analyticsService.findPaymentBreakdownByPeriod(start, end, sellerId);
+        return ResponseEntity.ok(paymentBreakdownDto);
+    }
+
+    @PostMapping("/analytics/batch")
+    @Operation(summary = "Get analytics for many periods at once", description = "Returns the top seller and, if a threshold is given, the sellers with income below it for every period. " +
+            "Periods are either listed explicitly or generated from start, end and step; all of them are computed in a single pass over the transactions")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully computed analytics, one entry per period in request order",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = PeriodAnalyticsDto.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Too many periods",
+                                            value = "{ \"timestamp\": \"2025-08-29T12:00:00\", " +
+                                                    "\"message\": \"At most 1000 periods can be requested at once\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/analytics/batch\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<List<PeriodAnalyticsDto>> findAnalyticsByPeriods(@RequestBody @Valid PeriodAnalyticsRequestDto request) {
+        var periods = this.toPeriods(request);
+        var analytics = this.analyticsService.findAnalyticsByPeriods(periods, request.threshold());
+        return ResponseEntity.ok(analytics);
+    }
+
+    @GetMapping("/{id}/income-series")
+    @Operation(summary = "Get seller income series", description = "Returns the seller's income per day, week or month over the period, with zero for buckets without transactions. " +
+            "Buckets are aligned to calendar days, Monday-based weeks and months and always cover the whole bucket")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully computed series",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = IncomeSeriesDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Too many buckets",
+                                            value = "{ \"timestamp\": \"2025-08-29T12:00:00\", " +
+                                                    "\"message\": \"At most 1000 buckets can be requested at once\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/42/income-series\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Seller not found",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"There is no seller with id 42\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/42/income-series\", " +
+                                                    "\"errorCode\": 404 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<IncomeSeriesDto> findIncomeSeries(
+            @Parameter(description = "Seller identifier", required = true, example = "42")
+            @PathVariable("id") final Long id,
+
+            @Parameter(description = "Start of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "start") LocalDateTime start,
+
+            @Parameter(description = "End of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "end") LocalDateTime end,
+
+            @Parameter(description = "Bucket size", example = "DAY")
+            @RequestParam(name = "granularity", defaultValue = "DAY") IncomeGranularity granularity
+    ) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date must be after start date");
+        }
+        if (granularity.bucketCount(start, end) > MAX_SERIES_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("At most %d buckets can be requested at once", MAX_SERIES_BUCKETS));
+        }
+        var incomeSeriesDto = this.analyticsService.findIncomeSeries(id, start, end, granularity);
+        return ResponseEntity.ok(incomeSeriesDto);
+    }
+
+    @GetMapping("/{id}/rank")
+    @Operation(summary = "Get seller rank by income", description = "Returns the seller's position among all sellers with transactions in the period. " +
+            "The current day, week and month are answered from a live index; other periods are aggregated on request")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully computed rank",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SellerRankDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Invalid date range",
+                                            value = "{ \"timestamp\": \"2025-08-29T12:00:00\", " +
+                                                    "\"message\": \"End date must be after start date\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/42/rank\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Seller not found",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"There is no seller with id 42\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/42/rank\", " +
+                                                    "\"errorCode\": 404 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<SellerRankDto> findSellerRank(
+            @Parameter(description = "Seller identifier", required = true, example = "42")
+            @PathVariable("id") final Long id,
+
+            @Parameter(description = "Start of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "start") LocalDateTime start,
+
+            @Parameter(description = "End of the period", required = true)
+            @NotNull
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "end") LocalDateTime end
+    ) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date must be after start date");
+        }
+        var sellerRankDto = this.analyticsService.findSellerRank(id, start, end);
+        return ResponseEntity.ok(sellerRankDto);
+    }
+
+    @GetMapping(value = "/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream live seller leaderboard", description = "Pushes the top sellers by income over the sliding window as Server-Sent Events named 'leaderboard' whenever the ranking changes")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream opened, each event carries the current leaderboard",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = LeaderboardDto.class)
+                    )
+            )
+    })
+    public SseEmitter streamLeaderboard() {
+        return this.analyticsService.subscribeToLeaderboard();
+    }
+
+    private List<DateRangeDto> toPeriods(PeriodAnalyticsRequestDto request) {
+        List<DateRangeDto> periods;
+        if (request.periods() != null && !request.periods().isEmpty()) {
+            if (request.start() != null || request.end() != null || request.step() != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either periods or start, end and step must be given, not both");
+            }
+            periods = request.periods();
+        } else {
+            if (request.start() == null || request.end() == null || request.step() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either periods or start, end and step must be given");
+            }
+            if (!request.step().isPositive()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Step must be positive");
+            }
+            periods = new ArrayList<>();
+            for (var periodStart = request.start();
+                 !periodStart.isAfter(request.end()) && periods.size() <= MAX_BATCH_PERIODS;
+                 periodStart = periodStart.plus(request.step())) {
+                var periodEnd = periodStart.plus(request.step()).minus(1, ChronoUnit.MICROS);
+                periods.add(DateRangeDto.builder()
+                        .startDate(periodStart)
+                        .endDate(periodEnd.isAfter(request.end()) ? request.end() : periodEnd)
+                        .build());
+            }
+        }
+        if (periods.size() > MAX_BATCH_PERIODS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("At most %d periods can be requested at once", MAX_BATCH_PERIODS));
+        }
+        for (var period : periods) {
+            if (period.startDate() == null || period.endDate() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every period must have start and end dates");
+            }
+            if (period.endDate().isBefore(period.startDate())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date must be after start date");
+            }
+        }
+        return periods;
+    }
 }
@@ -0,0 +1,120 @@
+package ru.cft.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.cft.dto.ErrorDetailsDto;
+import ru.cft.dto.importing.ImportReportDto;
+import ru.cft.service.ImportService;
+
+import java.io.InputStream;
+
+import static ru.cft.configuration.WebPath.*;
+
+@RestController
+@Tag(name = "Bulk import", description = "Streaming CSV import of sellers and transactions")
+@RequestMapping(API_VERSION_V1)
+@Slf4j
+@RequiredArgsConstructor
+public class ImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ImportService importService;
+
+    @PostMapping(path = PATH_SELLER + PATH_IMPORT, consumes = TEXT_CSV)
+    @Operation(summary = "Import sellers from CSV", description = "Streams `name,contactInfo` rows into the seller table and reports rejected rows")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import finished",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ImportReportDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Import aborted by the database",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Import failed",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Import failed: ERROR: value too long for type character varying(255)\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/import\", " +
+                                                    "\"errorCode\": 422 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<ImportReportDto> importSellers(
+            @Parameter(description = "Whether the first line is a header", example = "true")
+            @RequestParam(name = "header", defaultValue = "true") final boolean header,
+            final InputStream body) {
+        log.trace("Importing sellers: header={}", header);
+        var importReportDto = this.importService.importSellers(body, header);
+        log.trace("importReportDto={}", importReportDto);
+        return ResponseEntity.ok(importReportDto);
+    }
+
+    @PostMapping(path = PATH_TRANSACTION + PATH_IMPORT, consumes = TEXT_CSV)
+    @Operation(summary = "Import transactions from CSV", description = "Streams `sellerId,amount,paymentType[,transactionDate]` rows into the transaction table and reports rejected rows")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import finished",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ImportReportDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "422",
+                    description = "Import aborted by the database or refused because sharding is enabled",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Import failed",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Import failed: ERROR: numeric field overflow\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/import\", " +
+                                                    "\"errorCode\": 422 }"
+                                    ),
+                                    @ExampleObject(
+                                            name = "Sharding enabled",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Transaction import is not supported while sharding is enabled\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/import\", " +
+                                                    "\"errorCode\": 422 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<ImportReportDto> importTransactions(
+            @Parameter(description = "Whether the first line is a header", example = "true")
+            @RequestParam(name = "header", defaultValue = "true") final boolean header,
+            final InputStream body) {
+        log.trace("Importing transactions: header={}", header);
+        var importReportDto = this.importService.importTransactions(body, header);
+        log.trace("importReportDto={}", importReportDto);
+        return ResponseEntity.ok(importReportDto);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.cft.api;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -9,14 +10,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.cft.dto.ErrorDetailsDto;
+import ru.cft.dto.IdLookupDto;
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.seller.SellerLookupDto;
 import ru.cft.dto.seller.SellerPatchDto;
 import ru.cft.dto.seller.SellerUpdateDto;
 import ru.cft.service.SellerService;
@@ -55,6 +63,50 @@ public class SellerController {
         return ResponseEntity.ok(sellerDtos);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search sellers", description = "Returns sellers whose name or contact information contains the query, best matches first")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved matching sellers",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = SellerDto.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Query too short",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"search.query: size must be between 3 and 100\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/search\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<List<SellerDto>> search(
+            @Parameter(description = "Part of the seller name or contact information", required = true, example = "doe")
+            @NotBlank
+            @Size(min = 3, max = 100)
+            @RequestParam(name = "q") final String query,
+            @Parameter(description = "Maximum number of results", example = "20")
+            @Min(1)
+            @Max(100)
+            @RequestParam(name = "limit", defaultValue = "20") final int limit) {
+        log.trace("Searching sellers: query={}, limit={}", query, limit);
+        var sellerDtos = this.sellerService.search(query, limit);
+        log.trace("sellerDtos={}", sellerDtos);
+        return ResponseEntity.ok(sellerDtos);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get seller by ID", description = "Returns seller details for the given ID")
     @ApiResponses(value = {
@@ -91,6 +143,44 @@ public class SellerController {
         return ResponseEntity.ok(sellerDto);
     }
 
+    @PostMapping("/lookup")
+    @Operation(summary = "Look up sellers by IDs",
+            description = "Returns the sellers found for up to " + IdLookupDto.MAX_IDS + " IDs in one call, " +
+                    "together with the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Lookup completed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SellerLookupDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Validation error",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Validation failed: field `ids` must not be empty\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/lookup\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<SellerLookupDto> lookup(@RequestBody @Valid IdLookupDto idLookupDto) {
+        log.trace("Looking up sellers: count={}", idLookupDto.ids().size());
+        var sellerLookupDto = this.sellerService.lookup(idLookupDto.ids());
+        log.trace("found={}, missing={}", sellerLookupDto.found().size(), sellerLookupDto.missing().size());
+        return ResponseEntity.ok(sellerLookupDto);
+    }
+
     @PostMapping
     @Operation(summary = "Create new seller", description = "Creates a new seller and returns it")
     @ApiResponses(value = {
@@ -237,8 +327,17 @@ public class SellerController {
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete seller", description = "Deletes seller by ID")
+    @Operation(summary = "Delete seller", description = "Deletes seller by ID. With `async=true` the seller is hidden at once " +
+            "and its transactions are deleted in the background in small chunks")
     @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Seller deletion scheduled",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SellerDeletionDto.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "204",
                     description = "Seller deleted successfully",
@@ -264,9 +363,57 @@ public class SellerController {
                     )
             )
     })
-    public ResponseEntity<Void> delete(@PathVariable("id") final Long id) {
+    public ResponseEntity<SellerDeletionDto> delete(
+            @PathVariable("id") final Long id,
+            @Parameter(description = "Delete in the background, for sellers with large transaction histories", example = "false")
+            @RequestParam(name = "async", defaultValue = "false") final boolean async) {
+        if (async) {
+            log.trace("Scheduling deletion of seller with id={}", id);
+            var sellerDeletionDto = this.sellerService.requestDeletion(id);
+            log.trace("sellerDeletionDto={}", sellerDeletionDto);
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create(API_VERSION_V1 + PATH_SELLER + "/" + id + "/deletion"))
+                    .body(sellerDeletionDto);
+        }
         log.trace("Deleting seller with id={}", id);
         this.sellerService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/{id}/deletion")
+    @Operation(summary = "Get seller deletion progress", description = "Returns the progress of a background seller deletion")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved deletion progress",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SellerDeletionDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Deletion not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Deletion not found",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"There is no deletion of seller with id 42\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/42/deletion\", " +
+                                                    "\"errorCode\": 404 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<SellerDeletionDto> findDeletion(@PathVariable("id") final Long id) {
+        log.trace("Fetching deletion of seller with id={}", id);
+        var sellerDeletionDto = this.sellerService.findDeletion(id);
+        log.trace("sellerDeletionDto={}", sellerDeletionDto);
+        return ResponseEntity.ok(sellerDeletionDto);
+    }
 }
@@ -1,23 +1,42 @@
 package ru.cft.api;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.cft.dto.ErrorDetailsDto;
+import ru.cft.dto.IdLookupDto;
+import ru.cft.dto.transaction.IngestionStatusDto;
 import ru.cft.dto.transaction.TransactionCreateDto;
 import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.dto.transaction.TransactionLookupDto;
+import ru.cft.enums.FeedOverflowPolicy;
+import ru.cft.enums.TransactionField;
+import ru.cft.feed.FeedPosition;
+import ru.cft.projection.TransactionProjection;
 import ru.cft.service.TransactionService;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static ru.cft.configuration.WebPath.*;
 
@@ -26,6 +45,11 @@ import static ru.cft.configuration.WebPath.*;
 @Slf4j
 @RequiredArgsConstructor
 public class TransactionController {
+    private static final String INCLUDE_SELLER = "seller";
+    private static final String FIELD_NAMES = Arrays.stream(TransactionField.values())
+            .map(TransactionField::fieldName)
+            .collect(Collectors.joining(", "));
+
     private final TransactionService transactionService;
 
     @GetMapping(PATH_TRANSACTION)
@@ -33,14 +57,43 @@ public class TransactionController {
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Successfully retrieved list",
+                    description = "Successfully retrieved list. With fields or include, an object with the projected " +
+                            "transactions (and sellers) is returned instead",
                     content = @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = TransactionDto.class))
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown field or include",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Unknown field",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"Unknown field `email`, expected one of id, sellerId, seller, amount, paymentType, transactionDate\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
             )
     })
-    public ResponseEntity<List<TransactionDto>> findAll() {
+    public ResponseEntity<?> findAll(
+            @Parameter(description = "Comma-separated fields to return, out of id, sellerId, seller, amount, paymentType, transactionDate", example = "id,amount,sellerId")
+            @RequestParam(name = "fields", required = false) final Set<String> fields,
+            @Parameter(description = "Return the distinct sellers once, next to the transactions, instead of inside every transaction", example = "seller")
+            @RequestParam(name = "include", required = false) final Set<String> include) {
+        var projection = parseProjection(fields, include);
+        if (projection.isPresent()) {
+            log.trace("Fetching all transactions: projection={}", projection.get());
+            var transactionListDto = this.transactionService.findAll(projection.get());
+            log.trace("transactions={}", transactionListDto.transactions().size());
+            return ResponseEntity.ok(transactionListDto);
+        }
         log.trace("Fetching all sellers");
         var transactionDtos = this.transactionService.findAll();
         log.trace("transactionDtos={}", transactionDtos);
@@ -83,6 +136,44 @@ public class TransactionController {
         return ResponseEntity.ok(transactionDto);
     }
 
+    @PostMapping(PATH_TRANSACTION + "/lookup")
+    @Operation(summary = "Look up transactions by IDs",
+            description = "Returns the transactions found for up to " + IdLookupDto.MAX_IDS + " IDs in one call, " +
+                    "together with the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Lookup completed",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TransactionLookupDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Validation error",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Validation failed: field `ids` must not be empty\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/lookup\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<TransactionLookupDto> lookup(@RequestBody @Valid IdLookupDto idLookupDto) {
+        log.trace("Looking up transactions: count={}", idLookupDto.ids().size());
+        var transactionLookupDto = this.transactionService.lookup(idLookupDto.ids());
+        log.trace("found={}, missing={}", transactionLookupDto.found().size(), transactionLookupDto.missing().size());
+        return ResponseEntity.ok(transactionLookupDto);
+    }
+
     @PostMapping(PATH_TRANSACTION)
     @Operation(summary = "Create new transaction", description = "Creates a new transaction and returns it")
     @ApiResponses(value = {
@@ -112,7 +203,7 @@ public class TransactionController {
                     )
             )
     })
-    public ResponseEntity<TransactionDto> create(@RequestBody TransactionCreateDto dto) {
+    public ResponseEntity<TransactionDto> create(@Valid @RequestBody TransactionCreateDto dto) {
         log.trace("Creating new transaction: dto={}", dto);
         var transactionDto = this.transactionService.create(dto);
         log.trace("transactionDto={}", transactionDto);
@@ -121,17 +212,128 @@ public class TransactionController {
                 .body(transactionDto);
     }
 
+    @PostMapping(PATH_TRANSACTION + "/ingest")
+    @Operation(summary = "Accept transaction for asynchronous creation", description = "Durably logs the transaction on this instance and returns a tracking id without waiting for the database. " +
+            "The transaction is inserted in the background; its outcome is available at the returned location")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Transaction accepted",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = IngestionStatusDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Validation error",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Validation failed: field `sellerId` must not be null\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/ingest\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Ingestion is disabled or its backlog is full",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Backlog full",
+                                            value = "{ \"timestamp\": \"2025-08-27T23:01:34\", " +
+                                                    "\"message\": \"Ingestion backlog is full, retry later\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/ingest\", " +
+                                                    "\"errorCode\": 503 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<IngestionStatusDto> ingest(@Valid @RequestBody TransactionCreateDto dto) {
+        log.trace("Accepting transaction: dto={}", dto);
+        var status = this.transactionService.ingest(dto);
+        log.trace("status={}", status);
+        return ResponseEntity
+                .accepted()
+                .location(URI.create(API_VERSION_V1 + PATH_TRANSACTION + "/ingest/" + status.trackingId()))
+                .body(status);
+    }
+
+    @GetMapping(PATH_TRANSACTION + "/ingest/{trackingId}")
+    @Operation(summary = "Get ingestion status", description = "Returns whether an accepted transaction is still queued, inserted or rejected")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved status",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = IngestionStatusDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Tracking id not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Tracking id not found",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"There is no ingested transaction with tracking id 3f2c8a9e-5b1d-4c7a-9e2f-0a1b2c3d4e5f\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/ingest/3f2c8a9e-5b1d-4c7a-9e2f-0a1b2c3d4e5f\", " +
+                                                    "\"errorCode\": 404 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<IngestionStatusDto> findIngestionStatus(@PathVariable("trackingId") final UUID trackingId) {
+        log.trace("Fetching ingestion status for trackingId={}", trackingId);
+        var status = this.transactionService.findIngestionStatus(trackingId);
+        log.trace("status={}", status);
+        return ResponseEntity.ok(status);
+    }
+
     @GetMapping(PATH_SELLER + PATH_TRANSACTION + "/{id}")
     @Operation(summary = "Get transactions by seller ID", description = "Returns all transactions for the given seller ID")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Successfully retrieved seller transactions",
+                    description = "Successfully retrieved seller transactions. With fields or include, an object with the " +
+                            "projected transactions (and the seller) is returned instead",
                     content = @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = TransactionDto.class))
                     )
             ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown field or include",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Unknown field",
+                                            value = "{ \"timestamp\": \"2025-08-27T12:34:56\", " +
+                                                    "\"message\": \"Unknown field `email`, expected one of id, sellerId, seller, amount, paymentType, transactionDate\", " +
+                                                    "\"description\": \"uri=/api/v1/seller/transaction/42\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Seller not found",
@@ -150,10 +352,123 @@ public class TransactionController {
                     )
             )
     })
-    public ResponseEntity<List<TransactionDto>> findBySellerId(@PathVariable("id") final Long id) {
+    public ResponseEntity<?> findBySellerId(
+            @PathVariable("id") final Long id,
+            @Parameter(description = "Comma-separated fields to return, out of id, sellerId, seller, amount, paymentType, transactionDate", example = "id,amount")
+            @RequestParam(name = "fields", required = false) final Set<String> fields,
+            @Parameter(description = "Return the seller once, next to the transactions, instead of inside every transaction", example = "seller")
+            @RequestParam(name = "include", required = false) final Set<String> include) {
+        var projection = parseProjection(fields, include);
+        if (projection.isPresent()) {
+            log.trace("Fetching transactions for seller with id={}: projection={}", id, projection.get());
+            var transactionListDto = this.transactionService.findBySellerId(id, projection.get());
+            log.trace("transactions={}", transactionListDto.transactions().size());
+            return ResponseEntity.ok(transactionListDto);
+        }
         log.trace("Fetching transactions for seller with id={}", id);
         List<TransactionDto> sellerTransactionDtos = this.transactionService.findBySellerId(id);
         log.trace("sellerTransactionDtos={}", sellerTransactionDtos);
         return ResponseEntity.ok(sellerTransactionDtos);
     }
+
+    @GetMapping(PATH_TRANSACTION + "/anomalies")
+    @Operation(summary = "Get recent anomalous transactions", description = "Returns the most recently created transactions whose amount was far above their seller's usual amount, newest first. " +
+            "Only transactions created through this instance since it started are considered")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved anomalies",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = TransactionDto.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetailsDto.class),
+                            examples = {
+                                    @ExampleObject(
+                                            name = "Invalid limit",
+                                            value = "{ \"timestamp\": \"2025-08-29T12:00:00\", " +
+                                                    "\"message\": \"Limit must be positive\", " +
+                                                    "\"description\": \"uri=/api/v1/transaction/anomalies\", " +
+                                                    "\"errorCode\": 400 }"
+                                    )
+                            }
+                    )
+            )
+    })
+    public ResponseEntity<List<TransactionDto>> findRecentAnomalies(
+            @Parameter(description = "Maximum number of anomalies to return", example = "100")
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        var anomalies = this.transactionService.findRecentAnomalies(limit);
+        log.trace("anomalies={}", anomalies);
+        return ResponseEntity.ok(anomalies);
+    }
+
+    @GetMapping(value = PATH_TRANSACTION + "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream created transactions", description = "Pushes every created transaction as a Server-Sent Event named 'transaction' with '<feed sequence>-<transaction id>' as event id. " +
+            "Reconnect with Last-Event-ID (or lastEventId) to resume. A slow subscriber either receives a 'dropped' event with the number of skipped transactions or is disconnected, depending on the overflow policy")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream opened",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = TransactionDto.class)
+                    )
+            )
+    })
+    public SseEmitter feed(
+            @Parameter(description = "Id of the last received event, sent by EventSource on reconnect")
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @Parameter(description = "Id of the last received event", example = "1760000000000001-42")
+            @RequestParam(name = "lastEventId", required = false) String lastEventId,
+            @Parameter(description = "What to do when the subscriber buffer is full", example = "DROP")
+            @RequestParam(name = "overflow", required = false) FeedOverflowPolicy overflow) {
+        var eventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        FeedPosition lastEvent = null;
+        if (eventId != null && !eventId.isBlank()) {
+            try {
+                lastEvent = FeedPosition.parse(eventId);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        return this.transactionService.subscribeToFeed(lastEvent, overflow);
+    }
+
+    private static Optional<TransactionProjection> parseProjection(Set<String> fields, Set<String> include) {
+        if (fields == null && include == null) {
+            return Optional.empty();
+        }
+        boolean includeSellers = false;
+        if (include != null) {
+            for (var name : include) {
+                if (!name.equals(INCLUDE_SELLER)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            String.format("Unknown include `%s`, expected `%s`", name, INCLUDE_SELLER));
+                }
+                includeSellers = true;
+            }
+        }
+        if (fields == null) {
+            return Optional.of(new TransactionProjection(TransactionProjection.DEFAULT_FIELDS, includeSellers));
+        }
+        if (fields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one field must be requested");
+        }
+        var selected = EnumSet.noneOf(TransactionField.class);
+        for (var name : fields) {
+            selected.add(TransactionField.fromFieldName(name).orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Unknown field `%s`, expected one of %s", name, FIELD_NAMES))));
+        }
+        return Optional.of(new TransactionProjection(selected, includeSellers));
+    }
 }
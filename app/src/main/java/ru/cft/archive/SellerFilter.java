@@ -0,0 +1,61 @@
+package ru.cft.archive;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over the seller ids of a segment, so that seller lookups skip segments without decompressing them.
+ * Sized at roughly 10 bits per distinct seller with three probes, which keeps false positives around 1%.
+ */
+final class SellerFilter {
+    private static final int MIN_BITS = 64;
+    private static final int MAX_BITS = 1 << 20;
+    private static final int BITS_PER_SELLER = 10;
+    private static final int PROBES = 3;
+
+    private SellerFilter() {
+    }
+
+    static long[] build(long[] sellerIds, int size) {
+        var sorted = Arrays.copyOf(sellerIds, size);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        int bits = Math.clamp(Integer.highestOneBit(Math.max(distinct * BITS_PER_SELLER - 1, 1)) << 1, MIN_BITS, MAX_BITS);
+        var words = new long[bits / Long.SIZE];
+        for (int i = 0; i < size; i++) {
+            long hash = hash(sorted[i]);
+            for (int probe = 0; probe < PROBES; probe++) {
+                int bit = bit(hash, probe, bits);
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return words;
+    }
+
+    static boolean mightContain(long[] words, long sellerId) {
+        int bits = words.length * Long.SIZE;
+        long hash = hash(sellerId);
+        for (int probe = 0; probe < PROBES; probe++) {
+            int bit = bit(hash, probe, bits);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(long sellerId) {
+        long hash = sellerId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static int bit(long hash, int probe, int bits) {
+        int low = (int) hash;
+        int high = (int) (hash >>> 32);
+        return (low + probe * high) & (bits - 1);
+    }
+}
@@ -0,0 +1,258 @@
+package ru.cft.archive;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.ArchiveProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Transactions moved out of the database by {@link ru.cft.job.TransactionArchivalJob}. Every instance reads the same
+ * segments, so {@code crm.archive.directory} must be storage shared by all of them; an instance picks up segments
+ * published by another one on {@link #refresh()}, which runs when the income invalidation of the archived month
+ * arrives.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TransactionArchive {
+    private static final Comparator<TransactionSegment> BY_MIN_TIME =
+            Comparator.comparing(TransactionSegment::getMinTime).thenComparing(TransactionSegment::getMinId);
+
+    private static final String STAGED_EXTENSION = ".staged";
+    private static final String PURGED_SELLERS = "purged-sellers";
+
+    private final ArchiveProperties properties;
+
+    private volatile List<TransactionSegment> segments = List.of();
+    private volatile long[] purgedSellers = new long[0];
+    private volatile FileTime purgedSellersModified;
+
+    @PostConstruct
+    public void load() throws IOException {
+        this.refresh();
+        log.info("Loaded {} archive segments from {}", this.segments.size(), this.properties.directory().toAbsolutePath());
+    }
+
+    /**
+     * Rescans the directory for segments published by other instances since the last scan. Segments that are already
+     * open are kept, so a rescan only opens the new files.
+     */
+    public synchronized void refresh() throws IOException {
+        var directory = this.properties.directory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        var known = this.segments.stream().collect(Collectors.toMap(TransactionSegment::getPath, segment -> segment));
+        var loaded = new ArrayList<TransactionSegment>();
+        try (var files = Files.list(directory)) {
+            for (var file : files.filter(path -> path.getFileName().toString().endsWith(TransactionSegment.EXTENSION)).toList()) {
+                var segment = known.get(file);
+                loaded.add(segment != null ? segment : TransactionSegment.open(file));
+            }
+        }
+        loaded.sort(BY_MIN_TIME);
+        this.segments = List.copyOf(loaded);
+        this.refreshPurgedSellers();
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        for (var segment : this.segments) {
+            if (segment.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<TransactionSegment> findSegments(LocalDateTime start, LocalDateTime end) {
+        return this.segments.stream().filter(segment -> segment.overlaps(start, end)).toList();
+    }
+
+    public void forEachInRange(LocalDateTime start, LocalDateTime end, Consumer<ArchivedTransaction> action) {
+        for (var segment : this.findSegments(start, end)) {
+            this.read(segment, transaction -> {
+                var date = transaction.transactionDate();
+                if (!date.isBefore(start) && !date.isAfter(end)) {
+                    action.accept(transaction);
+                }
+            });
+        }
+    }
+
+    public Optional<ArchivedTransaction> findById(long id) {
+        var found = new ArchivedTransaction[1];
+        for (var segment : this.segments) {
+            if (segment.mayContainId(id)) {
+                this.read(segment, (transactionId, sellerId) -> transactionId == id, transaction -> found[0] = transaction);
+                if (found[0] != null) {
+                    return Optional.of(found[0]);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads every segment whose id range covers at least one of the ids once, instead of once per id.
+     */
+    public List<ArchivedTransaction> findByIds(Set<Long> ids) {
+        var result = new ArrayList<ArchivedTransaction>();
+        for (var segment : this.segments) {
+            if (ids.stream().anyMatch(segment::mayContainId)) {
+                this.read(segment, (id, sellerId) -> ids.contains(id), result::add);
+            }
+        }
+        return result;
+    }
+
+    public List<ArchivedTransaction> findBySellerId(long sellerId) {
+        var result = new ArrayList<ArchivedTransaction>();
+        for (var segment : this.segments) {
+            if (segment.mayContainSeller(sellerId)) {
+                this.read(segment, (id, rowSellerId) -> rowSellerId == sellerId, result::add);
+            }
+        }
+        return result;
+    }
+
+    public List<ArchivedTransaction> findAll() {
+        var result = new ArrayList<ArchivedTransaction>();
+        for (var segment : this.segments) {
+            this.read(segment, result::add);
+        }
+        return result;
+    }
+
+    public TransactionSegment append(String name, TransactionSegmentBuilder rows) throws IOException {
+        return this.publish(this.stage(name, rows));
+    }
+
+    /**
+     * Writes a segment that stays invisible to reads and to {@link #load()} until it is {@link #publish published},
+     * so that its rows are never served from both the archive and the database.
+     */
+    public TransactionSegment stage(String name, TransactionSegmentBuilder rows) throws IOException {
+        Files.createDirectories(this.properties.directory());
+        return TransactionSegment.write(this.properties.directory().resolve(name + STAGED_EXTENSION), rows);
+    }
+
+    public TransactionSegment publish(TransactionSegment staged) throws IOException {
+        var fileName = staged.getPath().getFileName().toString();
+        var name = fileName.endsWith(STAGED_EXTENSION)
+                ? fileName.substring(0, fileName.length() - STAGED_EXTENSION.length())
+                : fileName;
+        var segment = staged.moveTo(staged.getPath().resolveSibling(name + TransactionSegment.EXTENSION));
+        synchronized (this) {
+            var updated = new ArrayList<TransactionSegment>();
+            for (var existing : this.segments) {
+                if (!existing.getPath().equals(segment.getPath())) {
+                    updated.add(existing);
+                }
+            }
+            updated.add(segment);
+            updated.sort(BY_MIN_TIME);
+            this.segments = List.copyOf(updated);
+        }
+        return segment;
+    }
+
+    /**
+     * Hides the archived transactions of a deleted seller from every read. Segments are immutable, so the seller id is
+     * recorded in a tombstone file next to them, which other instances sharing the directory pick up on their next read.
+     */
+    public synchronized void purgeSeller(long sellerId) throws IOException {
+        var directory = this.properties.directory();
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(PURGED_SELLERS), sellerId + System.lineSeparator(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        if (Arrays.binarySearch(this.purgedSellers, sellerId) < 0) {
+            var purged = Arrays.copyOf(this.purgedSellers, this.purgedSellers.length + 1);
+            purged[purged.length - 1] = sellerId;
+            Arrays.sort(purged);
+            this.purgedSellers = purged;
+        }
+    }
+
+    /**
+     * Staged segments left behind by an archival run that did not get to publish them. Files that cannot be opened
+     * were never completely written, so their rows are still in the database and the files are removed.
+     */
+    public List<TransactionSegment> findStaged() throws IOException {
+        var directory = this.properties.directory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        var staged = new ArrayList<TransactionSegment>();
+        try (var files = Files.list(directory)) {
+            for (var file : files.filter(path -> path.getFileName().toString().endsWith(STAGED_EXTENSION)).toList()) {
+                try {
+                    staged.add(TransactionSegment.open(file));
+                } catch (IOException e) {
+                    log.warn("Removing unreadable staged archive segment {}", file, e);
+                    Files.delete(file);
+                }
+            }
+        }
+        return staged;
+    }
+
+    private void read(TransactionSegment segment, Consumer<ArchivedTransaction> action) {
+        this.read(segment, (id, sellerId) -> true, action);
+    }
+
+    private void read(TransactionSegment segment, TransactionSegment.RowFilter filter, Consumer<ArchivedTransaction> action) {
+        long[] purged;
+        try {
+            this.refreshPurgedSellers();
+            purged = this.purgedSellers;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read purged sellers of " + this.properties.directory(), e);
+        }
+        TransactionSegment.RowFilter visible = purged.length == 0
+                ? filter
+                : (id, sellerId) -> filter.test(id, sellerId) && Arrays.binarySearch(purged, sellerId) < 0;
+        try {
+            segment.forEach(visible, action);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive segment " + segment.getPath(), e);
+        }
+    }
+
+    private void refreshPurgedSellers() throws IOException {
+        var file = this.properties.directory().resolve(PURGED_SELLERS);
+        if (!Files.exists(file)) {
+            return;
+        }
+        var modified = Files.getLastModifiedTime(file);
+        if (modified.equals(this.purgedSellersModified)) {
+            return;
+        }
+        synchronized (this) {
+            var purged = Files.readAllLines(file).stream()
+                    .filter(line -> !line.isBlank())
+                    .mapToLong(line -> Long.parseLong(line.strip()))
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            this.purgedSellers = purged;
+            this.purgedSellersModified = modified;
+        }
+    }
+}
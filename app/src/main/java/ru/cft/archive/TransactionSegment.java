@@ -0,0 +1,307 @@
+package ru.cft.archive;
+
+import lombok.Getter;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.enums.PaymentType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable segment file with one deflate-compressed block per column, a seller bloom filter and a fixed-size footer
+ * holding the row count, the time and id ranges, the column offsets and the filter offset:
+ * <pre>
+ * MAGIC VERSION | ids | sellerIds | amountCents | paymentTypes | transactionDates (delta) | sellerFilter | footer
+ * </pre>
+ * Version 1 segments have no seller filter and are read as possibly containing every seller.
+ */
+public final class TransactionSegment {
+    public static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x54585347;
+    private static final int VERSION = 2;
+    private static final int COLUMNS = 5;
+    private static final int FOOTER_SIZE_V1 = Integer.BYTES + Long.BYTES * 4 + (Long.BYTES + Integer.BYTES) * COLUMNS + Integer.BYTES * 2;
+    private static final int FOOTER_SIZE = FOOTER_SIZE_V1 + Long.BYTES + Integer.BYTES;
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    @Getter
+    private final Path path;
+    @Getter
+    private final int rowCount;
+    private final long minTimeMicros;
+    private final long maxTimeMicros;
+    @Getter
+    private final long minId;
+    @Getter
+    private final long maxId;
+    private final long[] columnOffsets;
+    private final int[] columnLengths;
+    private final long[] sellerFilter;
+
+    private TransactionSegment(Path path, int rowCount, long minTimeMicros, long maxTimeMicros, long minId, long maxId,
+                               long[] columnOffsets, int[] columnLengths, long[] sellerFilter) {
+        this.path = path;
+        this.rowCount = rowCount;
+        this.minTimeMicros = minTimeMicros;
+        this.maxTimeMicros = maxTimeMicros;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.columnOffsets = columnOffsets;
+        this.columnLengths = columnLengths;
+        this.sellerFilter = sellerFilter;
+    }
+
+    public static TransactionSegment write(Path target, TransactionSegmentBuilder rows) throws IOException {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Segment must contain at least one row");
+        }
+        int size = rows.size();
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minTime = Math.min(minTime, rows.transactionDates[i]);
+            maxTime = Math.max(maxTime, rows.transactionDates[i]);
+            minId = Math.min(minId, rows.ids[i]);
+            maxId = Math.max(maxId, rows.ids[i]);
+        }
+
+        var columns = new byte[][]{
+                compress(rows.ids, size, false),
+                compress(rows.sellerIds, size, false),
+                compress(rows.amountCents, size, false),
+                compress(rows.paymentTypes, size),
+                compress(rows.transactionDates, size, true)
+        };
+        var offsets = new long[COLUMNS];
+        var lengths = new int[COLUMNS];
+        var sellerFilter = SellerFilter.build(rows.sellerIds, size);
+
+        var temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long offset = Integer.BYTES * 2;
+            for (int c = 0; c < COLUMNS; c++) {
+                offsets[c] = offset;
+                lengths[c] = columns[c].length;
+                out.write(columns[c]);
+                offset += columns[c].length;
+            }
+            for (long word : sellerFilter) {
+                out.writeLong(word);
+            }
+            out.writeInt(size);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            out.writeLong(minId);
+            out.writeLong(maxId);
+            for (int c = 0; c < COLUMNS; c++) {
+                out.writeLong(offsets[c]);
+                out.writeInt(lengths[c]);
+            }
+            out.writeLong(offset);
+            out.writeInt(sellerFilter.length);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        return new TransactionSegment(target, size, minTime, maxTime, minId, maxId, offsets, lengths, sellerFilter);
+    }
+
+    public static TransactionSegment open(Path path) throws IOException {
+        try (var file = new RandomAccessFile(path.toFile(), "r")) {
+            if (file.length() < FOOTER_SIZE_V1 + Integer.BYTES * 2) {
+                throw new IOException("Segment " + path + " is truncated");
+            }
+            file.seek(file.length() - Integer.BYTES * 2);
+            int version = file.readInt();
+            int magic = file.readInt();
+            if (magic != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Segment " + path + " has unsupported format");
+            }
+            int footerSize = version == 1 ? FOOTER_SIZE_V1 : FOOTER_SIZE;
+            if (file.length() < footerSize + Integer.BYTES * 2) {
+                throw new IOException("Segment " + path + " is truncated");
+            }
+            file.seek(file.length() - footerSize);
+            int rowCount = file.readInt();
+            long minTime = file.readLong();
+            long maxTime = file.readLong();
+            long minId = file.readLong();
+            long maxId = file.readLong();
+            var offsets = new long[COLUMNS];
+            var lengths = new int[COLUMNS];
+            for (int c = 0; c < COLUMNS; c++) {
+                offsets[c] = file.readLong();
+                lengths[c] = file.readInt();
+            }
+            long[] sellerFilter = null;
+            if (version > 1) {
+                long filterOffset = file.readLong();
+                sellerFilter = new long[file.readInt()];
+                file.seek(filterOffset);
+                for (int i = 0; i < sellerFilter.length; i++) {
+                    sellerFilter[i] = file.readLong();
+                }
+            }
+            return new TransactionSegment(path, rowCount, minTime, maxTime, minId, maxId, offsets, lengths, sellerFilter);
+        }
+    }
+
+    public TransactionSegment moveTo(Path target) throws IOException {
+        Files.move(this.path, target, StandardCopyOption.ATOMIC_MOVE);
+        return new TransactionSegment(target, this.rowCount, this.minTimeMicros, this.maxTimeMicros, this.minId, this.maxId,
+                this.columnOffsets, this.columnLengths, this.sellerFilter);
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return toEpochMicros(start) <= this.maxTimeMicros && toEpochMicros(end) >= this.minTimeMicros;
+    }
+
+    public boolean mayContainId(long id) {
+        return id >= this.minId && id <= this.maxId;
+    }
+
+    public boolean mayContainSeller(long sellerId) {
+        return this.sellerFilter == null || SellerFilter.mightContain(this.sellerFilter, sellerId);
+    }
+
+    public LocalDateTime getMinTime() {
+        return fromEpochMicros(this.minTimeMicros);
+    }
+
+    public LocalDateTime getMaxTime() {
+        return fromEpochMicros(this.maxTimeMicros);
+    }
+
+    public long[] readIds() throws IOException {
+        try (var file = new RandomAccessFile(this.path.toFile(), "r")) {
+            return this.readLongColumn(file, 0, false);
+        }
+    }
+
+    public void forEach(Consumer<ArchivedTransaction> action) throws IOException {
+        this.forEach((id, sellerId) -> true, action);
+    }
+
+    /**
+     * Decodes the amount, payment type and date columns only when the id and seller columns have a matching row.
+     */
+    public void forEach(RowFilter filter, Consumer<ArchivedTransaction> action) throws IOException {
+        long[] ids;
+        long[] sellerIds;
+        long[] amountCents;
+        byte[] paymentTypes;
+        long[] transactionDates;
+        var matching = new BitSet(this.rowCount);
+        try (var file = new RandomAccessFile(this.path.toFile(), "r")) {
+            ids = this.readLongColumn(file, 0, false);
+            sellerIds = this.readLongColumn(file, 1, false);
+            for (int i = 0; i < this.rowCount; i++) {
+                if (filter.test(ids[i], sellerIds[i])) {
+                    matching.set(i);
+                }
+            }
+            if (matching.isEmpty()) {
+                return;
+            }
+            amountCents = this.readLongColumn(file, 2, false);
+            paymentTypes = this.readByteColumn(file, 3);
+            transactionDates = this.readLongColumn(file, 4, true);
+        }
+        for (int i = matching.nextSetBit(0); i >= 0; i = matching.nextSetBit(i + 1)) {
+            action.accept(new ArchivedTransaction(
+                    ids[i],
+                    sellerIds[i],
+                    MoneyUnits.fromCents(amountCents[i]),
+                    PAYMENT_TYPES[paymentTypes[i]],
+                    fromEpochMicros(transactionDates[i])
+            ));
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(long id, long sellerId);
+    }
+
+    static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private long[] readLongColumn(RandomAccessFile file, int column, boolean deltaEncoded) throws IOException {
+        try (var in = new DataInputStream(this.openColumn(file, column))) {
+            var values = new long[this.rowCount];
+            long previous = 0;
+            for (int i = 0; i < this.rowCount; i++) {
+                long value = in.readLong();
+                values[i] = deltaEncoded ? previous + value : value;
+                previous = values[i];
+            }
+            return values;
+        }
+    }
+
+    private byte[] readByteColumn(RandomAccessFile file, int column) throws IOException {
+        try (var in = new DataInputStream(this.openColumn(file, column))) {
+            var values = new byte[this.rowCount];
+            in.readFully(values);
+            return values;
+        }
+    }
+
+    private InputStream openColumn(RandomAccessFile file, int column) throws IOException {
+        var compressed = new byte[this.columnLengths[column]];
+        file.seek(this.columnOffsets[column]);
+        file.readFully(compressed);
+        return new InflaterInputStream(new ByteArrayInputStream(compressed));
+    }
+
+    private static byte[] compress(long[] values, int size, boolean deltaEncoded) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                out.writeLong(deltaEncoded ? values[i] - previous : values[i]);
+                previous = values[i];
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] compress(byte[] values, int size) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DeflaterOutputStream(bytes)) {
+            out.write(values, 0, size);
+        }
+        return bytes.toByteArray();
+    }
+}
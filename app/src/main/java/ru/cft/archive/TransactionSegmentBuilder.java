@@ -0,0 +1,44 @@
+package ru.cft.archive;
+
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+public final class TransactionSegmentBuilder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    long[] ids = new long[INITIAL_CAPACITY];
+    long[] sellerIds = new long[INITIAL_CAPACITY];
+    long[] amountCents = new long[INITIAL_CAPACITY];
+    byte[] paymentTypes = new byte[INITIAL_CAPACITY];
+    long[] transactionDates = new long[INITIAL_CAPACITY];
+    int size;
+
+    public void add(long id, long sellerId, BigDecimal amount, PaymentType paymentType, LocalDateTime transactionDate) {
+        if (this.size == this.ids.length) {
+            int capacity = this.ids.length * 2;
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.sellerIds = Arrays.copyOf(this.sellerIds, capacity);
+            this.amountCents = Arrays.copyOf(this.amountCents, capacity);
+            this.paymentTypes = Arrays.copyOf(this.paymentTypes, capacity);
+            this.transactionDates = Arrays.copyOf(this.transactionDates, capacity);
+        }
+        this.ids[this.size] = id;
+        this.sellerIds[this.size] = sellerId;
+        this.amountCents[this.size] = MoneyUnits.toCents(amount);
+        this.paymentTypes[this.size] = (byte) paymentType.ordinal();
+        this.transactionDates[this.size] = TransactionSegment.toEpochMicros(transactionDate);
+        this.size++;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+}
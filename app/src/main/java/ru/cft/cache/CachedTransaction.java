@@ -0,0 +1,15 @@
+package ru.cft.cache;
+
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CachedTransaction(
+        long id,
+        long sellerId,
+        BigDecimal amount,
+        PaymentType paymentType,
+        LocalDateTime transactionDate
+) {
+}
@@ -0,0 +1,73 @@
+package ru.cft.cache;
+
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.IncomeSeriesProperties;
+import ru.cft.enums.IncomeGranularity;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local LRU cache of closed income buckets in cents. A bucket that ended in the past only changes when
+ * back-dated transactions are imported, its month is archived or its seller is deleted; each of these
+ * invalidates the affected buckets here and, through {@link SellerInvalidationBus}, on the other instances.
+ * Like {@link SellerCache}, values loaded before an invalidation are not stored.
+ */
+@Component
+public class IncomeBucketCache {
+    private final LinkedHashMap<Key, Long> buckets;
+    private long generation;
+
+    public IncomeBucketCache(IncomeSeriesProperties properties) {
+        int maxSize = properties.cacheMaxSize();
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized Long get(long sellerId, IncomeGranularity granularity, LocalDateTime bucketStart) {
+        return this.buckets.get(new Key(sellerId, granularity, bucketStart));
+    }
+
+    public synchronized long generation() {
+        return this.generation;
+    }
+
+    public synchronized void putAll(long sellerId, IncomeGranularity granularity, Map<LocalDateTime, Long> incomeByBucket,
+                                    long loadedAtGeneration) {
+        if (this.generation != loadedAtGeneration) {
+            return;
+        }
+        incomeByBucket.forEach((bucketStart, cents) -> this.buckets.put(new Key(sellerId, granularity, bucketStart), cents));
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.buckets.clear();
+    }
+
+    /**
+     * Removes every bucket overlapping {@code [start, end)}.
+     */
+    public synchronized void invalidate(LocalDateTime start, LocalDateTime end) {
+        this.generation++;
+        this.buckets.keySet().removeIf(key -> key.bucketStart().isBefore(end)
+                && key.granularity().next(key.bucketStart()).isAfter(start));
+    }
+
+    public synchronized void evictSeller(long sellerId) {
+        this.generation++;
+        this.buckets.keySet().removeIf(key -> key.sellerId() == sellerId);
+    }
+
+    public synchronized int size() {
+        return this.buckets.size();
+    }
+
+    private record Key(long sellerId, IncomeGranularity granularity, LocalDateTime bucketStart) {
+    }
+}
@@ -0,0 +1,58 @@
+package ru.cft.cache;
+
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.SellerCacheProperties;
+import ru.cft.dto.seller.SellerDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local LRU cache of sellers by id. Every eviction bumps a generation counter, and a value loaded
+ * before an eviction is not stored, so a concurrent invalidation can't be overwritten by a stale read.
+ */
+@Component
+public class SellerCache {
+    private final boolean enabled;
+    private final LinkedHashMap<Long, SellerDto> sellers;
+    private long generation;
+
+    public SellerCache(SellerCacheProperties properties) {
+        this.enabled = properties.enabled();
+        int maxSize = properties.maxSize();
+        this.sellers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SellerDto> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized SellerDto get(Long id) {
+        return this.enabled ? this.sellers.get(id) : null;
+    }
+
+    public synchronized long generation() {
+        return this.generation;
+    }
+
+    public synchronized void put(Long id, SellerDto seller, long loadedAtGeneration) {
+        if (this.enabled && this.generation == loadedAtGeneration) {
+            this.sellers.put(id, seller);
+        }
+    }
+
+    public synchronized void evict(Long id) {
+        this.generation++;
+        this.sellers.remove(id);
+    }
+
+    public synchronized void clear() {
+        this.generation++;
+        this.sellers.clear();
+    }
+
+    public synchronized int size() {
+        return this.sellers.size();
+    }
+}
@@ -0,0 +1,238 @@
+package ru.cft.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.configuration.SellerCacheProperties;
+import ru.cft.mapper.SellerMapper;
+import ru.cft.repository.SellerRepository;
+import ru.cft.search.SellerSearchIndex;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Propagates seller changes between instances over Postgres LISTEN/NOTIFY.
+ * A change is applied locally and announced as {@code <instance id>:<seller id>} once the surrounding
+ * transaction commits. Every instance listens on a dedicated connection, evicts the seller from its
+ * {@link SellerCache} and refreshes its search index entry; for a seller that is no longer active it also
+ * evicts the seller's {@link IncomeBucketCache} buckets. Income invalidations travel on the same channel
+ * as {@code <instance id>:income:<yyyy-MM>} for one month or {@code <instance id>:income:*} for all buckets;
+ * since archival announces the months it moved out of the database this way, they also rescan the
+ * {@link TransactionArchive} for segments published by other instances.
+ * Notifications sent while the listener was disconnected are lost, so every reconnect flushes the caches
+ * and rebuilds the index.
+ */
+@Component
+@Slf4j
+public class SellerInvalidationBus {
+    private static final String INCOME_PREFIX = "income:";
+    private static final String ALL_MONTHS = "*";
+
+    private final SellerCache sellerCache;
+    private final IncomeBucketCache incomeBucketCache;
+    private final SellerSearchIndex sellerSearchIndex;
+    private final TransactionArchive transactionArchive;
+    private final SellerRepository sellerRepository;
+    private final SellerMapper sellerMapper;
+    private final DataSourceProperties dataSourceProperties;
+    private final SellerCacheProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listener;
+
+    public SellerInvalidationBus(SellerCache sellerCache,
+                                 IncomeBucketCache incomeBucketCache,
+                                 SellerSearchIndex sellerSearchIndex,
+                                 TransactionArchive transactionArchive,
+                                 SellerRepository sellerRepository,
+                                 SellerMapper sellerMapper,
+                                 DataSource dataSource,
+                                 DataSourceProperties dataSourceProperties,
+                                 SellerCacheProperties properties) {
+        this.sellerCache = sellerCache;
+        this.incomeBucketCache = incomeBucketCache;
+        this.sellerSearchIndex = sellerSearchIndex;
+        this.transactionArchive = transactionArchive;
+        this.sellerRepository = sellerRepository;
+        this.sellerMapper = sellerMapper;
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        this.running = true;
+        this.listener = Thread.ofPlatform().name("seller-invalidation-listener").daemon().start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (this.listener != null) {
+            this.listener.interrupt();
+            this.listener.join(this.properties.pollTimeout().toMillis() * 2);
+        }
+    }
+
+    public void publish(Long sellerId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    SellerInvalidationBus.this.publishNow(sellerId);
+                }
+            });
+        } else {
+            this.publishNow(sellerId);
+        }
+    }
+
+    /**
+     * Announces a seller whose deletion completed; other instances find it gone and drop it everywhere.
+     */
+    public void publishDeleted(Long sellerId) {
+        this.incomeBucketCache.evictSeller(sellerId);
+        this.publishNow(sellerId);
+    }
+
+    public void publishIncomeInvalidation(YearMonth month) {
+        this.incomeBucketCache.invalidate(month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        this.notifyOthers(INCOME_PREFIX + month, "income of " + month);
+    }
+
+    public void publishIncomeCleared() {
+        this.incomeBucketCache.clear();
+        this.notifyOthers(INCOME_PREFIX + ALL_MONTHS, "income of all months");
+    }
+
+    private void publishNow(Long sellerId) {
+        this.sellerCache.evict(sellerId);
+        this.notifyOthers(String.valueOf(sellerId), "seller " + sellerId);
+    }
+
+    private void notifyOthers(String message, String subject) {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        try {
+            this.jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                    this.properties.channel(), this.instanceId + ":" + message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to notify other instances about {}", subject, e);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (this.running) {
+            try (var connection = this.openConnection()) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + this.properties.channel());
+                }
+                if (reconnecting) {
+                    this.sellerCache.clear();
+                    this.refreshArchive();
+                    this.incomeBucketCache.clear();
+                    this.sellerSearchIndex.rebuild();
+                }
+                reconnecting = true;
+                log.info("Listening for seller invalidations on channel {}", this.properties.channel());
+
+                var pgConnection = connection.unwrap(PGConnection.class);
+                int timeoutMillis = (int) this.properties.pollTimeout().toMillis();
+                while (this.running) {
+                    var notifications = pgConnection.getNotifications(timeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (var notification : notifications) {
+                        this.onNotification(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!this.running) {
+                    return;
+                }
+                log.warn("Seller invalidation listener disconnected, reconnecting in {}", this.properties.reconnectDelay(), e);
+                try {
+                    Thread.sleep(this.properties.reconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void onNotification(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.startsWith(this.instanceId + ":")) {
+            return;
+        }
+        var message = payload.substring(separator + 1);
+        try {
+            if (message.startsWith(INCOME_PREFIX)) {
+                this.onIncomeInvalidation(message.substring(INCOME_PREFIX.length()));
+            } else {
+                this.onSellerInvalidation(Long.parseLong(message));
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            log.warn("Ignoring malformed seller invalidation {}", payload);
+        }
+    }
+
+    private void onSellerInvalidation(long sellerId) {
+        this.sellerCache.evict(sellerId);
+        this.sellerRepository.findActiveById(sellerId).ifPresentOrElse(
+                seller -> this.sellerSearchIndex.upsert(this.sellerMapper.toDto(seller)),
+                () -> {
+                    this.sellerSearchIndex.remove(sellerId);
+                    this.incomeBucketCache.evictSeller(sellerId);
+                }
+        );
+    }
+
+    private void onIncomeInvalidation(String month) {
+        this.refreshArchive();
+        if (ALL_MONTHS.equals(month)) {
+            this.incomeBucketCache.clear();
+            return;
+        }
+        var invalidated = YearMonth.parse(month);
+        this.incomeBucketCache.invalidate(invalidated.atDay(1).atStartOfDay(), invalidated.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    private void refreshArchive() {
+        try {
+            this.transactionArchive.refresh();
+        } catch (IOException e) {
+            log.warn("Failed to rescan the transaction archive", e);
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                this.dataSourceProperties.determineUrl(),
+                this.dataSourceProperties.determineUsername(),
+                this.dataSourceProperties.determinePassword()
+        );
+    }
+}
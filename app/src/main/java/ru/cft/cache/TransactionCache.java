@@ -0,0 +1,104 @@
+package ru.cft.cache;
+
+import org.springframework.stereotype.Component;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.configuration.TransactionCacheProperties;
+import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Cache of transactions by id, kept off-heap in fixed-size slots of one direct buffer, so a million entries cost
+ * the garbage collector nothing to trace. Transactions never change once created, so nothing is invalidated: each
+ * id maps to one slot and a newer transaction simply overwrites the one there. Consecutive ids fill consecutive
+ * slots, which keeps the most recent transactions. Only the seller id is stored; the seller is resolved on read
+ * so seller updates stay visible.
+ */
+@Component
+public class TransactionCache {
+    private static final int MAX_CAPACITY = 1 << 25;
+    private static final int SLOT_SIZE = 40;
+    private static final int ID = 0;
+    private static final int SELLER_ID = 8;
+    private static final int CENTS = 16;
+    private static final int EPOCH_SECOND = 24;
+    private static final int NANO = 32;
+    private static final int PAYMENT_TYPE = 36;
+    private static final int LOCK_STRIPES = 64;
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    private final boolean enabled;
+    private final int mask;
+    private final ByteBuffer slots;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public TransactionCache(TransactionCacheProperties properties) {
+        this.enabled = properties.enabled();
+        int capacity = Integer.highestOneBit(Math.clamp(properties.maxEntries(), 1, MAX_CAPACITY));
+        this.mask = capacity - 1;
+        this.slots = this.enabled ? ByteBuffer.allocateDirect(capacity * SLOT_SIZE) : null;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+    }
+
+    public CachedTransaction get(long id) {
+        if (!this.enabled) {
+            return null;
+        }
+        int slot = this.slot(id);
+        int offset = slot * SLOT_SIZE;
+        synchronized (this.locks[slot % LOCK_STRIPES]) {
+            int paymentType = this.slots.getInt(offset + PAYMENT_TYPE);
+            if (paymentType == 0 || this.slots.getLong(offset + ID) != id) {
+                return null;
+            }
+            return new CachedTransaction(
+                    id,
+                    this.slots.getLong(offset + SELLER_ID),
+                    MoneyUnits.fromCents(this.slots.getLong(offset + CENTS)),
+                    PAYMENT_TYPES[paymentType - 1],
+                    LocalDateTime.ofEpochSecond(this.slots.getLong(offset + EPOCH_SECOND), this.slots.getInt(offset + NANO), ZoneOffset.UTC)
+            );
+        }
+    }
+
+    public void put(TransactionDto transaction) {
+        this.put(transaction.id(), transaction.seller().id(), transaction.amount(), transaction.paymentType(),
+                transaction.transactionDate());
+    }
+
+    public void put(long id, long sellerId, BigDecimal amount, PaymentType paymentType, LocalDateTime date) {
+        if (!this.enabled) {
+            return;
+        }
+        long cents;
+        try {
+            cents = MoneyUnits.toCents(amount);
+        } catch (ArithmeticException e) {
+            return;
+        }
+        int slot = this.slot(id);
+        int offset = slot * SLOT_SIZE;
+        synchronized (this.locks[slot % LOCK_STRIPES]) {
+            this.slots.putLong(offset + ID, id);
+            this.slots.putLong(offset + SELLER_ID, sellerId);
+            this.slots.putLong(offset + CENTS, cents);
+            this.slots.putLong(offset + EPOCH_SECOND, date.toEpochSecond(ZoneOffset.UTC));
+            this.slots.putInt(offset + NANO, date.getNano());
+            this.slots.putInt(offset + PAYMENT_TYPE, paymentType.ordinal() + 1);
+        }
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    private int slot(long id) {
+        return (int) (id & this.mask);
+    }
+}
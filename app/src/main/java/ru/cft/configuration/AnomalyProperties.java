@@ -0,0 +1,14 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "crm.anomaly")
+public record AnomalyProperties(
+        @DefaultValue("0.05") double alpha,
+        @DefaultValue("20") int minSamples,
+        @DefaultValue("4.0") double threshold,
+        @DefaultValue("0.01") double minStdDev,
+        @DefaultValue("1000") int recentSize
+) {
+}
@@ -0,0 +1,17 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "crm.archive")
+public record ArchiveProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("archive") Path directory,
+        @DefaultValue("12") int retentionMonths,
+        @DefaultValue("1000000") int segmentMaxRows,
+        @DefaultValue("10000") int fetchSize,
+        @DefaultValue("5000") int deleteChunkSize
+) {
+}
@@ -0,0 +1,48 @@
+package ru.cft.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Serves {@code application/cbor} and {@code application/x-jackson-smile} next to JSON, which stays first and
+ * therefore the default. Both binary formats write dates as numeric arrays instead of ISO strings, and Smile also
+ * back-references repeated string values such as the seller repeated in every transaction of a list.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryFormatConfiguration implements WebMvcConfigurer {
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    public static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper(this.objectMapperBuilder.getObject())));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(this.objectMapperBuilder.getObject())));
+    }
+}
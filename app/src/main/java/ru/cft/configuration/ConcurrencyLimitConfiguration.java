@@ -0,0 +1,40 @@
+package ru.cft.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.cft.api.AnalyticsController;
+import ru.cft.api.SellerController;
+import ru.cft.api.TransactionController;
+import ru.cft.limit.AdaptiveConcurrencyLimiter;
+import ru.cft.limit.ConcurrencyLimitInterceptor;
+
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConcurrencyLimitConfiguration implements WebMvcConfigurer {
+    private final ConcurrencyLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        var limiters = Map.<Class<?>, AdaptiveConcurrencyLimiter>of(
+                SellerController.class, limiter("seller", this.properties.seller()),
+                TransactionController.class, limiter("transaction", this.properties.transaction()),
+                AnalyticsController.class, limiter("analytics", this.properties.analytics())
+        );
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(limiters, this.properties.rejectionStatus(), this.objectMapper))
+                .addPathPatterns(WebPath.API_VERSION_V1 + "/**");
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(String name, ConcurrencyLimitProperties.Group group) {
+        return new AdaptiveConcurrencyLimiter(name, group.initialLimit(), group.minLimit(), group.maxLimit(),
+                group.rttTolerance(), group.smoothing());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.HttpStatus;
+
+@ConfigurationProperties(prefix = "crm.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("TOO_MANY_REQUESTS") HttpStatus rejectionStatus,
+        @DefaultValue Group seller,
+        @DefaultValue Group transaction,
+        @DefaultValue Group analytics
+) {
+    public record Group(
+            @DefaultValue("20") int initialLimit,
+            @DefaultValue("4") int minLimit,
+            @DefaultValue("200") int maxLimit,
+            @DefaultValue("2.0") double rttTolerance,
+            @DefaultValue("0.2") double smoothing
+    ) {
+    }
+}
@@ -0,0 +1,53 @@
+package ru.cft.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.cft.pool.ConnectionPathInterceptor;
+import ru.cft.pool.ConnectionPoolAccounting;
+import ru.cft.pool.InstrumentedDataSource;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConnectionPoolConfiguration implements WebMvcConfigurer {
+    private final ConnectionPoolProperties properties;
+
+    /**
+     * Wraps the pool whenever either connection accounting or SQL statement statistics need it; statistics alone
+     * only count statements, so pool metrics stay off.
+     */
+    @Bean
+    static BeanPostProcessor connectionAccountingPostProcessor(ObjectProvider<ConnectionPoolProperties> properties,
+                                                               ObjectProvider<StatementStatisticsProperties> statisticsProperties,
+                                                               ObjectProvider<ConnectionPoolAccounting> accounting) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource dataSource)) {
+                    return bean;
+                }
+                if (properties.getObject().accountingEnabled()) {
+                    return new InstrumentedDataSource(dataSource, accounting::getObject);
+                }
+                if (statisticsProperties.getObject().enabled()) {
+                    return new InstrumentedDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!this.properties.accountingEnabled()) {
+            return;
+        }
+        registry.addInterceptor(new ConnectionPathInterceptor())
+                .addPathPatterns(WebPath.API_VERSION_V1 + "/**");
+    }
+}
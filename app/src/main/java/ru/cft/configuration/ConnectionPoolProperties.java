@@ -0,0 +1,22 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.connection-pool")
+public record ConnectionPoolProperties(
+        @DefaultValue("true") boolean accountingEnabled,
+        @DefaultValue Sizing sizing
+) {
+    public record Sizing(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("4") int minSize,
+            @DefaultValue("40") int maxSize,
+            @DefaultValue("2") int step,
+            @DefaultValue("5ms") Duration targetWait,
+            @DefaultValue("2.0") double latencyTolerance
+    ) {
+    }
+}
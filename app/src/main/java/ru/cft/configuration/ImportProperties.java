@@ -0,0 +1,11 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "crm.import")
+public record ImportProperties(
+        @DefaultValue("1000") int maxReportedErrors,
+        @DefaultValue("65536") int copyBufferSize
+) {
+}
@@ -0,0 +1,13 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.income-series")
+public record IncomeSeriesProperties(
+        @DefaultValue("100000") int cacheMaxSize,
+        @DefaultValue("1m") Duration closeDelay
+) {
+}
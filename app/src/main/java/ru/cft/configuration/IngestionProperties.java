@@ -0,0 +1,21 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.ingestion")
+public record IngestionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("ingestion") Path directory,
+        @DefaultValue("10000") int bufferSize,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("100ms") Duration pollTimeout,
+        @DefaultValue("1s") Duration retryDelay,
+        @DefaultValue("64MB") DataSize maxLogSize,
+        @DefaultValue("100000") int statusRetention
+) {
+}
@@ -0,0 +1,14 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.leaderboard")
+public record LeaderboardProperties(
+        @DefaultValue("15") int windowMinutes,
+        @DefaultValue("10") int topSize,
+        @DefaultValue("30m") Duration emitterTimeout
+) {
+}
@@ -0,0 +1,16 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.seller-cache")
+public record SellerCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int maxSize,
+        @DefaultValue("seller_invalidation") String channel,
+        @DefaultValue("5s") Duration pollTimeout,
+        @DefaultValue("5s") Duration reconnectDelay
+) {
+}
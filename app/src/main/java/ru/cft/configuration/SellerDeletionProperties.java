@@ -0,0 +1,14 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.seller-deletion")
+public record SellerDeletionProperties(
+        @DefaultValue("5000") int chunkSize,
+        @DefaultValue("10ms") Duration chunkPause,
+        @DefaultValue("20") int maxChunksPerRun
+) {
+}
@@ -0,0 +1,11 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "crm.seller-search")
+public record SellerSearchProperties(
+        @DefaultValue("1000") int loadBatchSize,
+        @DefaultValue("100000") int maxCandidates
+) {
+}
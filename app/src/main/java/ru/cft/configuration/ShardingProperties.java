@@ -0,0 +1,22 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "crm.sharding")
+public record ShardingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Shard> shards,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("16") int topCandidates,
+        @DefaultValue("10000") int fetchSize
+) {
+    public record Shard(
+            String url,
+            String username,
+            String password
+    ) {
+    }
+}
@@ -0,0 +1,22 @@
+package ru.cft.configuration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.cft.sql.StatementStatisticsInterceptor;
+
+@Configuration
+@RequiredArgsConstructor
+public class StatementStatisticsConfiguration implements WebMvcConfigurer {
+    private final StatementStatisticsProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        registry.addInterceptor(new StatementStatisticsInterceptor(this.properties))
+                .addPathPatterns(WebPath.API_VERSION_V1 + "/**");
+    }
+}
@@ -0,0 +1,22 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import ru.cft.enums.StatementBudgetMode;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "crm.sql-statistics")
+public record StatementStatisticsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("true") boolean responseHeaders,
+        @DefaultValue("WARN") StatementBudgetMode budgetMode,
+        @DefaultValue List<Budget> budgets
+) {
+    public record Budget(
+            String method,
+            String path,
+            int maxStatements
+    ) {
+    }
+}
@@ -0,0 +1,11 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "crm.transaction-cache")
+public record TransactionCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1048576") int maxEntries
+) {
+}
@@ -0,0 +1,18 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import ru.cft.enums.FeedOverflowPolicy;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.transaction-feed")
+public record TransactionFeedProperties(
+        @DefaultValue("10000") int historySize,
+        @DefaultValue("1000") int bufferSize,
+        @DefaultValue("500") int replayPageSize,
+        @DefaultValue("DROP") FeedOverflowPolicy overflowPolicy,
+        @DefaultValue("15s") Duration heartbeatInterval,
+        @DefaultValue("30m") Duration emitterTimeout
+) {
+}
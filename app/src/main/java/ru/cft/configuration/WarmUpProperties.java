@@ -0,0 +1,18 @@
+package ru.cft.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "crm.warm-up")
+public record WarmUpProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("4") int parallelism,
+        @DefaultValue("100000") int hotTransactions,
+        @DefaultValue("10000") int hotSellers,
+        @DefaultValue("5") int queryRepetitions,
+        @DefaultValue("2000") int syntheticRequests,
+        @DefaultValue("2m") Duration timeout
+) {
+}
@@ -4,4 +4,5 @@ public final class WebPath {
     public static final String API_VERSION_V1 = "/api/v1";
     public static final String PATH_SELLER = "/seller";
     public static final String PATH_TRANSACTION = "/transaction";
+    public static final String PATH_IMPORT = "/import";
 }
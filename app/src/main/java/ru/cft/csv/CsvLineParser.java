@@ -0,0 +1,57 @@
+package ru.cft.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CsvLineParser {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private CsvLineParser() {
+    }
+
+    public static List<String> parse(String line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == QUOTE) {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                        field.append(QUOTE);
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static void appendQuoted(StringBuilder out, String value) {
+        out.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                out.append(QUOTE);
+            }
+            out.append(c);
+        }
+        out.append(QUOTE);
+    }
+}
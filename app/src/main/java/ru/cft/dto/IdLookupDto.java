@@ -0,0 +1,21 @@
+package ru.cft.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record IdLookupDto(
+        @NotEmpty
+        @Size(max = IdLookupDto.MAX_IDS)
+        @ArraySchema(arraySchema = @Schema(description = "Identifiers to look up, duplicates are ignored"),
+                schema = @Schema(example = "42"), maxItems = IdLookupDto.MAX_IDS)
+        List<@NotNull Long> ids
+) {
+    public static final int MAX_IDS = 10_000;
+}
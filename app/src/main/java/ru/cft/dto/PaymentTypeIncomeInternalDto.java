@@ -0,0 +1,14 @@
+package ru.cft.dto;
+
+import lombok.Builder;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PaymentTypeIncomeInternalDto(
+        PaymentType paymentType,
+        BigDecimal income,
+        Long transactionCount
+) {
+}
@@ -0,0 +1,12 @@
+package ru.cft.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record SellerIncomeInternalDto(
+        Long sellerId,
+        BigDecimal income
+) {
+}
@@ -0,0 +1,14 @@
+package ru.cft.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+public record TransactionIncomeInternalDto(
+        Long sellerId,
+        BigDecimal amount,
+        LocalDateTime transactionDate
+) {
+}
@@ -0,0 +1,16 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+public record IncomeBucketDto(
+        @Schema(description = "Start of the bucket", example = "2025-08-01T00:00:00")
+        LocalDateTime start,
+        @Schema(description = "Total income within the bucket, zero when there were no transactions", example = "1250.00")
+        BigDecimal income
+) {
+}
@@ -0,0 +1,18 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.enums.IncomeGranularity;
+
+import java.util.List;
+
+@Builder
+public record IncomeSeriesDto(
+        @Schema(description = "Seller identifier", example = "42")
+        Long sellerId,
+        @Schema(description = "Bucket size", example = "DAY")
+        IncomeGranularity granularity,
+        @Schema(description = "Consecutive buckets covering the requested period, oldest first")
+        List<IncomeBucketDto> buckets
+) {
+}
@@ -0,0 +1,18 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+public record LeaderboardDto(
+        @Schema(description = "Start of the sliding window", example = "2025-08-29T11:46:00")
+        LocalDateTime windowStart,
+        @Schema(description = "End of the sliding window (exclusive)", example = "2025-08-29T12:01:00")
+        LocalDateTime windowEnd,
+        @Schema(description = "Top sellers by income within the window")
+        List<LeaderboardEntryDto> sellers
+) {
+}
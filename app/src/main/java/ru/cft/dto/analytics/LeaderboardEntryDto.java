@@ -0,0 +1,19 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record LeaderboardEntryDto(
+        @Schema(description = "Position in the leaderboard, starting from 1", example = "1")
+        int rank,
+        @Schema(description = "Seller identifier", example = "42")
+        long sellerId,
+        @Schema(description = "Seller name", example = "John Doe")
+        String sellerName,
+        @Schema(description = "Income within the window", example = "15342.75")
+        BigDecimal income
+) {
+}
@@ -0,0 +1,25 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+public record PaymentBreakdownDto(
+        @Schema(description = "Start of the period", example = "2025-08-01T00:00:00")
+        LocalDateTime start,
+        @Schema(description = "End of the period", example = "2025-08-31T23:59:59")
+        LocalDateTime end,
+        @Schema(description = "Seller identifier, absent for the global breakdown", example = "42")
+        Long sellerId,
+        @Schema(description = "Total income for the period", example = "15342.75")
+        BigDecimal totalIncome,
+        @Schema(description = "Total number of transactions for the period", example = "42")
+        long totalTransactionCount,
+        @Schema(description = "Income and transaction count per payment type")
+        List<PaymentTypeIncomeDto> byPaymentType
+) {
+}
@@ -0,0 +1,18 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PaymentTypeIncomeDto(
+        @Schema(description = "Payment type", example = "CARD")
+        PaymentType paymentType,
+        @Schema(description = "Total income for the payment type", example = "15342.75")
+        BigDecimal income,
+        @Schema(description = "Number of transactions for the payment type", example = "42")
+        long transactionCount
+) {
+}
@@ -0,0 +1,21 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.dto.seller.SellerDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+public record PeriodAnalyticsDto(
+        @Schema(description = "Start of the period", example = "2025-08-01T00:00:00")
+        LocalDateTime start,
+        @Schema(description = "End of the period", example = "2025-08-01T23:59:59")
+        LocalDateTime end,
+        @Schema(description = "Seller with the highest income, absent when the period has no transactions")
+        SellerWithIncomeDto topSeller,
+        @Schema(description = "Sellers with income below the threshold, absent when no threshold was given")
+        List<SellerDto> sellersWithIncomeLessThanThreshold
+) {
+}
@@ -0,0 +1,27 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Builder;
+import ru.cft.dto.DateRangeDto;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+public record PeriodAnalyticsRequestDto(
+        @Schema(description = "Explicit periods, mutually exclusive with start, end and step")
+        List<DateRangeDto> periods,
+        @Schema(description = "Start of the first generated period", example = "2025-08-01T00:00:00")
+        LocalDateTime start,
+        @Schema(description = "End of the last generated period", example = "2025-08-31T23:59:59")
+        LocalDateTime end,
+        @Schema(description = "Length of each generated period", example = "P1D")
+        Duration step,
+        @DecimalMin(value = "0.0", message = "Threshold must be greater than zero")
+        @Schema(description = "Income threshold, omit to skip the below-threshold sellers", example = "10000")
+        BigDecimal threshold
+) {
+}
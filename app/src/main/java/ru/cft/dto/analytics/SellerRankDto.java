@@ -0,0 +1,26 @@
+package ru.cft.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+public record SellerRankDto(
+        @Schema(description = "Seller identifier", example = "42")
+        Long sellerId,
+        @Schema(description = "Start of the period", example = "2025-08-01T00:00:00")
+        LocalDateTime start,
+        @Schema(description = "End of the period", example = "2025-08-31T23:59:59")
+        LocalDateTime end,
+        @Schema(description = "Seller income for the period", example = "15342.75")
+        BigDecimal income,
+        @Schema(description = "Position by income, 1 is the best; absent when the seller has no transactions in the period", example = "137")
+        Integer rank,
+        @Schema(description = "Number of sellers with transactions in the period", example = "4210")
+        int rankedSellers,
+        @Schema(description = "Share of ranked sellers at or above this seller, in percent", example = "3.26")
+        BigDecimal topPercent
+) {
+}
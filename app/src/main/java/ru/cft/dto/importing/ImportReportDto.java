@@ -0,0 +1,21 @@
+package ru.cft.dto.importing;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record ImportReportDto(
+        @Schema(description = "Number of data rows read from the file", example = "100000")
+        long totalRows,
+        @Schema(description = "Number of rows stored", example = "99998")
+        long importedRows,
+        @Schema(description = "Number of rejected rows", example = "2")
+        long rejectedRows,
+        @Schema(description = "Row-level errors, at most the configured number of them")
+        List<ImportRowErrorDto> errors,
+        @Schema(description = "Whether some row-level errors were omitted from the report", example = "false")
+        boolean errorsTruncated
+) {
+}
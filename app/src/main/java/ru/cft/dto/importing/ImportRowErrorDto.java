@@ -0,0 +1,13 @@
+package ru.cft.dto.importing;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder
+public record ImportRowErrorDto(
+        @Schema(description = "Line number in the uploaded file (1-based, header included)", example = "17")
+        long line,
+        @Schema(description = "Reason the row was rejected", example = "field `amount` Amount must be greater than zero")
+        String message
+) {
+}
@@ -0,0 +1,22 @@
+package ru.cft.dto.seller;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.enums.SellerDeletionStatus;
+
+import java.time.LocalDateTime;
+
+@Builder
+public record SellerDeletionDto(
+        @Schema(description = "Identifier of the seller being deleted", example = "42")
+        Long sellerId,
+        @Schema(description = "Deletion status", example = "IN_PROGRESS")
+        SellerDeletionStatus status,
+        @Schema(description = "When the deletion was requested", example = "2025-08-27T12:34:56")
+        LocalDateTime requestedAt,
+        @Schema(description = "Number of seller transactions deleted so far", example = "150000")
+        long deletedTransactions,
+        @Schema(description = "When the deletion finished", example = "2025-08-27T12:40:00")
+        LocalDateTime completedAt
+) {
+}
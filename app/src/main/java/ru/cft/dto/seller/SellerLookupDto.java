@@ -0,0 +1,16 @@
+package ru.cft.dto.seller;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record SellerLookupDto(
+        @ArraySchema(arraySchema = @Schema(description = "Found sellers, in the order of the requested ids"))
+        List<SellerDto> found,
+        @ArraySchema(arraySchema = @Schema(description = "Requested ids with no active seller"), schema = @Schema(example = "43"))
+        List<Long> missing
+) {
+}
@@ -0,0 +1,22 @@
+package ru.cft.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.enums.IngestionState;
+
+import java.util.UUID;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestionStatusDto(
+        @Schema(description = "Tracking identifier returned when the transaction was accepted", example = "3f2c8a9e-5b1d-4c7a-9e2f-0a1b2c3d4e5f")
+        UUID trackingId,
+        @Schema(description = "Ingestion state", example = "INSERTED")
+        IngestionState state,
+        @Schema(description = "Identifier of the created transaction, once inserted", example = "1024")
+        Long transactionId,
+        @Schema(description = "Why the transaction was rejected", example = "There is no seller with id 42")
+        String message
+) {
+}
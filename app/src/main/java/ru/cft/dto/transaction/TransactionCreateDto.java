@@ -1,9 +1,11 @@
 package ru.cft.dto.transaction;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
+import ru.cft.aggregation.MoneyUnits;
 import ru.cft.enums.PaymentType;
 
 import java.math.BigDecimal;
@@ -15,6 +17,7 @@ public record TransactionCreateDto(
         Long sellerId,
         @NotNull
         @DecimalMin(value = "0.0", message = "Amount must be greater than zero")
+        @DecimalMax(value = MoneyUnits.MAX_AMOUNT, message = "Amount must not exceed " + MoneyUnits.MAX_AMOUNT)
         @Schema(description = "Transaction amount", example = "199.99")
         BigDecimal amount,
         @NotNull
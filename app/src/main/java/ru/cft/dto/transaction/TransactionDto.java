@@ -1,5 +1,6 @@
 package ru.cft.dto.transaction;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
@@ -11,7 +12,7 @@ import ru.cft.enums.PaymentType;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
-@Builder
+@Builder(toBuilder = true)
 public record TransactionDto(
         @NotNull
         @Schema(description = "Transaction identifier", example = "42")
@@ -28,6 +29,9 @@ public record TransactionDto(
         PaymentType paymentType,
         @NotNull
         @Schema(description = "Transaction date (UTC)", example = "2025-08-27T12:34:56")
-        LocalDateTime transactionDate
+        LocalDateTime transactionDate,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @Schema(description = "Standard deviations above the seller's usual amount, present only on creation once the seller has enough history", example = "4.37")
+        Double anomalyScore
 ) {
 }
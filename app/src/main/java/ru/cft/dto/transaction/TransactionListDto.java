@@ -0,0 +1,19 @@
+package ru.cft.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.dto.seller.SellerDto;
+
+import java.util.List;
+import java.util.Map;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionListDto(
+        @Schema(description = "Transactions with the requested fields only")
+        List<TransactionRowDto> transactions,
+        @Schema(description = "Distinct sellers of the transactions by id, present with include=seller")
+        Map<Long, SellerDto> sellers
+) {
+}
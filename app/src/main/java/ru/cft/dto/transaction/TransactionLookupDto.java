@@ -0,0 +1,16 @@
+package ru.cft.dto.transaction;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record TransactionLookupDto(
+        @ArraySchema(arraySchema = @Schema(description = "Found transactions, in the order of the requested ids"))
+        List<TransactionDto> found,
+        @ArraySchema(arraySchema = @Schema(description = "Requested ids with no transaction"), schema = @Schema(example = "43"))
+        List<Long> missing
+) {
+}
@@ -0,0 +1,28 @@
+package ru.cft.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionRowDto(
+        @Schema(description = "Transaction identifier", example = "42")
+        Long id,
+        @Schema(description = "Seller identifier, present when requested or when sellers are included separately", example = "7")
+        Long sellerId,
+        @Schema(description = "Seller details, present when requested and sellers are not included separately")
+        SellerDto seller,
+        @Schema(description = "Transaction amount", example = "199.99")
+        BigDecimal amount,
+        @Schema(description = "Payment type", example = "CARD")
+        PaymentType paymentType,
+        @Schema(description = "Transaction date (UTC)", example = "2025-08-27T12:34:56")
+        LocalDateTime transactionDate
+) {
+}
@@ -27,4 +27,7 @@ public class Seller {
 
     @Column(nullable = false)
     private LocalDateTime registrationDate;
+
+    @Column
+    private LocalDateTime deletionRequestedAt;
 }
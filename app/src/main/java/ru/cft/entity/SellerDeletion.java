@@ -0,0 +1,35 @@
+package ru.cft.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.cft.enums.SellerDeletionStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "seller_deletion")
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SellerDeletion {
+    @Id
+    private Long sellerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SellerDeletionStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(nullable = false)
+    private long deletedTransactions;
+
+    @Column
+    private Long lastDeletedTransactionId;
+
+    @Column
+    private LocalDateTime completedAt;
+}
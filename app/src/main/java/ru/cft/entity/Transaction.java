@@ -6,9 +6,13 @@ import ru.cft.enums.PaymentType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction", indexes = {
+        @Index(name = "transaction_seller_idx", columnList = "seller, id"),
+        @Index(name = "transaction_date_idx", columnList = "transaction_date")
+})
 @Builder
 @Getter
 @Setter
@@ -19,7 +23,7 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller")
     private Seller seller;
 
@@ -31,4 +35,7 @@ public class Transaction {
 
     @Column
     private LocalDateTime transactionDate;
+
+    @Column(unique = true)
+    private UUID trackingId;
 }
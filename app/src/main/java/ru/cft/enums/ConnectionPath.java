@@ -0,0 +1,8 @@
+package ru.cft.enums;
+
+public enum ConnectionPath {
+    WRITE,
+    READ,
+    ANALYTICS,
+    BACKGROUND
+}
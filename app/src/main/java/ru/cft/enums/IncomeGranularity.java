@@ -0,0 +1,44 @@
+package ru.cft.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Bucket size of an income series. Buckets are aligned the same way as PostgreSQL {@code date_trunc}:
+ * days start at midnight, weeks on Monday, months on the first day.
+ */
+public enum IncomeGranularity {
+    DAY(ChronoUnit.DAYS),
+    WEEK(ChronoUnit.WEEKS),
+    MONTH(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    IncomeGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime truncate(LocalDateTime date) {
+        var day = date.truncatedTo(ChronoUnit.DAYS);
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, this.unit);
+    }
+
+    public long bucketCount(LocalDateTime start, LocalDateTime end) {
+        return this.unit.between(this.truncate(start), this.truncate(end)) + 1;
+    }
+
+    public String sqlUnit() {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+}
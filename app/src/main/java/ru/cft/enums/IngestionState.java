@@ -0,0 +1,7 @@
+package ru.cft.enums;
+
+public enum IngestionState {
+    ACCEPTED,
+    INSERTED,
+    REJECTED
+}
@@ -0,0 +1,6 @@
+package ru.cft.enums;
+
+public enum SellerDeletionStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
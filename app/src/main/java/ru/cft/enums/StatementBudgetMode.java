@@ -0,0 +1,6 @@
+package ru.cft.enums;
+
+public enum StatementBudgetMode {
+    WARN,
+    FAIL
+}
@@ -0,0 +1,37 @@
+package ru.cft.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Transaction fields that can be requested with {@code fields=}, each with the only column it is read from.
+ * {@link #SELLER} is read as the seller id and resolved to seller details afterwards, never joined.
+ */
+public enum TransactionField {
+    ID("id", "id"),
+    SELLER_ID("sellerId", "seller"),
+    SELLER("seller", "seller"),
+    AMOUNT("amount", "amount"),
+    PAYMENT_TYPE("paymentType", "payment_type"),
+    TRANSACTION_DATE("transactionDate", "transaction_date");
+
+    private final String fieldName;
+    private final String column;
+
+    TransactionField(String fieldName, String column) {
+        this.fieldName = fieldName;
+        this.column = column;
+    }
+
+    public String fieldName() {
+        return this.fieldName;
+    }
+
+    public String column() {
+        return this.column;
+    }
+
+    public static Optional<TransactionField> fromFieldName(String fieldName) {
+        return Arrays.stream(values()).filter(field -> field.fieldName.equals(fieldName)).findFirst();
+    }
+}
@@ -0,0 +1,10 @@
+package ru.cft.enums;
+
+public enum WarmUpPhase {
+    PENDING,
+    CONNECTION_POOL,
+    QUERY_PLANS,
+    CACHES,
+    REQUESTS,
+    DONE
+}
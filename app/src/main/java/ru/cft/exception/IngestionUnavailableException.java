@@ -0,0 +1,10 @@
+package ru.cft.exception;
+
+/**
+ * Asynchronous ingestion cannot take the transaction right now (disabled or backlog full), reported as 503.
+ */
+public class IngestionUnavailableException extends RuntimeException {
+    public IngestionUnavailableException(String message) {
+        super(message);
+    }
+}
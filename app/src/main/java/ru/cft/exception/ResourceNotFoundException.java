@@ -1,7 +1,15 @@
 package ru.cft.exception;
 
+/**
+ * Expected outcome of a lookup, reported to the client as 404. It is raised for every miss,
+ * so no stack trace is captured.
+ */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
-        super(message);
+        this(message, false);
     }
-}
\ No newline at end of file
+
+    protected ResourceNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+}
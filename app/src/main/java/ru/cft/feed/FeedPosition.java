@@ -0,0 +1,32 @@
+package ru.cft.feed;
+
+/**
+ * Position of an event in the transaction feed, sent as the SSE event id {@code <sequence>-<transaction id>}.
+ * The sequence orders events as they were published, which transaction ids do not: concurrent inserts, batched
+ * ingestion and shards commit ids out of order. A bare number is the transaction id of a client that predates
+ * sequences and always resumes from the database.
+ *
+ * @param sequence      publication order within one feed instance, {@code 0} when unknown
+ * @param transactionId id of the last transaction the client received
+ */
+public record FeedPosition(long sequence, long transactionId) {
+    private static final char SEPARATOR = '-';
+
+    public static FeedPosition parse(String eventId) {
+        var value = eventId.strip();
+        int separator = value.indexOf(SEPARATOR, 1);
+        try {
+            if (separator < 0) {
+                return new FeedPosition(0, Long.parseLong(value));
+            }
+            return new FeedPosition(Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed feed event id " + eventId, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.sequence + String.valueOf(SEPARATOR) + this.transactionId;
+    }
+}
@@ -0,0 +1,304 @@
+package ru.cft.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.configuration.TransactionFeedProperties;
+import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.entity.Seller;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.FeedOverflowPolicy;
+import ru.cft.mapper.TransactionMapper;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardTransaction;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes created transactions to SSE subscribers.
+ * The write path only appends to a history ring and offers the event to each subscriber's bounded queue,
+ * it never waits for a reader; every subscriber is drained by its own virtual thread. A subscriber that
+ * falls behind either loses events (and is told how many via a {@code dropped} event) or is disconnected.
+ * Every event gets the next feed sequence number under the publishing lock, so sequences follow publication order
+ * even when transaction ids do not. Reconnecting clients resume after the sequence in {@code Last-Event-ID} from
+ * the history ring, or after its transaction id from the database when the ring no longer holds that sequence,
+ * for instance after a restart. With sharding the database replay pages through all shards by id.
+ */
+@Component
+@Slf4j
+public class TransactionFeed {
+    private static final String TRANSACTION_EVENT = "transaction";
+    private static final String DROPPED_EVENT = "dropped";
+    private static final FeedEvent CLOSE = new FeedEvent(Long.MIN_VALUE, Long.MIN_VALUE, "");
+
+    private final TransactionRepository transactionRepository;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final SellerRepository sellerRepository;
+    private final TransactionMapper transactionMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionFeedProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService drainers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Object lock = new Object();
+    private final FeedEvent[] history;
+    private int historyHead;
+    private int historySize;
+    private long lastSequence = System.currentTimeMillis() * 1000;
+
+    public TransactionFeed(TransactionRepository transactionRepository,
+                           ShardedTransactionStore shardedTransactionStore,
+                           SellerRepository sellerRepository,
+                           TransactionMapper transactionMapper,
+                           ObjectMapper objectMapper,
+                           TransactionFeedProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.shardedTransactionStore = shardedTransactionStore;
+        this.sellerRepository = sellerRepository;
+        this.transactionMapper = transactionMapper;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.history = new FeedEvent[properties.historySize()];
+    }
+
+    public void publish(TransactionDto transaction) {
+        var json = this.serialize(transaction);
+        synchronized (this.lock) {
+            var event = new FeedEvent(++this.lastSequence, transaction.id(), json);
+            this.history[this.historyHead] = event;
+            this.historyHead = (this.historyHead + 1) % this.history.length;
+            this.historySize = Math.min(this.historySize + 1, this.history.length);
+            for (var subscriber : this.subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    public SseEmitter subscribe(FeedPosition lastEvent, FeedOverflowPolicy overflowPolicy) {
+        var emitter = this.createEmitter();
+        var subscriber = new Subscriber(emitter, overflowPolicy != null ? overflowPolicy : this.properties.overflowPolicy());
+        List<FeedEvent> backlog = List.of();
+        Long replayBefore = null;
+        synchronized (this.lock) {
+            if (lastEvent != null) {
+                if (this.historyCovers(lastEvent.sequence())) {
+                    backlog = this.historyAfter(lastEvent.sequence());
+                } else {
+                    backlog = this.historyAfter(Long.MIN_VALUE);
+                    replayBefore = backlog.stream().mapToLong(FeedEvent::transactionId).min().orElse(Long.MAX_VALUE);
+                }
+            }
+            this.subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        var initialBacklog = backlog;
+        var initialReplayBefore = replayBefore;
+        this.drainers.execute(() -> subscriber.run(lastEvent, initialReplayBefore, initialBacklog));
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(this.properties.emitterTimeout().toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.subscribers.forEach(Subscriber::close);
+        this.drainers.shutdown();
+    }
+
+    private List<FeedEvent> historyAfter(long sequence) {
+        var events = new ArrayList<FeedEvent>();
+        int start = Math.floorMod(this.historyHead - this.historySize, this.history.length);
+        for (int i = 0; i < this.historySize; i++) {
+            var event = this.history[(start + i) % this.history.length];
+            if (event.sequence() > sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Whether every event published after {@code sequence} is still in the ring. Sequences of a previous run
+     * are below the current ring, since each run starts counting from its start time in microseconds.
+     */
+    private boolean historyCovers(long sequence) {
+        if (this.historySize == 0) {
+            return sequence == this.lastSequence;
+        }
+        var oldest = this.history[Math.floorMod(this.historyHead - this.historySize, this.history.length)];
+        return sequence >= oldest.sequence() - 1 && sequence <= this.lastSequence;
+    }
+
+    /**
+     * Transactions after {@code afterId} in id order. Sharded rows whose seller is gone or pending deletion are
+     * skipped, so the page also reports how many rows it scanned and the last id it reached.
+     */
+    private ReplayPage findReplayPage(long afterId, int pageSize) {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            var page = this.transactionRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+            return new ReplayPage(page, page.size(), page.isEmpty() ? afterId : page.getLast().getId());
+        }
+        var shardTransactions = this.shardedTransactionStore.findAfterId(afterId, pageSize);
+        var sellerIds = shardTransactions.stream().map(ShardTransaction::sellerId).collect(Collectors.toSet());
+        var sellers = this.sellerRepository.findAllActiveByIdIn(sellerIds).stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+        var page = shardTransactions.stream()
+                .filter(transaction -> sellers.containsKey(transaction.sellerId()))
+                .map(transaction -> this.transactionMapper.toEntity(transaction, sellers.get(transaction.sellerId())))
+                .toList();
+        return new ReplayPage(page, shardTransactions.size(),
+                shardTransactions.isEmpty() ? afterId : shardTransactions.getLast().id());
+    }
+
+    private String serialize(Object value) {
+        try {
+            return this.objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record ReplayPage(List<Transaction> transactions, int scanned, long lastId) {
+    }
+
+    private record FeedEvent(long sequence, long transactionId, String json) {
+        FeedPosition position() {
+            return new FeedPosition(this.sequence, this.transactionId);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final FeedOverflowPolicy overflowPolicy;
+        private final BlockingQueue<FeedEvent> queue;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, FeedOverflowPolicy overflowPolicy) {
+            this.emitter = emitter;
+            this.overflowPolicy = overflowPolicy;
+            this.queue = new ArrayBlockingQueue<>(TransactionFeed.this.properties.bufferSize());
+        }
+
+        private void offer(FeedEvent event) {
+            if (this.closed || this.queue.offer(event)) {
+                return;
+            }
+            if (this.overflowPolicy == FeedOverflowPolicy.DROP) {
+                this.dropped.incrementAndGet();
+            } else {
+                log.warn("Disconnecting transaction feed subscriber after {} buffered events", this.queue.size());
+                this.close();
+            }
+        }
+
+        private void close() {
+            this.closed = true;
+            TransactionFeed.this.subscribers.remove(this);
+            this.queue.clear();
+            this.queue.offer(CLOSE);
+        }
+
+        private void run(FeedPosition lastEvent, Long replayBefore, List<FeedEvent> backlog) {
+            var lastSent = lastEvent;
+            try {
+                if (replayBefore != null) {
+                    lastSent = this.replayFromDatabase(lastEvent, replayBefore);
+                }
+                for (var event : backlog) {
+                    this.send(event);
+                    lastSent = event.position();
+                }
+                var heartbeatMillis = TransactionFeed.this.properties.heartbeatInterval().toMillis();
+                while (!this.closed) {
+                    var event = this.queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (event == CLOSE) {
+                        break;
+                    }
+                    long droppedCount = this.dropped.getAndSet(0);
+                    if (droppedCount > 0) {
+                        var dropped = lastSent == null
+                                ? Map.of("dropped", droppedCount)
+                                : Map.of("dropped", droppedCount, "lastEventId", lastSent.toString());
+                        this.emitter.send(SseEmitter.event()
+                                .name(DROPPED_EVENT)
+                                .data(serialize(dropped), MediaType.APPLICATION_JSON));
+                    }
+                    if (event == null) {
+                        this.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        this.send(event);
+                        lastSent = event.position();
+                    }
+                }
+                this.emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Transaction feed subscriber disconnected", e);
+                this.emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.emitter.complete();
+            } finally {
+                this.close();
+            }
+        }
+
+        /**
+         * Replayed events carry sequence {@code 0}, so a client interrupted during the replay resumes it from the
+         * database again.
+         */
+        private FeedPosition replayFromDatabase(FeedPosition lastEvent, long before) throws IOException {
+            int pageSize = TransactionFeed.this.properties.replayPageSize();
+            long after = lastEvent.transactionId();
+            var lastSent = lastEvent;
+            while (!this.closed) {
+                var page = TransactionFeed.this.findReplayPage(after, pageSize);
+                for (var transaction : page.transactions()) {
+                    if (transaction.getId() >= before) {
+                        return lastSent;
+                    }
+                    var dto = TransactionFeed.this.transactionMapper.toDto(transaction);
+                    var event = new FeedEvent(0, dto.id(), serialize(dto));
+                    this.send(event);
+                    lastSent = event.position();
+                }
+                if (page.scanned() < pageSize || page.lastId() >= before) {
+                    break;
+                }
+                after = page.lastId();
+            }
+            return lastSent;
+        }
+
+        private void send(FeedEvent event) throws IOException {
+            this.emitter.send(SseEmitter.event()
+                    .id(event.position().toString())
+                    .name(TRANSACTION_EVENT)
+                    .data(event.json(), MediaType.APPLICATION_JSON));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.cft.ingest;
+
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An accepted transaction as stored in the ingestion log; {@code endOffset} is the log position right after its record.
+ */
+record IngestedTransaction(
+        UUID trackingId,
+        long sellerId,
+        BigDecimal amount,
+        PaymentType paymentType,
+        LocalDateTime acceptedAt,
+        long endOffset
+) {
+}
@@ -0,0 +1,222 @@
+package ru.cft.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.IngestionProperties;
+import ru.cft.dto.transaction.IngestionStatusDto;
+import ru.cft.entity.Seller;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.ConnectionPath;
+import ru.cft.enums.IngestionState;
+import ru.cft.pool.ConnectionPathContext;
+import ru.cft.service.SellerService;
+import ru.cft.service.TransactionService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves accepted transactions from {@link TransactionIngestion} into the database in batches, one statement per batch.
+ * A batch that fails is retried as is until the database is back; tracking ids make the retry (and a replay after
+ * a crash) insert every transaction at most once. The ids inserted by earlier attempts of a batch are kept across
+ * its retries, so transactions inserted before a later step failed are still published once the batch completes.
+ */
+@Component
+@Slf4j
+public class TransactionIngestDrainer {
+    private static final String INSERT_SQL = """
+            INSERT INTO transaction (seller, amount, payment_type, transaction_date, tracking_id)
+            SELECT s.id, t.amount, t.payment_type, t.transaction_date, t.tracking_id
+            FROM unnest(?::uuid[], ?::bigint[], ?::numeric[], ?::varchar[], ?::timestamp[])
+                AS t(tracking_id, seller_id, amount, payment_type, transaction_date)
+            JOIN seller s ON s.id = t.seller_id AND s.deletion_requested_at IS NULL
+            ON CONFLICT (tracking_id) DO NOTHING
+            RETURNING id, tracking_id""";
+    private static final String FIND_BY_TRACKING_IDS_SQL = "SELECT id, tracking_id FROM transaction WHERE tracking_id = ANY(?::uuid[])";
+
+    private final TransactionIngestion transactionIngestion;
+    private final TransactionService transactionService;
+    private final SellerService sellerService;
+    private final IngestionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransactionIngestDrainer(TransactionIngestion transactionIngestion, TransactionService transactionService,
+                                    SellerService sellerService, IngestionProperties properties, DataSource dataSource) {
+        this.transactionIngestion = transactionIngestion;
+        this.transactionService = transactionService;
+        this.sellerService = sellerService;
+        this.properties = properties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!this.transactionIngestion.isEnabled()) {
+            return;
+        }
+        this.running = true;
+        this.worker = Thread.ofPlatform().name("transaction-ingest-drainer").daemon().start(this::drain);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (this.worker != null) {
+            this.worker.interrupt();
+            this.worker.join(this.properties.pollTimeout().toMillis() * 2);
+        }
+    }
+
+    private void drain() {
+        ConnectionPathContext.set(ConnectionPath.WRITE);
+        while (this.running) {
+            List<IngestedTransaction> batch;
+            try {
+                batch = this.transactionIngestion.poll(this.properties.batchSize(), this.properties.pollTimeout());
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            List<Transaction> inserted;
+            var insertedIds = new HashMap<UUID, Long>();
+            while (true) {
+                try {
+                    inserted = this.insert(batch, insertedIds);
+                    break;
+                } catch (IOException | RuntimeException e) {
+                    if (!this.running) {
+                        return;
+                    }
+                    log.warn("Failed to insert {} accepted transactions, retrying in {}", batch.size(), this.properties.retryDelay(), e);
+                    try {
+                        Thread.sleep(this.properties.retryDelay());
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+            try {
+                this.transactionService.publishIngested(inserted);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish {} ingested transactions", inserted.size(), e);
+            }
+        }
+    }
+
+    /**
+     * @param insertedIds ids inserted by previous attempts of this batch, extended with the ones this attempt inserts
+     */
+    private List<Transaction> insert(List<IngestedTransaction> batch, Map<UUID, Long> insertedIds) throws IOException {
+        long endOffset = batch.getLast().endOffset();
+        this.transactionIngestion.sync(endOffset);
+
+        insertedIds.putAll(this.jdbcTemplate.execute((ConnectionCallback<Map<UUID, Long>>) connection -> this.insertBatch(connection, batch)));
+        var missing = batch.stream()
+                .map(IngestedTransaction::trackingId)
+                .filter(trackingId -> !insertedIds.containsKey(trackingId))
+                .toArray(UUID[]::new);
+        var existingIds = missing.length == 0 ? Map.<UUID, Long>of() : this.findByTrackingIds(missing);
+
+        var results = new ArrayList<IngestionStatusDto>(batch.size());
+        var inserted = new ArrayList<IngestedTransaction>(insertedIds.size());
+        for (var transaction : batch) {
+            var trackingId = transaction.trackingId();
+            var id = insertedIds.get(trackingId);
+            if (id != null) {
+                inserted.add(transaction);
+            } else {
+                id = existingIds.get(trackingId);
+            }
+            var result = IngestionStatusDto.builder().trackingId(trackingId);
+            if (id != null) {
+                result.state(IngestionState.INSERTED).transactionId(id);
+            } else {
+                result.state(IngestionState.REJECTED).message(String.format("There is no seller with id %d", transaction.sellerId()));
+            }
+            results.add(result.build());
+        }
+        this.transactionIngestion.complete(results, endOffset);
+        return this.toEntities(inserted, insertedIds);
+    }
+
+    private Map<UUID, Long> insertBatch(Connection connection, List<IngestedTransaction> batch) throws SQLException {
+        int size = batch.size();
+        var trackingIds = new UUID[size];
+        var sellerIds = new Long[size];
+        var amounts = new BigDecimal[size];
+        var paymentTypes = new String[size];
+        var transactionDates = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            var transaction = batch.get(i);
+            trackingIds[i] = transaction.trackingId();
+            sellerIds[i] = transaction.sellerId();
+            amounts[i] = transaction.amount();
+            paymentTypes[i] = transaction.paymentType().name();
+            transactionDates[i] = Timestamp.valueOf(transaction.acceptedAt());
+        }
+        try (var statement = connection.prepareStatement(INSERT_SQL)) {
+            statement.setArray(1, connection.createArrayOf("uuid", trackingIds));
+            statement.setArray(2, connection.createArrayOf("bigint", sellerIds));
+            statement.setArray(3, connection.createArrayOf("numeric", amounts));
+            statement.setArray(4, connection.createArrayOf("varchar", paymentTypes));
+            statement.setArray(5, connection.createArrayOf("timestamp", transactionDates));
+            var ids = new HashMap<UUID, Long>(size * 2);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.put(resultSet.getObject("tracking_id", UUID.class), resultSet.getLong("id"));
+                }
+            }
+            return ids;
+        }
+    }
+
+    private Map<UUID, Long> findByTrackingIds(UUID[] trackingIds) {
+        var ids = new HashMap<UUID, Long>();
+        this.jdbcTemplate.query(FIND_BY_TRACKING_IDS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", trackingIds)),
+                resultSet -> {
+                    ids.put(resultSet.getObject("tracking_id", UUID.class), resultSet.getLong("id"));
+                });
+        return ids;
+    }
+
+    private List<Transaction> toEntities(List<IngestedTransaction> inserted, Map<UUID, Long> insertedIds) {
+        if (inserted.isEmpty()) {
+            return List.of();
+        }
+        var sellers = this.sellerService.findEntitiesByIds(inserted.stream().map(IngestedTransaction::sellerId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+        return inserted.stream()
+                .filter(transaction -> sellers.containsKey(transaction.sellerId()))
+                .map(transaction -> Transaction.builder()
+                        .id(insertedIds.get(transaction.trackingId()))
+                        .seller(sellers.get(transaction.sellerId()))
+                        .amount(transaction.amount())
+                        .paymentType(transaction.paymentType())
+                        .transactionDate(transaction.acceptedAt())
+                        .trackingId(transaction.trackingId())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,219 @@
+package ru.cft.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.cft.enums.PaymentType;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted transactions. Every record is framed as payload length, CRC32 and payload; a record
+ * failing either check is the torn tail of a write interrupted by a crash and is cut off when the log is opened.
+ * The checkpoint file holds the offset up to which records are known to be in the database, so only the records
+ * after it are replayed. Once everything is drained and the log has outgrown its limit, it is truncated.
+ */
+@Slf4j
+final class TransactionIngestLog implements Closeable {
+    static final String LOG_FILE = "transactions.log";
+    static final String CHECKPOINT_FILE = "transactions.checkpoint";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int MAX_PAYLOAD_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final FileChannel checkpointChannel;
+    private final long maxSize;
+    private final List<IngestedTransaction> pending;
+    private final Object syncLock = new Object();
+    private long writtenOffset;
+    private volatile long syncedOffset;
+
+    private TransactionIngestLog(FileChannel channel, FileChannel checkpointChannel, long maxSize,
+                                 List<IngestedTransaction> pending, long writtenOffset) {
+        this.channel = channel;
+        this.checkpointChannel = checkpointChannel;
+        this.maxSize = maxSize;
+        this.pending = pending;
+        this.writtenOffset = writtenOffset;
+        this.syncedOffset = writtenOffset;
+    }
+
+    static TransactionIngestLog open(Path directory, long maxSize) throws IOException {
+        Files.createDirectories(directory);
+        var channel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        var checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            long checkpoint = readCheckpoint(checkpointChannel);
+            // A checkpoint past the end means the log was truncated right before the crash: replay all of it,
+            // records that already made it to the database are skipped by their tracking id
+            long offset = checkpoint <= size ? checkpoint : 0;
+            var pending = new ArrayList<IngestedTransaction>();
+            offset = replay(channel, offset, size, pending);
+            if (offset < size) {
+                log.warn("Cutting off {} bytes of a torn record at the end of {}", size - offset, directory.resolve(LOG_FILE));
+                channel.truncate(offset);
+                channel.force(true);
+            }
+            return new TransactionIngestLog(channel, checkpointChannel, maxSize, pending, offset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            checkpointChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records written after the checkpoint, in log order, as found when the log was opened.
+     */
+    List<IngestedTransaction> pending() {
+        return this.pending;
+    }
+
+    synchronized IngestedTransaction append(UUID trackingId, long sellerId, BigDecimal amount,
+                                            PaymentType paymentType, LocalDateTime acceptedAt) throws IOException {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(trackingId.getMostSignificantBits());
+            out.writeLong(trackingId.getLeastSignificantBits());
+            out.writeLong(sellerId);
+            out.writeUTF(amount.toPlainString());
+            out.writeUTF(paymentType.name());
+            out.writeUTF(acceptedAt.toString());
+        }
+        var payload = bytes.toByteArray();
+        if (payload.length > MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Transaction is too large to be logged");
+        }
+        var record = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+        long position = this.writtenOffset;
+        while (record.hasRemaining()) {
+            position += this.channel.write(record, position);
+        }
+        this.writtenOffset = position;
+        return new IngestedTransaction(trackingId, sellerId, amount, paymentType, acceptedAt, position);
+    }
+
+    /**
+     * Makes every record up to {@code offset} durable. Concurrent callers share a single fsync: whoever gets the lock
+     * first forces everything written so far, and the others find their records already covered.
+     */
+    void sync(long offset) throws IOException {
+        if (this.syncedOffset >= offset) {
+            return;
+        }
+        synchronized (this.syncLock) {
+            if (this.syncedOffset >= offset) {
+                return;
+            }
+            long written = this.writtenOffset();
+            this.channel.force(false);
+            this.syncedOffset = written;
+        }
+    }
+
+    /**
+     * Remembers that every record up to {@code offset} is in the database.
+     */
+    void checkpoint(long offset) throws IOException {
+        synchronized (this.syncLock) {
+            synchronized (this) {
+                if (offset == this.writtenOffset && offset >= this.maxSize) {
+                    this.channel.truncate(0);
+                    this.channel.force(true);
+                    this.writtenOffset = 0;
+                    this.syncedOffset = 0;
+                    offset = 0;
+                }
+            }
+        }
+        var buffer = ByteBuffer.allocate(Long.BYTES).putLong(offset).flip();
+        while (buffer.hasRemaining()) {
+            this.checkpointChannel.write(buffer, buffer.position());
+        }
+        this.checkpointChannel.force(false);
+    }
+
+    synchronized long writtenOffset() {
+        return this.writtenOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (this.checkpointChannel) {
+            this.channel.close();
+        }
+    }
+
+    private static long readCheckpoint(FileChannel checkpointChannel) throws IOException {
+        if (checkpointChannel.size() < Long.BYTES) {
+            return 0;
+        }
+        var buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining()) {
+            if (checkpointChannel.read(buffer, buffer.position()) < 0) {
+                return 0;
+            }
+        }
+        return buffer.flip().getLong();
+    }
+
+    private static long replay(FileChannel channel, long offset, long size, List<IngestedTransaction> pending) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(offset)), 65536));
+        while (size - offset >= HEADER_SIZE) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > MAX_PAYLOAD_SIZE || size - offset - HEADER_SIZE < length) {
+                break;
+            }
+            var payload = new byte[length];
+            in.readFully(payload);
+            if (checksum(payload) != checksum) {
+                break;
+            }
+            offset += HEADER_SIZE + length;
+            pending.add(decode(payload, offset));
+        }
+        return offset;
+    }
+
+    private static IngestedTransaction decode(byte[] payload, long endOffset) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return new IngestedTransaction(
+                    new UUID(in.readLong(), in.readLong()),
+                    in.readLong(),
+                    new BigDecimal(in.readUTF()),
+                    PaymentType.valueOf(in.readUTF()),
+                    LocalDateTime.parse(in.readUTF()),
+                    endOffset);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,150 @@
+package ru.cft.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.IngestionProperties;
+import ru.cft.configuration.ShardingProperties;
+import ru.cft.dto.transaction.IngestionStatusDto;
+import ru.cft.dto.transaction.TransactionCreateDto;
+import ru.cft.enums.IngestionState;
+import ru.cft.exception.IngestionUnavailableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transactions without touching the database: each one is appended to the local log, fsynced together with
+ * whatever other requests are being accepted at the same time, and queued in a bounded buffer for
+ * {@link TransactionIngestDrainer}. When the buffer is full the transaction is refused instead of waiting. When the
+ * fsync fails the transaction is taken back out of the buffer and refused, unless the drainer has already taken it:
+ * the drainer syncs the log itself before inserting, so that transaction is accepted.
+ */
+@Component
+@Slf4j
+public class TransactionIngestion {
+    private final IngestionProperties properties;
+    private final Object appendLock = new Object();
+    private final Map<UUID, IngestionStatusDto> statuses;
+
+    private TransactionIngestLog writeAheadLog;
+    private BlockingQueue<IngestedTransaction> buffer;
+
+    public TransactionIngestion(IngestionProperties properties, ShardingProperties shardingProperties) {
+        if (properties.enabled() && shardingProperties.enabled()) {
+            throw new IllegalStateException("Asynchronous ingestion cannot be enabled together with sharding");
+        }
+        this.properties = properties;
+        this.statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, IngestionStatusDto> eldest) {
+                return this.size() > properties.statusRetention();
+            }
+        });
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        this.writeAheadLog = TransactionIngestLog.open(this.properties.directory(), this.properties.maxLogSize().toBytes());
+        var pending = this.writeAheadLog.pending();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(this.properties.bufferSize(), pending.size()));
+        for (var transaction : pending) {
+            this.statuses.put(transaction.trackingId(), accepted(transaction.trackingId()));
+            this.buffer.add(transaction);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} accepted transactions from {}", pending.size(), this.properties.directory().toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (this.writeAheadLog != null) {
+            this.writeAheadLog.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.properties.enabled();
+    }
+
+    public IngestionStatusDto accept(TransactionCreateDto transactionCreateDto) {
+        if (!this.properties.enabled()) {
+            throw new IngestionUnavailableException("Asynchronous ingestion is disabled");
+        }
+        var trackingId = UUID.randomUUID();
+        var status = accepted(trackingId);
+        IngestedTransaction transaction;
+        try {
+            synchronized (this.appendLock) {
+                if (this.buffer.remainingCapacity() == 0) {
+                    throw new IngestionUnavailableException("Ingestion backlog is full, retry later");
+                }
+                transaction = this.writeAheadLog.append(trackingId, transactionCreateDto.sellerId(),
+                        transactionCreateDto.amount(), transactionCreateDto.paymentType(), LocalDateTime.now());
+                this.statuses.put(trackingId, status);
+                this.buffer.add(transaction);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to log accepted transaction", e);
+        }
+        try {
+            this.writeAheadLog.sync(transaction.endOffset());
+        } catch (IOException e) {
+            if (this.buffer.remove(transaction)) {
+                this.statuses.remove(trackingId);
+                log.warn("Failed to sync accepted transaction {}, refusing it", trackingId, e);
+                throw new IngestionUnavailableException("Failed to log the transaction, retry later");
+            }
+            log.warn("Failed to sync accepted transaction {}, it is already being inserted", trackingId, e);
+        }
+        return status;
+    }
+
+    public Optional<IngestionStatusDto> findStatus(UUID trackingId) {
+        return Optional.ofNullable(this.statuses.get(trackingId));
+    }
+
+    List<IngestedTransaction> poll(int maxSize, Duration timeout) throws InterruptedException {
+        var first = this.buffer.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        var batch = new ArrayList<IngestedTransaction>(maxSize);
+        batch.add(first);
+        this.buffer.drainTo(batch, maxSize - 1);
+        return batch;
+    }
+
+    void sync(long offset) throws IOException {
+        this.writeAheadLog.sync(offset);
+    }
+
+    void complete(List<IngestionStatusDto> results, long offset) throws IOException {
+        results.forEach(result -> this.statuses.put(result.trackingId(), result));
+        this.writeAheadLog.checkpoint(offset);
+    }
+
+    private static IngestionStatusDto accepted(UUID trackingId) {
+        return IngestionStatusDto.builder()
+                .trackingId(trackingId)
+                .state(IngestionState.ACCEPTED)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.cft.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.cache.SellerInvalidationBus;
+import ru.cft.configuration.SellerDeletionProperties;
+import ru.cft.entity.SellerDeletion;
+import ru.cft.enums.SellerDeletionStatus;
+import ru.cft.ranking.SellerRankIndex;
+import ru.cft.repository.SellerDeletionRepository;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SellerDeletionWorker {
+    private final SellerDeletionRepository sellerDeletionRepository;
+    private final SellerRepository sellerRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SellerDeletionProperties properties;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final TransactionArchive transactionArchive;
+    private final SellerRankIndex sellerRankIndex;
+    private final SellerInvalidationBus sellerInvalidationBus;
+
+    /**
+     * Deletes at most {@code maxChunksPerRun} chunks per tick, so that a seller with millions of transactions
+     * does not hold a scheduler thread for minutes; the remaining chunks are picked up by the next ticks.
+     */
+    @Scheduled(fixedDelayString = "${crm.seller-deletion.poll-interval:PT5S}")
+    public void processPendingDeletions() {
+        int chunkBudget = this.properties.maxChunksPerRun();
+        for (var deletion : this.sellerDeletionRepository.findAllByStatus(SellerDeletionStatus.IN_PROGRESS)) {
+            if (chunkBudget <= 0) {
+                return;
+            }
+            try {
+                chunkBudget -= this.process(deletion.getSellerId(), chunkBudget);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Deletion of seller {} failed, will retry", deletion.getSellerId(), e);
+            }
+        }
+    }
+
+    private int process(Long sellerId, int chunkBudget) throws InterruptedException {
+        log.debug("Deleting transactions of seller {}", sellerId);
+        int chunks = 0;
+        ChunkResult result;
+        do {
+            result = this.transactionTemplate.execute(status -> this.deleteNextChunk(sellerId));
+            chunks++;
+            if (result == ChunkResult.DELETED && chunks < chunkBudget && !this.properties.chunkPause().isZero()) {
+                Thread.sleep(this.properties.chunkPause());
+            }
+        } while (result == ChunkResult.DELETED && chunks < chunkBudget);
+        if (result == ChunkResult.COMPLETED) {
+            this.sellerInvalidationBus.publishDeleted(sellerId);
+            this.sellerRankIndex.reload();
+        }
+        return chunks;
+    }
+
+    private ChunkResult deleteNextChunk(Long sellerId) {
+        var locked = this.sellerDeletionRepository.findInProgressForUpdateSkipLocked(sellerId);
+        if (locked.isEmpty()) {
+            return ChunkResult.SKIPPED;
+        }
+        SellerDeletion deletion = locked.get();
+        long afterId = deletion.getLastDeletedTransactionId() == null ? 0 : deletion.getLastDeletedTransactionId();
+        var upToId = this.shardedTransactionStore.isEnabled()
+                ? this.shardedTransactionStore.findChunkUpperBound(sellerId, afterId, this.properties.chunkSize())
+                : this.transactionRepository.findChunkUpperBound(sellerId, afterId, this.properties.chunkSize());
+        if (upToId == null) {
+            this.purgeArchivedTransactions(sellerId);
+            this.sellerRepository.deleteById(sellerId);
+            deletion.setStatus(SellerDeletionStatus.COMPLETED);
+            deletion.setCompletedAt(LocalDateTime.now());
+            log.info("Seller {} deleted with {} transactions", sellerId, deletion.getDeletedTransactions());
+            return ChunkResult.COMPLETED;
+        }
+        int deleted = this.shardedTransactionStore.isEnabled()
+                ? this.shardedTransactionStore.deleteBySellerIdAndIdRange(sellerId, afterId, upToId)
+                : this.transactionRepository.deleteBySellerIdAndIdRange(sellerId, afterId, upToId);
+        deletion.setDeletedTransactions(deletion.getDeletedTransactions() + deleted);
+        deletion.setLastDeletedTransactionId(upToId);
+        log.debug("Deleted {} transactions of seller {} up to id {}", deleted, sellerId, upToId);
+        return ChunkResult.DELETED;
+    }
+
+    private void purgeArchivedTransactions(Long sellerId) {
+        try {
+            this.transactionArchive.purgeSeller(sellerId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to purge archived transactions of seller " + sellerId, e);
+        }
+    }
+
+    private enum ChunkResult {
+        DELETED,
+        COMPLETED,
+        SKIPPED
+    }
+}
@@ -0,0 +1,275 @@
+package ru.cft.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.archive.TransactionSegment;
+import ru.cft.archive.TransactionSegmentBuilder;
+import ru.cft.cache.SellerInvalidationBus;
+import ru.cft.configuration.ArchiveProperties;
+import ru.cft.configuration.ShardingProperties;
+import ru.cft.enums.PaymentType;
+import ru.cft.repository.TransactionRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves closed months out of the {@code transaction} table into the {@link TransactionArchive}. Runs are serialized
+ * across instances by a Postgres advisory lock; the instance that gets it archives, the others skip the run and pick
+ * the new segments up when the income invalidation of each archived month reaches them.
+ */
+@Component
+@Slf4j
+public class TransactionArchivalJob {
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String SELECT_MONTH = "SELECT id, seller, amount, payment_type, transaction_date FROM transaction " +
+            "WHERE transaction_date >= ? AND transaction_date < ? " +
+            "ORDER BY transaction_date, id";
+    private static final String DELETE_BY_IDS = "DELETE FROM transaction WHERE id = ANY(?)";
+    private static final long ARCHIVAL_LOCK_KEY = 0x4352_4D41_5243_4856L;
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive archive;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerInvalidationBus sellerInvalidationBus;
+
+    public TransactionArchivalJob(TransactionRepository transactionRepository,
+                                  TransactionArchive archive,
+                                  TransactionTemplate transactionTemplate,
+                                  ArchiveProperties properties,
+                                  DataSource dataSource,
+                                  SellerInvalidationBus sellerInvalidationBus,
+                                  ShardingProperties shardingProperties) {
+        if (properties.enabled() && shardingProperties.enabled()) {
+            throw new IllegalStateException("Transaction archival cannot be enabled together with sharding");
+        }
+        this.transactionRepository = transactionRepository;
+        this.archive = archive;
+        this.sellerInvalidationBus = sellerInvalidationBus;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.fetchSize());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        try {
+            this.runExclusively(this::recoverStagedSegments);
+        } catch (RuntimeException e) {
+            log.error("Recovery of staged archive segments failed, will retry on next run", e);
+        }
+    }
+
+    @Scheduled(cron = "${crm.archive.cron:0 0 3 * * *}")
+    public void archiveClosedMonths() {
+        if (!this.properties.enabled()) {
+            return;
+        }
+        this.runExclusively(this::archiveLocked);
+    }
+
+    private void archiveLocked() {
+        try {
+            this.archive.refresh();
+        } catch (IOException e) {
+            log.error("Rescan of the transaction archive failed, will retry on next run", e);
+            return;
+        }
+        try {
+            this.recoverStagedSegments();
+        } catch (RuntimeException e) {
+            log.error("Recovery of staged archive segments failed, will retry on next run", e);
+            return;
+        }
+        var oldest = this.transactionRepository.findOldestTransactionDate();
+        if (oldest == null) {
+            return;
+        }
+        var firstHotMonth = YearMonth.now().minusMonths(this.properties.retentionMonths());
+        for (var month = YearMonth.from(oldest); month.isBefore(firstHotMonth); month = month.plusMonths(1)) {
+            try {
+                this.archiveMonth(month);
+            } catch (RuntimeException e) {
+                log.error("Archival of {} failed, will retry on next run", month, e);
+                return;
+            }
+        }
+    }
+
+    private void archiveMonth(YearMonth month) {
+        var start = month.atDay(1).atStartOfDay();
+        var end = month.plusMonths(1).atDay(1).atStartOfDay();
+        var alreadyArchived = this.archivedIds(start, end.minusNanos(1));
+        var archivedIds = new long[][]{new long[1024]};
+        int[] archivedCount = {0};
+        var rows = new TransactionSegmentBuilder[]{new TransactionSegmentBuilder()};
+        var staged = new ArrayList<TransactionSegment>();
+
+        this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.query(SELECT_MONTH, rs -> {
+            long id = rs.getLong("id");
+            var amount = rs.getBigDecimal("amount");
+            if (!MoneyUnits.fitsInCents(amount)) {
+                log.warn("Keeping transaction {} with amount {} in the database, segments store amounts as long cents", id, amount);
+                return;
+            }
+            if (archivedCount[0] == archivedIds[0].length) {
+                archivedIds[0] = Arrays.copyOf(archivedIds[0], archivedCount[0] * 2);
+            }
+            archivedIds[0][archivedCount[0]++] = id;
+            if (Arrays.binarySearch(alreadyArchived, id) >= 0) {
+                return;
+            }
+            rows[0].add(
+                    id,
+                    rs.getLong("seller"),
+                    amount,
+                    PaymentType.valueOf(rs.getString("payment_type")),
+                    rs.getObject("transaction_date", LocalDateTime.class)
+            );
+            if (rows[0].size() >= this.properties.segmentMaxRows()) {
+                staged.add(this.stageSegment(month, staged.size(), rows[0]));
+                rows[0] = new TransactionSegmentBuilder();
+            }
+        }, start, end));
+        if (!rows[0].isEmpty()) {
+            staged.add(this.stageSegment(month, staged.size(), rows[0]));
+        }
+        if (archivedCount[0] == 0) {
+            return;
+        }
+
+        int deleted = this.delete(archivedIds[0], archivedCount[0]);
+        staged.forEach(this::publish);
+        this.sellerInvalidationBus.publishIncomeInvalidation(month);
+        log.info("Archived {} transactions of {} into {} segments, deleted {} rows from the database",
+                archivedCount[0], month, staged.size(), deleted);
+    }
+
+    /**
+     * A staged segment is only left behind when a run stopped between writing it and publishing it, possibly after
+     * some of its rows were deleted. Finishing the deletion before publishing keeps every row in exactly one place.
+     */
+    private void recoverStagedSegments() {
+        List<TransactionSegment> staged;
+        try {
+            staged = this.archive.findStaged();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list staged archive segments", e);
+        }
+        for (var segment : staged) {
+            long[] ids;
+            try {
+                ids = segment.readIds();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read staged archive segment " + segment.getPath(), e);
+            }
+            int deleted = this.delete(ids, ids.length);
+            this.publish(segment);
+            log.info("Recovered staged archive segment {}, deleted {} remaining rows from the database",
+                    segment.getPath().getFileName(), deleted);
+        }
+        if (!staged.isEmpty()) {
+            this.sellerInvalidationBus.publishIncomeCleared();
+        }
+    }
+
+    /**
+     * Runs the action while holding the archival advisory lock, or skips it when another instance holds the lock.
+     * The lock is bound to the session, so it is taken and released on one connection kept for the whole run.
+     */
+    private void runExclusively(Runnable action) {
+        this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!advisoryLock(connection, TRY_LOCK)) {
+                log.info("Transaction archival is running on another instance, skipping");
+                return null;
+            }
+            try {
+                action.run();
+            } finally {
+                advisoryLock(connection, UNLOCK);
+            }
+            return null;
+        });
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ARCHIVAL_LOCK_KEY);
+            try (var rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private int delete(long[] ids, int count) {
+        int deleted = 0;
+        for (int from = 0; from < count; from += this.properties.deleteChunkSize()) {
+            int to = Math.min(from + this.properties.deleteChunkSize(), count);
+            deleted += this.deleteChunk(Arrays.stream(ids, from, to).boxed().toArray());
+        }
+        return deleted;
+    }
+
+    private long[] archivedIds(LocalDateTime start, LocalDateTime end) {
+        var ids = new long[0];
+        for (var segment : this.archive.findSegments(start, end)) {
+            try {
+                var segmentIds = segment.readIds();
+                var merged = Arrays.copyOf(ids, ids.length + segmentIds.length);
+                System.arraycopy(segmentIds, 0, merged, ids.length, segmentIds.length);
+                ids = merged;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private TransactionSegment stageSegment(YearMonth month, int sequence, TransactionSegmentBuilder rows) {
+        var name = "transactions-" + SEGMENT_MONTH.format(month) + "-" + System.currentTimeMillis() + "-" + sequence;
+        try {
+            return this.archive.stage(name, rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive segment " + name, e);
+        }
+    }
+
+    private void publish(TransactionSegment staged) {
+        try {
+            this.archive.publish(staged);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to publish archive segment " + staged.getPath(), e);
+        }
+    }
+
+    private int deleteChunk(Object[] ids) {
+        return this.jdbcTemplate.update(DELETE_BY_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+}
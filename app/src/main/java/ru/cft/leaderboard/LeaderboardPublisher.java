@@ -0,0 +1,228 @@
+package ru.cft.leaderboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.configuration.LeaderboardProperties;
+import ru.cft.dto.analytics.LeaderboardDto;
+import ru.cft.dto.analytics.LeaderboardEntryDto;
+import ru.cft.entity.Seller;
+import ru.cft.entity.Transaction;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardTransaction;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feeds created transactions into the {@link SellerLeaderboard} and pushes its top sellers to SSE subscribers.
+ * Updates are conflated: the payload is serialized once per change and every subscriber only receives
+ * the latest one, so a slow connection never queues more than a single pending message.
+ */
+@Component
+@Slf4j
+public class LeaderboardPublisher {
+    private static final String EVENT_NAME = "leaderboard";
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final SellerRepository sellerRepository;
+    private final ObjectMapper objectMapper;
+    private final LeaderboardProperties properties;
+    private final SellerLeaderboard leaderboard;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<Payload> latest = new AtomicReference<>();
+
+    public LeaderboardPublisher(TransactionRepository transactionRepository,
+                                ShardedTransactionStore shardedTransactionStore,
+                                SellerRepository sellerRepository,
+                                ObjectMapper objectMapper,
+                                LeaderboardProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.shardedTransactionStore = shardedTransactionStore;
+        this.sellerRepository = sellerRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.leaderboard = new SellerLeaderboard(properties.windowMinutes(), properties.topSize());
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        var since = LocalDateTime.now().minusMinutes(this.properties.windowMinutes());
+        if (this.shardedTransactionStore.isEnabled()) {
+            var transactions = this.shardedTransactionStore.findSince(since);
+            var sellers = this.findActiveSellers(transactions.stream().map(ShardTransaction::sellerId).distinct().toList());
+            for (var transaction : transactions) {
+                var seller = sellers.get(transaction.sellerId());
+                if (seller != null) {
+                    this.record(seller, transaction.amount(), transaction.transactionDate());
+                }
+            }
+            log.info("Leaderboard warmed up with {} transactions since {} from the shards", transactions.size(), since);
+            return;
+        }
+        var transactions = this.transactionRepository.findAllWithSellerSince(since);
+        transactions.forEach(this::record);
+        log.info("Leaderboard warmed up with {} transactions since {}", transactions.size(), since);
+    }
+
+    public void record(Transaction transaction) {
+        this.record(transaction.getSeller(), transaction.getAmount(), transaction.getTransactionDate());
+    }
+
+    public SseEmitter subscribe() {
+        var emitter = new SseEmitter(this.properties.emitterTimeout().toMillis());
+        var subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+        emitter.onError(e -> this.subscribers.remove(subscriber));
+        this.subscribers.add(subscriber);
+        var payload = this.latest.get();
+        subscriber.offer(payload != null ? payload : this.render());
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${crm.leaderboard.publish-interval:PT1S}")
+    public void publish() {
+        this.leaderboard.advanceTo(epochMinute(LocalDateTime.now()));
+        var previous = this.latest.get();
+        var snapshot = this.leaderboard.snapshot();
+        if (previous != null && previous.version() == snapshot.version()) {
+            return;
+        }
+        var payload = this.render(snapshot);
+        this.latest.set(payload);
+        this.subscribers.forEach(subscriber -> subscriber.offer(payload));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        this.senders.shutdown();
+    }
+
+    /**
+     * Amounts beyond {@code long} cents, stored before amounts were bounded, are left out of the leaderboard rather
+     * than failing the warm-up or a request whose transaction is already committed.
+     */
+    private void record(Seller seller, BigDecimal amount, LocalDateTime transactionDate) {
+        long cents;
+        try {
+            cents = MoneyUnits.toCents(amount);
+        } catch (ArithmeticException e) {
+            log.warn("Transaction of seller {} with amount {} is too large for the leaderboard", seller.getId(), amount);
+            return;
+        }
+        this.leaderboard.record(seller.getId(), seller.getName(), cents, epochMinute(transactionDate));
+    }
+
+    private Map<Long, Seller> findActiveSellers(List<Long> sellerIds) {
+        var sellers = new HashMap<Long, Seller>();
+        for (int from = 0; from < sellerIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            var chunk = sellerIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, sellerIds.size()));
+            this.sellerRepository.findAllActiveByIdIn(chunk).forEach(seller -> sellers.put(seller.getId(), seller));
+        }
+        return sellers;
+    }
+
+    private Payload render() {
+        this.leaderboard.advanceTo(epochMinute(LocalDateTime.now()));
+        return this.render(this.leaderboard.snapshot());
+    }
+
+    private Payload render(SellerLeaderboard.Snapshot snapshot) {
+        var sellers = new ArrayList<LeaderboardEntryDto>(snapshot.entries().size());
+        for (var entry : snapshot.entries()) {
+            sellers.add(LeaderboardEntryDto.builder()
+                    .rank(sellers.size() + 1)
+                    .sellerId(entry.sellerId())
+                    .sellerName(entry.sellerName())
+                    .income(MoneyUnits.fromCents(entry.cents()))
+                    .build());
+        }
+        var windowEnd = fromEpochMinute(snapshot.epochMinute() + 1);
+        var leaderboardDto = LeaderboardDto.builder()
+                .windowStart(windowEnd.minusMinutes(this.properties.windowMinutes()))
+                .windowEnd(windowEnd)
+                .sellers(sellers)
+                .build();
+        try {
+            return new Payload(snapshot.version(), this.objectMapper.writeValueAsString(leaderboardDto));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long epochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private record Payload(long version, String json) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicReference<Payload> pending = new AtomicReference<>();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Payload payload) {
+            this.pending.set(payload);
+            if (this.sending.compareAndSet(false, true)) {
+                LeaderboardPublisher.this.senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Payload payload;
+                while ((payload = this.pending.getAndSet(null)) != null) {
+                    this.emitter.send(SseEmitter.event()
+                            .name(EVENT_NAME)
+                            .id(Long.toString(payload.version()))
+                            .data(payload.json(), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                LeaderboardPublisher.this.subscribers.remove(this);
+                this.emitter.completeWithError(e);
+                return;
+            } finally {
+                this.sending.set(false);
+            }
+            if (this.pending.get() != null && this.sending.compareAndSet(false, true)) {
+                LeaderboardPublisher.this.senders.execute(this::drain);
+            }
+        }
+    }
+}
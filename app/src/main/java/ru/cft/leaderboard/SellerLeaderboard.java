@@ -0,0 +1,143 @@
+package ru.cft.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Sliding window of per-minute, per-seller income buckets with an incrementally maintained top-K.
+ * Recording a transaction touches one bucket and at most two top-K entries, so it costs O(log K);
+ * the top-K is rebuilt from the window totals only when a minute expires.
+ */
+public class SellerLeaderboard {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::cents).reversed()
+            .thenComparingLong(Entry::sellerId);
+
+    private final int windowMinutes;
+    private final int topK;
+    private final long[] bucketMinutes;
+    private final List<Map<Long, long[]>> buckets;
+    private final Map<Long, Standing> totals = new HashMap<>();
+    private final TreeSet<Entry> top = new TreeSet<>(RANKING);
+    private long currentMinute = EMPTY;
+    private long version;
+
+    public SellerLeaderboard(int windowMinutes, int topK) {
+        if (windowMinutes < 1 || topK < 1) {
+            throw new IllegalArgumentException("Window and top size must be positive");
+        }
+        this.windowMinutes = windowMinutes;
+        this.topK = topK;
+        this.bucketMinutes = new long[windowMinutes];
+        Arrays.fill(this.bucketMinutes, EMPTY);
+        this.buckets = new ArrayList<>(windowMinutes);
+        for (int i = 0; i < windowMinutes; i++) {
+            this.buckets.add(new HashMap<>());
+        }
+    }
+
+    public synchronized void record(long sellerId, String sellerName, long cents, long epochMinute) {
+        this.advanceTo(epochMinute);
+        int slot = Math.floorMod(epochMinute, this.windowMinutes);
+        if (this.bucketMinutes[slot] != epochMinute) {
+            return;
+        }
+        this.buckets.get(slot).computeIfAbsent(sellerId, id -> new long[1])[0] += cents;
+        var standing = this.totals.computeIfAbsent(sellerId, id -> new Standing());
+        long previous = standing.cents;
+        standing.cents += cents;
+        standing.name = sellerName;
+        this.promote(sellerId, previous, standing.cents);
+    }
+
+    public synchronized void advanceTo(long epochMinute) {
+        if (epochMinute <= this.currentMinute) {
+            return;
+        }
+        long oldestLive = epochMinute - this.windowMinutes + 1;
+        boolean expired = false;
+        for (int slot = 0; slot < this.windowMinutes; slot++) {
+            if (this.bucketMinutes[slot] != EMPTY && this.bucketMinutes[slot] < oldestLive) {
+                this.expire(slot);
+                expired = true;
+            }
+        }
+        long first = this.currentMinute == EMPTY ? oldestLive : Math.max(this.currentMinute + 1, oldestLive);
+        for (long minute = first; minute <= epochMinute; minute++) {
+            this.bucketMinutes[Math.floorMod(minute, this.windowMinutes)] = minute;
+        }
+        this.currentMinute = epochMinute;
+        if (expired) {
+            this.rebuildTop();
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        var entries = new ArrayList<Ranked>(this.top.size());
+        for (var entry : this.top) {
+            entries.add(new Ranked(entry.sellerId(), this.totals.get(entry.sellerId()).name, entry.cents()));
+        }
+        return new Snapshot(this.version, this.currentMinute, entries);
+    }
+
+    private void promote(long sellerId, long previousCents, long cents) {
+        var updated = new Entry(sellerId, cents);
+        if (this.top.remove(new Entry(sellerId, previousCents))) {
+            this.top.add(updated);
+            this.version++;
+        } else if (this.top.size() < this.topK) {
+            this.top.add(updated);
+            this.version++;
+        } else if (RANKING.compare(updated, this.top.last()) < 0) {
+            this.top.pollLast();
+            this.top.add(updated);
+            this.version++;
+        }
+    }
+
+    private void expire(int slot) {
+        var bucket = this.buckets.get(slot);
+        bucket.forEach((sellerId, cents) -> {
+            var standing = this.totals.get(sellerId);
+            if (standing == null) {
+                return;
+            }
+            standing.cents -= cents[0];
+            if (standing.cents <= 0) {
+                this.totals.remove(sellerId);
+            }
+        });
+        bucket.clear();
+        this.bucketMinutes[slot] = EMPTY;
+    }
+
+    private void rebuildTop() {
+        this.top.clear();
+        this.totals.forEach((sellerId, standing) -> {
+            this.top.add(new Entry(sellerId, standing.cents));
+            if (this.top.size() > this.topK) {
+                this.top.pollLast();
+            }
+        });
+        this.version++;
+    }
+
+    private record Entry(long sellerId, long cents) {
+    }
+
+    private static final class Standing {
+        private long cents;
+        private String name;
+    }
+
+    public record Ranked(long sellerId, String sellerName, long cents) {
+    }
+
+    public record Snapshot(long version, long epochMinute, List<Ranked> entries) {
+    }
+}
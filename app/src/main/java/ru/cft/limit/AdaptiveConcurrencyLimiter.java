@@ -0,0 +1,120 @@
+package ru.cft.limit;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient-style concurrency limit: the limit shrinks when observed latency rises above the long-term
+ * baseline, halves on failed requests and grows by roughly {@code sqrt(limit)} while latency stays close to it.
+ * All state is kept in atomics so that acquiring a permit never blocks.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DRIFT_RATIO = 2.0;
+    private static final double DRIFT_DECAY = 0.95;
+
+    @Getter
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong longRttBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double rttTolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits for " + name
+                    + ": initial=" + initialLimit + ", min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        int limit = this.getLimit();
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= limit) {
+                this.rejected.increment();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBeforeRelease = this.inFlight.getAndDecrement();
+        this.onSample(rttNanos, inFlightBeforeRelease, dropped);
+    }
+
+    public void releaseWithoutSample() {
+        this.inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(this.limitBits.get());
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    private void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double shortRtt = rttNanos;
+        double longRtt = this.updateLongRtt(shortRtt);
+
+        this.limitBits.updateAndGet(bits -> {
+            double limit = Double.longBitsToDouble(bits);
+            if (!dropped && inFlight < limit / 2) {
+                return bits;
+            }
+            double newLimit;
+            if (dropped) {
+                newLimit = limit * MIN_GRADIENT;
+            } else {
+                double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, this.rttTolerance * longRtt / shortRtt));
+                newLimit = limit * gradient + Math.sqrt(limit);
+            }
+            newLimit = limit * (1 - this.smoothing) + newLimit * this.smoothing;
+            newLimit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+            return Double.doubleToRawLongBits(newLimit);
+        });
+    }
+
+    private double updateLongRtt(double shortRtt) {
+        long bits = this.longRttBits.updateAndGet(current -> {
+            double longRtt = Double.longBitsToDouble(current);
+            if (longRtt == 0) {
+                return Double.doubleToRawLongBits(shortRtt);
+            }
+            longRtt += (shortRtt - longRtt) / LONG_WINDOW;
+            if (longRtt / shortRtt > DRIFT_RATIO) {
+                longRtt *= DRIFT_DECAY;
+            }
+            return Double.doubleToRawLongBits(longRtt);
+        });
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.cft.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.cft.dto.ErrorDetailsDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Map<Class<?>, AdaptiveConcurrencyLimiter> limiters;
+    private final HttpStatus rejectionStatus;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        var limiter = this.limiters.get(handlerMethod.getBeanType());
+        if (limiter == null) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            log.debug("Rejected request to {}: limiter={}, limit={}", request.getRequestURI(), limiter.getName(), limiter.getLimit());
+            this.reject(request, response);
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.limiter().releaseWithoutSample();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            boolean dropped = ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            permit.limiter().release(System.nanoTime() - permit.startNanos(), dropped);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var errorDto = new ErrorDetailsDto(LocalDateTime.now(), "Too many concurrent requests, retry later",
+                "uri=" + request.getRequestURI(), this.rejectionStatus.value());
+        response.setStatus(this.rejectionStatus.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.objectMapper.writeValue(response.getOutputStream(), errorDto);
+    }
+
+    private record Permit(AdaptiveConcurrencyLimiter limiter, long startNanos) {
+    }
+}
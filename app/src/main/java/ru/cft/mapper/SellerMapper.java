@@ -2,10 +2,10 @@ package ru.cft.mapper;
 
 import org.mapstruct.*;
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
-import ru.cft.dto.seller.SellerPatchDto;
-import ru.cft.dto.seller.SellerUpdateDto;
 import ru.cft.entity.Seller;
+import ru.cft.entity.SellerDeletion;
 
 @Mapper(componentModel = "spring")
 public interface SellerMapper {
@@ -13,16 +13,11 @@ public interface SellerMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "registrationDate", ignore = true)
+    @Mapping(target = "deletionRequestedAt", ignore = true)
     Seller toEntityWithoutEnrichment(SellerCreateDto sellerCreateDto);
 
-    @Mapping(target = "id", ignore = true)
-    @Mapping(target = "registrationDate", ignore = true)
-    void updateEntity(SellerUpdateDto sellerUpdateDto, @MappingTarget Seller seller);
-
-    @Mapping(target = "id", ignore = true)
-    @Mapping(target = "registrationDate", ignore = true)
-    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
-    void patchEntity(SellerPatchDto sellerPatchDto, @MappingTarget Seller seller);
-
+    @Mapping(target = "deletionRequestedAt", ignore = true)
     Seller toEntity(ru.cft.dto.seller.SellerDto sellerDto);
+
+    SellerDeletionDto toDeletionDto(SellerDeletion sellerDeletion);
 }
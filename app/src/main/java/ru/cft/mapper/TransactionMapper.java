@@ -2,18 +2,32 @@ package ru.cft.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.cft.archive.ArchivedTransaction;
 import ru.cft.dto.transaction.TransactionDto;
 import ru.cft.dto.transaction.TransactionCreateDto;
+import ru.cft.entity.Seller;
 import ru.cft.entity.Transaction;
+import ru.cft.sharding.ShardTransaction;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = SellerMapper.class)
 public interface TransactionMapper {
+    @Mapping(target = "anomalyScore", ignore = true)
     TransactionDto toDto(Transaction transaction);
 
+    @Mapping(target = "id", source = "transaction.id")
+    @Mapping(target = "anomalyScore", ignore = true)
+    TransactionDto toDto(ArchivedTransaction transaction, Seller seller);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "seller", ignore = true)
     @Mapping(target = "transactionDate", ignore = true)
+    @Mapping(target = "trackingId", ignore = true)
     Transaction toEntityWithoutEnrichment(TransactionCreateDto transactionCreateDto);
 
+    @Mapping(target = "trackingId", ignore = true)
     Transaction toEntity(TransactionDto transactionDto);
+
+    @Mapping(target = "id", source = "transaction.id")
+    @Mapping(target = "trackingId", ignore = true)
+    Transaction toEntity(ShardTransaction transaction, Seller seller);
 }
@@ -0,0 +1,27 @@
+package ru.cft.pool;
+
+import ru.cft.enums.ConnectionPath;
+
+/**
+ * Path that connections borrowed on the current thread are accounted to. Threads that never set one,
+ * such as schedulers and listeners, count as {@link ConnectionPath#BACKGROUND}.
+ */
+public final class ConnectionPathContext {
+    private static final ThreadLocal<ConnectionPath> CURRENT = new ThreadLocal<>();
+
+    private ConnectionPathContext() {
+    }
+
+    public static ConnectionPath current() {
+        var path = CURRENT.get();
+        return path != null ? path : ConnectionPath.BACKGROUND;
+    }
+
+    public static void set(ConnectionPath path) {
+        CURRENT.set(path);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
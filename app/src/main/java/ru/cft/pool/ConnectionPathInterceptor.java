@@ -0,0 +1,38 @@
+package ru.cft.pool;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.cft.api.AnalyticsController;
+import ru.cft.enums.ConnectionPath;
+
+public class ConnectionPathInterceptor implements AsyncHandlerInterceptor {
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ConnectionPathContext.set(classify(request, handler));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ConnectionPathContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ConnectionPathContext.clear();
+    }
+
+    private static ConnectionPath classify(HttpServletRequest request, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && handlerMethod.getBeanType() == AnalyticsController.class) {
+            return ConnectionPath.ANALYTICS;
+        }
+        var method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return ConnectionPath.READ;
+        }
+        return ConnectionPath.WRITE;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.cft.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.cft.enums.ConnectionPath;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection acquire time, usage time and acquire timeouts of the primary pool, split by {@link ConnectionPath}.
+ * Everything is published as {@code crm.db.connection.*} meters tagged with the path, and also kept as plain
+ * cumulative counters that {@link ConnectionPoolSizer} takes deltas of.
+ */
+@Component
+public class ConnectionPoolAccounting {
+    private final Map<ConnectionPath, PathMeters> meters = new EnumMap<>(ConnectionPath.class);
+
+    public ConnectionPoolAccounting(MeterRegistry meterRegistry) {
+        for (var path : ConnectionPath.values()) {
+            var tag = path.name().toLowerCase(Locale.ROOT);
+            this.meters.put(path, new PathMeters(
+                    Timer.builder("crm.db.connection.acquire")
+                            .description("Time spent waiting for a connection from the pool")
+                            .tag("path", tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    Timer.builder("crm.db.connection.usage")
+                            .description("Time a connection was held before being returned to the pool")
+                            .tag("path", tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    Counter.builder("crm.db.connection.timeout")
+                            .description("Connection requests that timed out waiting for the pool")
+                            .tag("path", tag)
+                            .register(meterRegistry)));
+        }
+    }
+
+    public void recordAcquire(ConnectionPath path, long nanos) {
+        var pathMeters = this.meters.get(path);
+        pathMeters.acquireTimer().record(nanos, TimeUnit.NANOSECONDS);
+        pathMeters.acquires().increment();
+        pathMeters.acquireNanos().add(nanos);
+    }
+
+    public void recordUsage(ConnectionPath path, long nanos) {
+        var pathMeters = this.meters.get(path);
+        pathMeters.usageTimer().record(nanos, TimeUnit.NANOSECONDS);
+        pathMeters.usages().increment();
+        pathMeters.usageNanos().add(nanos);
+    }
+
+    public void recordTimeout(ConnectionPath path) {
+        var pathMeters = this.meters.get(path);
+        pathMeters.timeoutCounter().increment();
+        pathMeters.timeouts().increment();
+    }
+
+    public Totals totals(ConnectionPath path) {
+        var pathMeters = this.meters.get(path);
+        return new Totals(pathMeters.acquires().sum(), pathMeters.acquireNanos().sum(),
+                pathMeters.usages().sum(), pathMeters.usageNanos().sum(), pathMeters.timeouts().sum());
+    }
+
+    public record Totals(long acquires, long acquireNanos, long usages, long usageNanos, long timeouts) {
+        public Totals minus(Totals other) {
+            return new Totals(this.acquires - other.acquires, this.acquireNanos - other.acquireNanos,
+                    this.usages - other.usages, this.usageNanos - other.usageNanos, this.timeouts - other.timeouts);
+        }
+
+        public Totals plus(Totals other) {
+            return new Totals(this.acquires + other.acquires, this.acquireNanos + other.acquireNanos,
+                    this.usages + other.usages, this.usageNanos + other.usageNanos, this.timeouts + other.timeouts);
+        }
+
+        public long meanAcquireNanos() {
+            return this.acquires == 0 ? 0 : this.acquireNanos / this.acquires;
+        }
+
+        public long meanUsageNanos() {
+            return this.usages == 0 ? 0 : this.usageNanos / this.usages;
+        }
+    }
+
+    private record PathMeters(Timer acquireTimer, Timer usageTimer, Counter timeoutCounter,
+                              LongAdder acquires, LongAdder acquireNanos,
+                              LongAdder usages, LongAdder usageNanos, LongAdder timeouts) {
+        PathMeters(Timer acquireTimer, Timer usageTimer, Counter timeoutCounter) {
+            this(acquireTimer, usageTimer, timeoutCounter, new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.cft.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.ConnectionPoolProperties;
+import ru.cft.enums.ConnectionPath;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class ConnectionPoolSizer {
+    private final ConnectionPoolProperties properties;
+    private final ConnectionPoolAccounting accounting;
+    private final DataSource dataSource;
+    private final Map<ConnectionPath, ConnectionPoolAccounting.Totals> previous = new EnumMap<>(ConnectionPath.class);
+
+    private HikariDataSource pool;
+    private PoolSizePolicy policy;
+
+    public ConnectionPoolSizer(ConnectionPoolProperties properties, ConnectionPoolAccounting accounting, DataSource dataSource) {
+        this.properties = properties;
+        this.accounting = accounting;
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void init() throws SQLException {
+        var sizing = this.properties.sizing();
+        if (!sizing.enabled()) {
+            return;
+        }
+        if (!this.properties.accountingEnabled() || !this.dataSource.isWrapperFor(HikariDataSource.class)) {
+            log.warn("Adaptive pool sizing needs connection accounting and a Hikari pool, leaving the pool size as configured");
+            return;
+        }
+        this.pool = this.dataSource.unwrap(HikariDataSource.class);
+        this.policy = new PoolSizePolicy(sizing.minSize(), sizing.maxSize(), sizing.step(),
+                sizing.targetWait().toNanos(), sizing.latencyTolerance());
+        for (var path : ConnectionPath.values()) {
+            this.previous.put(path, this.accounting.totals(path));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${crm.connection-pool.sizing.interval:PT10S}")
+    public void resize() {
+        if (this.policy == null) {
+            return;
+        }
+        long worstWaitNanos = 0;
+        var interval = new ConnectionPoolAccounting.Totals(0, 0, 0, 0, 0);
+        for (var path : ConnectionPath.values()) {
+            var totals = this.accounting.totals(path);
+            var delta = totals.minus(this.previous.put(path, totals));
+            worstWaitNanos = Math.max(worstWaitNanos, delta.meanAcquireNanos());
+            interval = interval.plus(delta);
+        }
+
+        var config = this.pool.getHikariConfigMXBean();
+        var poolState = this.pool.getHikariPoolMXBean();
+        if (poolState == null) {
+            return;
+        }
+        int currentSize = config.getMaximumPoolSize();
+        int nextSize = this.policy.next(currentSize, worstWaitNanos, interval.meanUsageNanos(), interval.timeouts(),
+                poolState.getActiveConnections());
+        if (nextSize == currentSize) {
+            return;
+        }
+        if (config.getMinimumIdle() > nextSize) {
+            config.setMinimumIdle(nextSize);
+        }
+        config.setMaximumPoolSize(nextSize);
+        log.info("Resized connection pool from {} to {}: worst mean wait {} us, mean usage {} us, {} timeouts, {} active, {} waiting",
+                currentSize, nextSize, worstWaitNanos / 1000, interval.meanUsageNanos() / 1000, interval.timeouts(),
+                poolState.getActiveConnections(), poolState.getThreadsAwaitingConnection());
+    }
+}
@@ -0,0 +1,160 @@
+package ru.cft.pool;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.cft.enums.ConnectionPath;
+import ru.cft.sql.StatementStatistics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Times how long each borrow waits for the pool and how long the connection is held until {@code close()},
+ * and reports both to {@link ConnectionPoolAccounting} under the path of the borrowing thread. Statements created
+ * on the connection report every execution to the {@link StatementStatistics} of the thread. Without an accounting
+ * supplier only the statements are counted, which is how pools outside the accounted primary pool are wrapped.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+    private final Supplier<ConnectionPoolAccounting> accountingSupplier;
+    private volatile ConnectionPoolAccounting accounting;
+
+    public InstrumentedDataSource(DataSource targetDataSource, Supplier<ConnectionPoolAccounting> accounting) {
+        super(targetDataSource);
+        this.accountingSupplier = accounting;
+    }
+
+    public InstrumentedDataSource(DataSource targetDataSource) {
+        this(targetDataSource, null);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.track(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.track(() -> super.getConnection(username, password));
+    }
+
+    private Connection track(ConnectionSource source) throws SQLException {
+        var path = ConnectionPathContext.current();
+        var accounting = this.accountingSupplier != null ? this.accounting() : null;
+        long startNanos = System.nanoTime();
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLTransientConnectionException e) {
+            if (accounting != null) {
+                accounting.recordTimeout(path);
+            }
+            throw e;
+        }
+        long acquiredNanos = System.nanoTime();
+        if (accounting != null) {
+            accounting.recordAcquire(path, acquiredNanos - startNanos);
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new UsageTracker(connection, accounting, path, acquiredNanos));
+    }
+
+    private ConnectionPoolAccounting accounting() {
+        var accounting = this.accounting;
+        if (accounting == null) {
+            accounting = this.accountingSupplier.get();
+            this.accounting = accounting;
+        }
+        return accounting;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private static final class UsageTracker implements InvocationHandler {
+        private final Connection target;
+        private final ConnectionPoolAccounting accounting;
+        private final ConnectionPath path;
+        private final long acquiredNanos;
+        private boolean closed;
+
+        private UsageTracker(Connection target, ConnectionPoolAccounting accounting, ConnectionPath path, long acquiredNanos) {
+            this.target = target;
+            this.accounting = accounting;
+            this.path = path;
+            this.acquiredNanos = acquiredNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "close" -> {
+                    if (!this.closed) {
+                        this.closed = true;
+                        if (this.accounting != null) {
+                            this.accounting.recordUsage(this.path, System.nanoTime() - this.acquiredNanos);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+            var result = invokeTarget(this.target, method, args);
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                        new ExecutionTimer(statement));
+            }
+            return result;
+        }
+    }
+
+    private static final class ExecutionTimer implements InvocationHandler {
+        private final Statement target;
+
+        private ExecutionTimer(Statement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(this.target, method, args);
+            }
+            long startNanos = System.nanoTime();
+            try {
+                return invokeTarget(this.target, method, args);
+            } finally {
+                StatementStatistics.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.cft.pool;
+
+/**
+ * Decides the next maximum pool size from one interval of pool statistics. Connection usage time is compared to
+ * its long-term baseline: when it climbs above the tolerance the database itself is slowing down and the pool
+ * shrinks, since more connections would only add load. Otherwise the pool grows while some path waits longer than
+ * the target for a connection, and gives connections back one at a time while less than half of them are in use.
+ */
+public class PoolSizePolicy {
+    private static final double LONG_WINDOW = 30;
+    private static final double DRIFT_RATIO = 2.0;
+    private static final double DRIFT_DECAY = 0.9;
+
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final long targetWaitNanos;
+    private final double latencyTolerance;
+
+    private double baselineUsageNanos;
+
+    public PoolSizePolicy(int minSize, int maxSize, int step, long targetWaitNanos, double latencyTolerance) {
+        if (minSize < 1 || maxSize < minSize || step < 1) {
+            throw new IllegalArgumentException("Invalid pool sizing bounds: min=" + minSize + ", max=" + maxSize + ", step=" + step);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.targetWaitNanos = targetWaitNanos;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * @param worstWaitNanos mean acquire wait of the path that waited the longest
+     * @param meanUsageNanos mean time a connection was held, over all paths; zero if nothing was borrowed
+     */
+    public int next(int currentSize, long worstWaitNanos, long meanUsageNanos, long timeouts, int activeConnections) {
+        if (meanUsageNanos <= 0 && timeouts == 0) {
+            return this.clamp(currentSize);
+        }
+        double baseline = this.updateBaseline(meanUsageNanos);
+        if (meanUsageNanos > baseline * this.latencyTolerance) {
+            return this.clamp(currentSize - this.step);
+        }
+        if (timeouts > 0 || worstWaitNanos > this.targetWaitNanos) {
+            return this.clamp(currentSize + this.step);
+        }
+        if (activeConnections < currentSize / 2) {
+            return this.clamp(currentSize - 1);
+        }
+        return this.clamp(currentSize);
+    }
+
+    private double updateBaseline(long meanUsageNanos) {
+        if (meanUsageNanos <= 0) {
+            return this.baselineUsageNanos;
+        }
+        if (this.baselineUsageNanos == 0) {
+            this.baselineUsageNanos = meanUsageNanos;
+            return this.baselineUsageNanos;
+        }
+        this.baselineUsageNanos += (meanUsageNanos - this.baselineUsageNanos) / LONG_WINDOW;
+        if (this.baselineUsageNanos / meanUsageNanos > DRIFT_RATIO) {
+            this.baselineUsageNanos *= DRIFT_DECAY;
+        }
+        return this.baselineUsageNanos;
+    }
+
+    private int clamp(int size) {
+        return Math.max(this.minSize, Math.min(this.maxSize, size));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.cft.projection;
+
+import ru.cft.archive.ArchivedTransaction;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.transaction.TransactionRowDto;
+import ru.cft.enums.PaymentType;
+import ru.cft.enums.TransactionField;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ru.cft.enums.TransactionField.*;
+
+/**
+ * The fields a transaction list request asked for, and whether sellers are returned once next to the rows
+ * ({@code include=seller}) instead of inside every row. Rows that need a seller are read with the seller id only.
+ */
+public record TransactionProjection(Set<TransactionField> fields, boolean includeSellers) {
+    public static final Set<TransactionField> DEFAULT_FIELDS =
+            Collections.unmodifiableSet(EnumSet.of(ID, SELLER, AMOUNT, PAYMENT_TYPE, TRANSACTION_DATE));
+
+    public TransactionProjection {
+        fields = Collections.unmodifiableSet(EnumSet.copyOf(fields));
+    }
+
+    public boolean needsSellers() {
+        return this.includeSellers || this.fields.contains(SELLER);
+    }
+
+    /**
+     * Distinct columns to select, so {@code seller} and {@code sellerId} share one.
+     */
+    public List<String> columns() {
+        var columns = new LinkedHashSet<String>();
+        this.fields.forEach(field -> columns.add(field.column()));
+        if (this.includeSellers) {
+            columns.add(SELLER_ID.column());
+        }
+        return List.copyOf(columns);
+    }
+
+    public TransactionRowDto map(ResultSet rs) throws SQLException {
+        var row = TransactionRowDto.builder();
+        if (this.fields.contains(ID)) {
+            row.id(rs.getLong(ID.column()));
+        }
+        if (this.readsSellerId()) {
+            row.sellerId(rs.getLong(SELLER_ID.column()));
+        }
+        if (this.fields.contains(AMOUNT)) {
+            row.amount(rs.getBigDecimal(AMOUNT.column()));
+        }
+        if (this.fields.contains(PAYMENT_TYPE)) {
+            row.paymentType(PaymentType.valueOf(rs.getString(PAYMENT_TYPE.column())));
+        }
+        if (this.fields.contains(TRANSACTION_DATE)) {
+            row.transactionDate(rs.getObject(TRANSACTION_DATE.column(), LocalDateTime.class));
+        }
+        return row.build();
+    }
+
+    public TransactionRowDto project(ArchivedTransaction transaction) {
+        var row = TransactionRowDto.builder();
+        if (this.fields.contains(ID)) {
+            row.id(transaction.id());
+        }
+        if (this.readsSellerId()) {
+            row.sellerId(transaction.sellerId());
+        }
+        if (this.fields.contains(AMOUNT)) {
+            row.amount(transaction.amount());
+        }
+        if (this.fields.contains(PAYMENT_TYPE)) {
+            row.paymentType(transaction.paymentType());
+        }
+        if (this.fields.contains(TRANSACTION_DATE)) {
+            row.transactionDate(transaction.transactionDate());
+        }
+        return row.build();
+    }
+
+    /**
+     * Embeds the seller of a row read with its seller id, unless sellers are included separately, and drops
+     * the id when it was not asked for.
+     */
+    public TransactionRowDto withSeller(TransactionRowDto row, SellerDto seller) {
+        if (this.includeSellers) {
+            return row;
+        }
+        var projected = row.toBuilder();
+        if (this.fields.contains(SELLER)) {
+            projected.seller(seller);
+        }
+        if (!this.fields.contains(SELLER_ID)) {
+            projected.sellerId(null);
+        }
+        return projected.build();
+    }
+
+    private boolean readsSellerId() {
+        return this.needsSellers() || this.fields.contains(SELLER_ID);
+    }
+}
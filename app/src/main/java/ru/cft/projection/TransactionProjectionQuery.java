@@ -0,0 +1,62 @@
+package ru.cft.projection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.cft.dto.transaction.TransactionRowDto;
+import ru.cft.sharding.TransactionShards;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads hot transactions with only the columns of a {@link TransactionProjection}. Column names come from
+ * {@link ru.cft.enums.TransactionField}, never from the request. Sellers are not joined; callers resolve them by id.
+ * Transactions of sellers pending deletion are filtered in SQL whatever the projection: with a sub-select on a
+ * single database, and with the pending ids bound as an array on shards, which have no seller table.
+ */
+@Component
+public class TransactionProjectionQuery {
+    private static final String ACTIVE_SELLERS = " WHERE seller NOT IN (SELECT id FROM seller WHERE deletion_requested_at IS NOT NULL)";
+    private static final String NOT_PENDING_DELETION = " WHERE NOT (seller = ANY(?))";
+    private static final String SELECT_PENDING_DELETION = "SELECT id FROM seller WHERE deletion_requested_at IS NOT NULL";
+
+    private final TransactionShards shards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionProjectionQuery(TransactionShards shards, DataSource dataSource) {
+        this.shards = shards;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public List<TransactionRowDto> findAll(TransactionProjection projection) {
+        RowMapper<TransactionRowDto> rowMapper = (rs, rowNum) -> projection.map(rs);
+        if (!this.shards.isEnabled()) {
+            return this.jdbcTemplate.query(select(projection) + ACTIVE_SELLERS, rowMapper);
+        }
+        var sql = select(projection) + NOT_PENDING_DELETION;
+        var pendingDeletion = this.findSellerIdsPendingDeletion().toArray();
+        return this.shards.scatter(shard -> shard.query(sql,
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", pendingDeletion)), rowMapper))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    public List<TransactionRowDto> findBySellerId(long sellerId, TransactionProjection projection) {
+        var sql = select(projection) + " WHERE seller = ? ORDER BY id";
+        RowMapper<TransactionRowDto> rowMapper = (rs, rowNum) -> projection.map(rs);
+        var jdbcTemplate = this.shards.isEnabled() ? this.shards.shard(this.shards.shardOfSeller(sellerId)) : this.jdbcTemplate;
+        return jdbcTemplate.query(sql, rowMapper, sellerId);
+    }
+
+    public Set<Long> findSellerIdsPendingDeletion() {
+        return new HashSet<>(this.jdbcTemplate.queryForList(SELECT_PENDING_DELETION, Long.class));
+    }
+
+    private static String select(TransactionProjection projection) {
+        return "SELECT " + String.join(", ", projection.columns()) + " FROM transaction";
+    }
+}
@@ -0,0 +1,128 @@
+package ru.cft.ranking;
+
+import java.util.SplittableRandom;
+
+/**
+ * Treap of (income, seller) pairs ordered by income descending, with subtree sizes, so inserting,
+ * removing and counting the sellers above an income are all O(log n) expected.
+ */
+final class IncomeTreap {
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    void insert(long cents, long sellerId) {
+        var node = new Node(cents, sellerId, this.random.nextInt());
+        var parts = split(this.root, cents, sellerId);
+        this.root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    void remove(long cents, long sellerId) {
+        this.root = remove(this.root, cents, sellerId);
+    }
+
+    /**
+     * Number of sellers with income strictly greater than {@code cents}.
+     */
+    int countAbove(long cents) {
+        int count = 0;
+        var node = this.root;
+        while (node != null) {
+            if (node.cents > cents) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    int size() {
+        return size(this.root);
+    }
+
+    void clear() {
+        this.root = null;
+    }
+
+    private static boolean isBefore(long cents, long sellerId, Node node) {
+        return cents > node.cents || (cents == node.cents && sellerId < node.sellerId);
+    }
+
+    /**
+     * Splits into the nodes ordered before (cents, sellerId) and the rest.
+     */
+    private static Node[] split(Node node, long cents, long sellerId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (isBefore(cents, sellerId, node)) {
+            var parts = split(node.left, cents, sellerId);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+            return parts;
+        }
+        var parts = split(node.right, cents, sellerId);
+        node.right = parts[0];
+        update(node);
+        parts[0] = node;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node remove(Node node, long cents, long sellerId) {
+        if (node == null) {
+            return null;
+        }
+        if (node.cents == cents && node.sellerId == sellerId) {
+            return merge(node.left, node.right);
+        }
+        if (isBefore(cents, sellerId, node)) {
+            node.left = remove(node.left, cents, sellerId);
+        } else {
+            node.right = remove(node.right, cents, sellerId);
+        }
+        update(node);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static final class Node {
+        private final long cents;
+        private final long sellerId;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long cents, long sellerId, int priority) {
+            this.cents = cents;
+            this.sellerId = sellerId;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ru.cft.ranking;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.dto.SellerIncomeInternalDto;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.IncomeGranularity;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live ranking of sellers by income for the current day, week and month. Each period keeps the income
+ * of every seller with transactions in it and an {@link IncomeTreap} over those incomes; when a new
+ * period starts the ranking is restarted empty. Transactions created through this instance are recorded
+ * as they happen; COPY imports, transactions created on other instances and deleted sellers are only seen
+ * by {@link #reload()}, which runs periodically and after imports and completed deletions. A reload builds fresh
+ * rankings without sellers pending deletion and swaps them in, replaying the transactions recorded while it queried.
+ */
+@Component
+@Slf4j
+public class SellerRankIndex {
+    private final TransactionRepository transactionRepository;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final SellerRepository sellerRepository;
+    private final Object lock = new Object();
+    private volatile Map<IncomeGranularity, PeriodRanking> rankings;
+    private List<RecordedIncome> recordedDuringReload;
+
+    public SellerRankIndex(TransactionRepository transactionRepository,
+                           ShardedTransactionStore shardedTransactionStore,
+                           SellerRepository sellerRepository) {
+        this.transactionRepository = transactionRepository;
+        this.shardedTransactionStore = shardedTransactionStore;
+        this.sellerRepository = sellerRepository;
+        var rankings = new EnumMap<IncomeGranularity, PeriodRanking>(IncomeGranularity.class);
+        for (var granularity : IncomeGranularity.values()) {
+            rankings.put(granularity, new PeriodRanking(granularity));
+        }
+        this.rankings = rankings;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${crm.seller-rank.reload-interval:PT5M}",
+            initialDelayString = "${crm.seller-rank.reload-interval:PT5M}")
+    public synchronized void reload() {
+        synchronized (this.lock) {
+            this.recordedDuringReload = new ArrayList<>();
+        }
+        Map<IncomeGranularity, PeriodRanking> reloaded = null;
+        try {
+            reloaded = this.load();
+        } finally {
+            synchronized (this.lock) {
+                if (reloaded != null) {
+                    for (var income : this.recordedDuringReload) {
+                        reloaded.values().forEach(ranking -> ranking.add(income.sellerId(), income.cents(), income.date()));
+                    }
+                    this.rankings = reloaded;
+                }
+                this.recordedDuringReload = null;
+            }
+        }
+    }
+
+    /**
+     * Runs after the transaction is committed, so an amount that does not fit the cent arithmetic is skipped with a
+     * warning instead of failing the request that stored it.
+     */
+    public void record(Transaction transaction) {
+        long sellerId = transaction.getSeller().getId();
+        long cents;
+        try {
+            cents = MoneyUnits.toCents(transaction.getAmount());
+        } catch (ArithmeticException e) {
+            log.warn("Transaction {} with amount {} is too large to rank", transaction.getId(), transaction.getAmount());
+            return;
+        }
+        synchronized (this.lock) {
+            for (var ranking : this.rankings.values()) {
+                ranking.add(sellerId, cents, transaction.getTransactionDate());
+            }
+            if (this.recordedDuringReload != null) {
+                this.recordedDuringReload.add(new RecordedIncome(sellerId, cents, transaction.getTransactionDate()));
+            }
+        }
+    }
+
+    public Rank rank(long sellerId, IncomeGranularity granularity) {
+        return this.rankings.get(granularity).rank(sellerId, LocalDateTime.now());
+    }
+
+    private Map<IncomeGranularity, PeriodRanking> load() {
+        var pendingDeletion = this.sellerRepository.findAllIdsPendingDeletion();
+        var now = LocalDateTime.now();
+        var rankings = new EnumMap<IncomeGranularity, PeriodRanking>(IncomeGranularity.class);
+        for (var granularity : IncomeGranularity.values()) {
+            var start = granularity.truncate(now);
+            var incomes = (this.shardedTransactionStore.isEnabled()
+                    ? this.shardedTransactionStore.findIncomeBySeller(start, now)
+                    : this.transactionRepository.findIncomeBySeller(start, now)).stream()
+                    .filter(income -> !pendingDeletion.contains(income.sellerId()))
+                    .toList();
+            var ranking = new PeriodRanking(granularity);
+            ranking.load(start, incomes);
+            rankings.put(granularity, ranking);
+            log.debug("Seller ranking for {} since {} loaded with {} sellers", granularity, start, incomes.size());
+        }
+        return rankings;
+    }
+
+    /**
+     * @param incomeCents   income of the seller in the period, {@code null} when it has no transactions there
+     * @param sellersAbove  number of sellers with strictly greater income
+     * @param rankedSellers number of sellers with transactions in the period
+     */
+    public record Rank(Long incomeCents, int sellersAbove, int rankedSellers) {
+    }
+
+    private record RecordedIncome(long sellerId, long cents, LocalDateTime date) {
+    }
+
+    private static final class PeriodRanking {
+        private final IncomeGranularity granularity;
+        private final Map<Long, Long> incomeBySeller = new HashMap<>();
+        private final IncomeTreap treap = new IncomeTreap();
+        private LocalDateTime periodStart;
+
+        private PeriodRanking(IncomeGranularity granularity) {
+            this.granularity = granularity;
+        }
+
+        synchronized void load(LocalDateTime start, List<SellerIncomeInternalDto> incomes) {
+            this.restart(start);
+            for (var income : incomes) {
+                this.addToPeriod(income.sellerId(), MoneyUnits.toCents(income.income()));
+            }
+        }
+
+        synchronized void add(long sellerId, long cents, LocalDateTime date) {
+            var bucket = this.granularity.truncate(date);
+            if (this.periodStart == null || bucket.isAfter(this.periodStart)) {
+                this.restart(bucket);
+            }
+            if (bucket.equals(this.periodStart)) {
+                this.addToPeriod(sellerId, cents);
+            }
+        }
+
+        synchronized Rank rank(long sellerId, LocalDateTime now) {
+            var current = this.granularity.truncate(now);
+            if (this.periodStart == null || current.isAfter(this.periodStart)) {
+                this.restart(current);
+            }
+            var income = this.incomeBySeller.get(sellerId);
+            int sellersAbove = income == null ? this.treap.size() : this.treap.countAbove(income);
+            return new Rank(income, sellersAbove, this.treap.size());
+        }
+
+        private void restart(LocalDateTime start) {
+            this.periodStart = start;
+            this.incomeBySeller.clear();
+            this.treap.clear();
+        }
+
+        private void addToPeriod(long sellerId, long cents) {
+            var previous = this.incomeBySeller.get(sellerId);
+            long updated = previous == null ? cents : Math.addExact(previous, cents);
+            if (previous != null) {
+                this.treap.remove(previous, sellerId);
+            }
+            this.treap.insert(updated, sellerId);
+            this.incomeBySeller.put(sellerId, updated);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.cft.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.cft.entity.SellerDeletion;
+import ru.cft.enums.SellerDeletionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SellerDeletionRepository extends JpaRepository<SellerDeletion, Long> {
+    List<SellerDeletion> findAllByStatus(SellerDeletionStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT d FROM SellerDeletion d WHERE d.sellerId = :sellerId AND d.status = ru.cft.enums.SellerDeletionStatus.IN_PROGRESS")
+    Optional<SellerDeletion> findInProgressForUpdateSkipLocked(@Param("sellerId") Long sellerId);
+}
@@ -1,23 +1,75 @@
 package ru.cft.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.cft.dto.SellerWithIncomeInternalDto;
 import ru.cft.entity.Seller;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface SellerRepository extends JpaRepository<Seller, Long> {
+    @Query("SELECT s FROM Seller s WHERE s.id = :id AND s.deletionRequestedAt IS NULL")
+    Optional<Seller> findActiveById(@Param("id") Long id);
+
+    @Query("SELECT s FROM Seller s WHERE s.deletionRequestedAt IS NULL")
+    List<Seller> findAllActive();
+
+    @Query("SELECT s FROM Seller s WHERE s.id IN :ids AND s.deletionRequestedAt IS NULL")
+    List<Seller> findAllActiveByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id FROM Seller s WHERE s.deletionRequestedAt IS NOT NULL")
+    Set<Long> findAllIdsPendingDeletion();
+
+    @Query("SELECT count(s) > 0 FROM Seller s WHERE s.id = :id AND s.deletionRequestedAt IS NULL")
+    boolean existsActiveById(@Param("id") Long id);
+
+    List<Seller> findByIdGreaterThanAndDeletionRequestedAtIsNullOrderByIdAsc(Long id, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Seller s SET s.deletionRequestedAt = :requestedAt WHERE s.id = :id AND s.deletionRequestedAt IS NULL")
+    int markDeletionRequested(@Param("id") Long id, @Param("requestedAt") LocalDateTime requestedAt);
+
+    @Transactional
+    @Query(value = "UPDATE seller SET name = :name, contact_info = :contactInfo " +
+            "WHERE id = :id AND deletion_requested_at IS NULL " +
+            "RETURNING *",
+            nativeQuery = true)
+    Optional<Seller> updateActive(@Param("id") Long id,
+                                  @Param("name") String name,
+                                  @Param("contactInfo") String contactInfo);
+
+    @Transactional
+    @Query(value = "UPDATE seller SET " +
+            "name = coalesce(cast(:name AS varchar), name), " +
+            "contact_info = coalesce(cast(:contactInfo AS varchar), contact_info) " +
+            "WHERE id = :id AND deletion_requested_at IS NULL " +
+            "RETURNING *",
+            nativeQuery = true)
+    Optional<Seller> patchActive(@Param("id") Long id,
+                                 @Param("name") String name,
+                                 @Param("contactInfo") String contactInfo);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Seller s WHERE s.id = :id AND s.deletionRequestedAt IS NULL")
+    int deleteActiveById(@Param("id") Long id);
 
     @Query(value = "SELECT s.*, sum(t.amount) FROM transaction t " +
             "JOIN seller s ON t.seller = s.id " +
             "WHERE t.transaction_date BETWEEN :start AND :end " +
+            "AND s.deletion_requested_at IS NULL " +
             "GROUP BY s.id " +
             "ORDER BY sum(t.amount) DESC " +
             "LIMIT 1",
@@ -27,8 +79,9 @@ public interface SellerRepository extends JpaRepository<Seller, Long> {
     @Query(value = "SELECT s.* FROM transaction t " +
             "JOIN seller s ON t.seller = s.id " +
             "WHERE t.transaction_date BETWEEN :start AND :end " +
+            "AND s.deletion_requested_at IS NULL " +
             "GROUP BY s.id " +
-            "HAVING sum(t.amount) < :threshold" +
+            "HAVING sum(t.amount) < :threshold " +
             "ORDER BY sum(t.amount) DESC",
             nativeQuery = true)
     List<Seller> findAllSellersWithIncomeLowerThanThreshold(
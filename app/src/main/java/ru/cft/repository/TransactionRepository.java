@@ -1,10 +1,95 @@
 package ru.cft.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.cft.dto.PaymentTypeIncomeInternalDto;
+import ru.cft.dto.SellerIncomeInternalDto;
+import ru.cft.dto.TransactionIncomeInternalDto;
 import ru.cft.entity.Transaction;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.seller s WHERE s.deletionRequestedAt IS NULL")
+    List<Transaction> findAllActive();
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.seller s WHERE t.id = :id AND s.deletionRequestedAt IS NULL")
+    Optional<Transaction> findActiveById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "seller")
     List<Transaction> findAllBySellerId(Long sellerId);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.seller s WHERE t.id IN :ids AND s.deletionRequestedAt IS NULL")
+    List<Transaction> findAllActiveByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "seller")
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.trackingId = :trackingId")
+    Optional<Long> findIdByTrackingId(@Param("trackingId") UUID trackingId);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.seller s " +
+            "WHERE t.transactionDate >= :since AND s.deletionRequestedAt IS NULL")
+    List<Transaction> findAllWithSellerSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT min(t.transactionDate) FROM Transaction t")
+    LocalDateTime findOldestTransactionDate();
+
+    @Query("SELECT new ru.cft.dto.SellerIncomeInternalDto(t.seller.id, sum(t.amount)) " +
+            "FROM Transaction t " +
+            "WHERE t.transactionDate BETWEEN :start AND :end " +
+            "GROUP BY t.seller.id")
+    List<SellerIncomeInternalDto> findIncomeBySeller(@Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT new ru.cft.dto.TransactionIncomeInternalDto(t.seller.id, t.amount, t.transactionDate) " +
+            "FROM Transaction t " +
+            "WHERE t.transactionDate BETWEEN :start AND :end " +
+            "ORDER BY t.transactionDate")
+    Stream<TransactionIncomeInternalDto> streamIncomeOrderedByDate(@Param("start") LocalDateTime start,
+                                                                   @Param("end") LocalDateTime end);
+
+    @Query("SELECT new ru.cft.dto.PaymentTypeIncomeInternalDto(t.paymentType, sum(t.amount), count(t)) " +
+            "FROM Transaction t " +
+            "WHERE t.transactionDate BETWEEN :start AND :end AND t.seller.deletionRequestedAt IS NULL " +
+            "GROUP BY t.paymentType")
+    List<PaymentTypeIncomeInternalDto> findIncomeByPaymentType(@Param("start") LocalDateTime start,
+                                                               @Param("end") LocalDateTime end);
+
+    @Query("SELECT new ru.cft.dto.PaymentTypeIncomeInternalDto(t.paymentType, sum(t.amount), count(t)) " +
+            "FROM Transaction t " +
+            "WHERE t.seller.id = :sellerId AND t.transactionDate BETWEEN :start AND :end " +
+            "GROUP BY t.paymentType")
+    List<PaymentTypeIncomeInternalDto> findIncomeByPaymentTypeForSeller(@Param("sellerId") Long sellerId,
+                                                                        @Param("start") LocalDateTime start,
+                                                                        @Param("end") LocalDateTime end);
+
+    @Query(value = "SELECT max(chunk.id) FROM (" +
+            "SELECT t.id FROM transaction t WHERE t.seller = :sellerId AND t.id > :afterId ORDER BY t.id LIMIT :chunkSize" +
+            ") chunk",
+            nativeQuery = true)
+    Long findChunkUpperBound(@Param("sellerId") Long sellerId,
+                             @Param("afterId") long afterId,
+                             @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM transaction WHERE seller = :sellerId AND id > :afterId AND id <= :upToId",
+            nativeQuery = true)
+    int deleteBySellerIdAndIdRange(@Param("sellerId") Long sellerId,
+                                   @Param("afterId") long afterId,
+                                   @Param("upToId") long upToId);
 }
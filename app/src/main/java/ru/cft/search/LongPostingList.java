@@ -0,0 +1,51 @@
+package ru.cft.search;
+
+import java.util.Arrays;
+
+final class LongPostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    boolean add(long id) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+        System.arraycopy(this.ids, insertAt, this.ids, insertAt + 1, this.size - insertAt);
+        this.ids[insertAt] = id;
+        this.size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+        this.size--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(this.ids, 0, this.size, id) >= 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    long get(int index) {
+        return this.ids[index];
+    }
+}
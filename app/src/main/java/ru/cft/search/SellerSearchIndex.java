@@ -0,0 +1,261 @@
+package ru.cft.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.SellerSearchProperties;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.mapper.SellerMapper;
+import ru.cft.repository.SellerRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory trigram inverted index over seller name and contact info.
+ * A query is answered by intersecting the posting lists of its trigrams (smallest first)
+ * and verifying the remaining candidates with a substring check.
+ */
+@Component
+@Slf4j
+public class SellerSearchIndex {
+    private static final int GRAM = 3;
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::score)
+            .thenComparingInt(match -> match.seller().name().length())
+            .thenComparingLong(match -> match.seller().id());
+
+    private final SellerRepository sellerRepository;
+    private final SellerMapper sellerMapper;
+    private final SellerSearchProperties properties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private State state = new State();
+    private List<Consumer<State>> pendingChanges;
+
+    public SellerSearchIndex(SellerRepository sellerRepository, SellerMapper sellerMapper, SellerSearchProperties properties) {
+        this.sellerRepository = sellerRepository;
+        this.sellerMapper = sellerMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Rebuilds the index from the database. Rebuilds run one at a time; changes applied while one is loading are
+     * replayed onto the fresh state before it is swapped in. If the load fails the current state stays in place.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.rebuildLock.lock();
+        try {
+            this.lock.writeLock().lock();
+            try {
+                this.pendingChanges = new ArrayList<>();
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            var fresh = new State();
+            long started = System.nanoTime();
+            boolean loaded = false;
+            try {
+                this.load(fresh);
+                loaded = true;
+            } finally {
+                this.lock.writeLock().lock();
+                try {
+                    if (loaded) {
+                        this.pendingChanges.forEach(change -> change.accept(fresh));
+                        this.state = fresh;
+                    }
+                    this.pendingChanges = null;
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+            }
+            log.info("Seller search index rebuilt: sellers={}, trigrams={}, took={}ms",
+                    fresh.sellers.size(), fresh.postings.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            this.rebuildLock.unlock();
+        }
+    }
+
+    private void load(State fresh) {
+        long lastId = 0;
+        while (true) {
+            var batch = this.sellerRepository.findByIdGreaterThanAndDeletionRequestedAtIsNullOrderByIdAsc(lastId, Limit.of(this.properties.loadBatchSize()));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (var seller : batch) {
+                fresh.upsert(this.sellerMapper.toDto(seller));
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    public void upsert(SellerDto seller) {
+        this.apply(state -> state.upsert(seller));
+    }
+
+    public void upsertAll(Collection<SellerDto> sellers) {
+        if (!sellers.isEmpty()) {
+            this.apply(state -> sellers.forEach(state::upsert));
+        }
+    }
+
+    public void remove(Long id) {
+        this.apply(state -> state.remove(id));
+    }
+
+    public List<SellerDto> search(String query, int limit) {
+        var normalized = normalize(query);
+        if (normalized.length() < GRAM) {
+            return List.of();
+        }
+        this.lock.readLock().lock();
+        try {
+            return this.state.search(normalized, limit, this.properties.maxCandidates());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<State> change) {
+        this.lock.writeLock().lock();
+        try {
+            change.accept(this.state);
+            if (this.pendingChanges != null) {
+                this.pendingChanges.add(change);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] trigrams(String normalized) {
+        if (normalized.length() < GRAM) {
+            return new long[0];
+        }
+        var grams = new long[normalized.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) normalized.charAt(i) << 32)
+                    | ((long) normalized.charAt(i + 1) << 16)
+                    | normalized.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    private static int score(IndexedSeller seller, String query) {
+        if (seller.name().equals(query)) {
+            return 0;
+        }
+        if (seller.name().startsWith(query)) {
+            return 1;
+        }
+        if (seller.name().contains(query)) {
+            return 2;
+        }
+        if (seller.contactInfo().startsWith(query)) {
+            return 3;
+        }
+        if (seller.contactInfo().contains(query)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    private record IndexedSeller(SellerDto dto, String name, String contactInfo) {
+    }
+
+    private record Match(SellerDto seller, int score) {
+    }
+
+    private static final class State {
+        private final Map<Long, IndexedSeller> sellers = new HashMap<>();
+        private final Map<Long, LongPostingList> postings = new HashMap<>();
+
+        void upsert(SellerDto seller) {
+            this.remove(seller.id());
+            var indexed = new IndexedSeller(seller, normalize(seller.name()), normalize(seller.contactInfo()));
+            this.sellers.put(seller.id(), indexed);
+            this.forEachTrigram(indexed, gram -> this.postings.computeIfAbsent(gram, g -> new LongPostingList()).add(seller.id()));
+        }
+
+        void remove(Long id) {
+            var existing = this.sellers.remove(id);
+            if (existing == null) {
+                return;
+            }
+            this.forEachTrigram(existing, gram -> {
+                var posting = this.postings.get(gram);
+                if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                    this.postings.remove(gram);
+                }
+            });
+        }
+
+        List<SellerDto> search(String query, int limit, int maxCandidates) {
+            var grams = trigrams(query);
+            var lists = new ArrayList<LongPostingList>(grams.length);
+            for (long gram : grams) {
+                var posting = this.postings.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(LongPostingList::size));
+
+            var smallest = lists.get(0);
+            var best = new PriorityQueue<>(BEST_FIRST.reversed());
+            int scanned = Math.min(smallest.size(), maxCandidates);
+            candidates:
+            for (int i = 0; i < scanned; i++) {
+                long id = smallest.get(i);
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) {
+                        continue candidates;
+                    }
+                }
+                var seller = this.sellers.get(id);
+                int score = score(seller, query);
+                if (score < 0) {
+                    continue;
+                }
+                best.add(new Match(seller.dto(), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            var result = new ArrayList<Match>(best);
+            result.sort(BEST_FIRST);
+            return result.stream().map(Match::seller).toList();
+        }
+
+        private void forEachTrigram(IndexedSeller seller, LongConsumer action) {
+            for (long gram : trigrams(seller.name())) {
+                action.accept(gram);
+            }
+            for (long gram : trigrams(seller.contactInfo())) {
+                action.accept(gram);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.cft.series;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.cache.IncomeBucketCache;
+import ru.cft.configuration.IncomeSeriesProperties;
+import ru.cft.dto.analytics.IncomeBucketDto;
+import ru.cft.enums.IncomeGranularity;
+import ru.cft.sharding.TransactionShards;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense income series of a seller. Closed buckets come from {@link IncomeBucketCache}; everything from the
+ * first uncached bucket on is aggregated with one {@code date_trunc} query, plus the archive when it overlaps,
+ * and buckets without transactions are filled with zero.
+ */
+@Component
+public class SellerIncomeSeries {
+    private static final String SELECT_BUCKETS = "SELECT date_trunc(?, transaction_date) AS bucket, sum(amount) AS income " +
+            "FROM transaction " +
+            "WHERE seller = ? AND transaction_date >= ? AND transaction_date < ? " +
+            "GROUP BY bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionShards transactionShards;
+    private final TransactionArchive transactionArchive;
+    private final IncomeBucketCache incomeBucketCache;
+    private final Duration closeDelay;
+
+    public SellerIncomeSeries(DataSource dataSource,
+                              TransactionShards transactionShards,
+                              TransactionArchive transactionArchive,
+                              IncomeBucketCache incomeBucketCache,
+                              IncomeSeriesProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionShards = transactionShards;
+        this.transactionArchive = transactionArchive;
+        this.incomeBucketCache = incomeBucketCache;
+        this.closeDelay = properties.closeDelay();
+    }
+
+    public List<IncomeBucketDto> compute(long sellerId, IncomeGranularity granularity, LocalDateTime start, LocalDateTime end) {
+        var first = granularity.truncate(start);
+        var last = granularity.truncate(end);
+        var closedBefore = LocalDateTime.now().minus(this.closeDelay);
+        long generation = this.incomeBucketCache.generation();
+
+        var bucketStarts = new ArrayList<LocalDateTime>();
+        var cents = new ArrayList<Long>();
+        int firstMissing = -1;
+        for (var bucket = first; !bucket.isAfter(last); bucket = granularity.next(bucket)) {
+            Long cached = isClosed(granularity, bucket, closedBefore)
+                    ? this.incomeBucketCache.get(sellerId, granularity, bucket)
+                    : null;
+            if (cached == null && firstMissing < 0) {
+                firstMissing = bucketStarts.size();
+            }
+            bucketStarts.add(bucket);
+            cents.add(cached);
+        }
+
+        if (firstMissing >= 0) {
+            var loaded = this.load(sellerId, granularity, bucketStarts.get(firstMissing), granularity.next(last));
+            var closed = new HashMap<LocalDateTime, Long>();
+            for (int i = firstMissing; i < bucketStarts.size(); i++) {
+                var bucket = bucketStarts.get(i);
+                long income = loaded.getOrDefault(bucket, 0L);
+                cents.set(i, income);
+                if (isClosed(granularity, bucket, closedBefore)) {
+                    closed.put(bucket, income);
+                }
+            }
+            this.incomeBucketCache.putAll(sellerId, granularity, closed, generation);
+        }
+
+        var series = new ArrayList<IncomeBucketDto>(bucketStarts.size());
+        for (int i = 0; i < bucketStarts.size(); i++) {
+            series.add(IncomeBucketDto.builder()
+                    .start(bucketStarts.get(i))
+                    .income(MoneyUnits.fromCents(cents.get(i)))
+                    .build());
+        }
+        return series;
+    }
+
+    private Map<LocalDateTime, Long> load(long sellerId, IncomeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        var target = this.transactionShards.isEnabled()
+                ? this.transactionShards.shard(this.transactionShards.shardOfSeller(sellerId))
+                : this.jdbcTemplate;
+        var incomeByBucket = new HashMap<LocalDateTime, Long>();
+        target.query(SELECT_BUCKETS, rs -> {
+            incomeByBucket.merge(rs.getObject("bucket", LocalDateTime.class),
+                    MoneyUnits.toCents(rs.getBigDecimal("income")), Math::addExact);
+        }, granularity.sqlUnit(), sellerId, from, to);
+
+        var inclusiveTo = to.minus(1, ChronoUnit.MICROS);
+        if (this.transactionArchive.overlaps(from, inclusiveTo)) {
+            this.transactionArchive.forEachInRange(from, inclusiveTo, transaction -> {
+                if (transaction.sellerId() == sellerId) {
+                    incomeByBucket.merge(granularity.truncate(transaction.transactionDate()),
+                            MoneyUnits.toCents(transaction.amount()), Math::addExact);
+                }
+            });
+        }
+        return incomeByBucket;
+    }
+
+    private static boolean isClosed(IncomeGranularity granularity, LocalDateTime bucket, LocalDateTime closedBefore) {
+        return !granularity.next(bucket).isAfter(closedBefore);
+    }
+}
@@ -1,8 +1,14 @@
 package ru.cft.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.cft.dto.DateRangeDto;
+import ru.cft.dto.analytics.IncomeSeriesDto;
+import ru.cft.dto.analytics.PaymentBreakdownDto;
+import ru.cft.dto.analytics.PeriodAnalyticsDto;
+import ru.cft.dto.analytics.SellerRankDto;
 import ru.cft.dto.analytics.SellerWithIncomeDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.enums.IncomeGranularity;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,4 +20,14 @@ public interface AnalyticsService {
     List<SellerDto> findSellersWithIncomeLessThanThresholdByPeriod(BigDecimal incomeThreshold, LocalDateTime startDate, LocalDateTime endDate);
 
     DateRangeDto getBestPerformancePeriodForSeller(Long sellerId);
+
+    PaymentBreakdownDto findPaymentBreakdownByPeriod(LocalDateTime startDate, LocalDateTime endDate, Long sellerId);
+
+    List<PeriodAnalyticsDto> findAnalyticsByPeriods(List<DateRangeDto> periods, BigDecimal incomeThreshold);
+
+    IncomeSeriesDto findIncomeSeries(Long sellerId, LocalDateTime startDate, LocalDateTime endDate, IncomeGranularity granularity);
+
+    SellerRankDto findSellerRank(Long sellerId, LocalDateTime startDate, LocalDateTime endDate);
+
+    SseEmitter subscribeToLeaderboard();
 }
@@ -0,0 +1,11 @@
+package ru.cft.service;
+
+import ru.cft.dto.importing.ImportReportDto;
+
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportReportDto importSellers(InputStream csv, boolean hasHeader);
+
+    ImportReportDto importTransactions(InputStream csv, boolean hasHeader);
+}
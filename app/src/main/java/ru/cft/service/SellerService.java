@@ -1,11 +1,14 @@
 package ru.cft.service;
 
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.seller.SellerLookupDto;
 import ru.cft.dto.seller.SellerPatchDto;
 import ru.cft.dto.seller.SellerUpdateDto;
 import ru.cft.entity.Seller;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SellerService {
@@ -13,13 +16,23 @@ public interface SellerService {
 
     SellerDto findById(Long id);
 
+    SellerLookupDto lookup(List<Long> ids);
+
     SellerDto create(SellerCreateDto sellerCreateDto);
 
     void deleteById(Long id);
 
+    SellerDeletionDto requestDeletion(Long id);
+
+    SellerDeletionDto findDeletion(Long sellerId);
+
     SellerDto put(SellerUpdateDto sellerUpdateDto);
 
     SellerDto patch(SellerPatchDto sellerPatchDto);
 
     Seller findEntityById(Long id);
+
+    List<Seller> findEntitiesByIds(Collection<Long> ids);
+
+    List<SellerDto> search(String query, int limit);
 }
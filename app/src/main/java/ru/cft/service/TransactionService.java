@@ -1,16 +1,41 @@
 package ru.cft.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.dto.transaction.IngestionStatusDto;
 import ru.cft.dto.transaction.TransactionCreateDto;
 import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.dto.transaction.TransactionListDto;
+import ru.cft.dto.transaction.TransactionLookupDto;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.FeedOverflowPolicy;
+import ru.cft.feed.FeedPosition;
+import ru.cft.projection.TransactionProjection;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface TransactionService {
     List<TransactionDto> findAll();
 
     TransactionDto findById(Long id);
 
+    TransactionLookupDto lookup(List<Long> ids);
+
     TransactionDto create(TransactionCreateDto transactionCreateDto);
 
+    IngestionStatusDto ingest(TransactionCreateDto transactionCreateDto);
+
+    IngestionStatusDto findIngestionStatus(UUID trackingId);
+
+    void publishIngested(List<Transaction> transactions);
+
     List<TransactionDto> findBySellerId(Long sellerId);
+
+    TransactionListDto findAll(TransactionProjection projection);
+
+    TransactionListDto findBySellerId(Long sellerId, TransactionProjection projection);
+
+    List<TransactionDto> findRecentAnomalies(int limit);
+
+    SseEmitter subscribeToFeed(FeedPosition lastEvent, FeedOverflowPolicy overflowPolicy);
 }
@@ -3,42 +3,90 @@ package ru.cft.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.aggregation.PaymentTypeAccumulator;
+import ru.cft.aggregation.PeriodIncomeAccumulator;
+import ru.cft.archive.TransactionArchive;
 import ru.cft.dto.DateRangeDto;
+import ru.cft.dto.PaymentTypeIncomeInternalDto;
+import ru.cft.dto.SellerIncomeInternalDto;
+import ru.cft.dto.SellerWithIncomeInternalDto;
+import ru.cft.dto.analytics.IncomeSeriesDto;
+import ru.cft.dto.analytics.PaymentBreakdownDto;
+import ru.cft.dto.analytics.PaymentTypeIncomeDto;
+import ru.cft.dto.analytics.PeriodAnalyticsDto;
+import ru.cft.dto.analytics.SellerRankDto;
 import ru.cft.dto.analytics.SellerWithIncomeDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.entity.Seller;
+import ru.cft.enums.IncomeGranularity;
+import ru.cft.enums.PaymentType;
 import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.leaderboard.LeaderboardPublisher;
 import ru.cft.mapper.AnalyticsMapper;
 import ru.cft.mapper.SellerMapper;
+import ru.cft.ranking.SellerRankIndex;
 import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.series.SellerIncomeSeries;
 import ru.cft.service.AnalyticsService;
+import ru.cft.sharding.ShardedTransactionStore;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AnalyticsServiceImpl implements AnalyticsService {
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final SellerRepository sellerRepository;
+    private final TransactionRepository transactionRepository;
     private final AnalyticsMapper analyticsMapper;
     private final SellerMapper sellerMapper;
+    private final TransactionArchive transactionArchive;
+    private final LeaderboardPublisher leaderboardPublisher;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final SellerIncomeSeries sellerIncomeSeries;
+    private final SellerRankIndex sellerRankIndex;
 
     @Override
     public SellerWithIncomeDto findTopSellerByPeriod(LocalDateTime startDate, LocalDateTime endDate) {
-        var seller = this.sellerRepository.findBestSellerByPeriod(startDate, endDate);
+        Optional<SellerWithIncomeInternalDto> seller;
+        if (this.transactionArchive.overlaps(startDate, endDate)) {
+            seller = this.findBestSellerAcrossTiers(startDate, endDate);
+        } else if (this.shardedTransactionStore.isEnabled()) {
+            seller = this.findBestSellerAcrossShards(startDate, endDate);
+        } else {
+            seller = this.sellerRepository.findBestSellerByPeriod(startDate, endDate);
+        }
         return this.analyticsMapper.toDto(
-                seller.orElseThrow(() -> {
-                    var errorMessage = "There is no sellers with any transactions between " + startDate + " and " + endDate;
-                    log.error(errorMessage);
-                    return new ResourceNotFoundException(errorMessage);
-                })
+                seller.orElseThrow(() -> new ResourceNotFoundException(
+                        "There is no sellers with any transactions between " + startDate + " and " + endDate))
         );
     }
 
     @Override
     public List<SellerDto> findSellersWithIncomeLessThanThresholdByPeriod(BigDecimal incomeThreshold, LocalDateTime startDate, LocalDateTime endDate) {
+        if (this.shardedTransactionStore.isEnabled() || this.transactionArchive.overlaps(startDate, endDate)) {
+            return this.findSellersWithIncomeLowerThanThresholdAcrossTiers(incomeThreshold, startDate, endDate);
+        }
         var sellers = this.sellerRepository.findAllSellersWithIncomeLowerThanThreshold(incomeThreshold, startDate, endDate);
         return sellers.stream().map(this.sellerMapper::toDto).toList();
     }
@@ -47,4 +95,267 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     public DateRangeDto getBestPerformancePeriodForSeller(Long sellerId) {
         return null;
     }
+
+    @Override
+    public PaymentBreakdownDto findPaymentBreakdownByPeriod(LocalDateTime startDate, LocalDateTime endDate, Long sellerId) {
+        var accumulator = new PaymentTypeAccumulator();
+        if (sellerId == null) {
+            this.findHotIncomeByPaymentType(startDate, endDate)
+                    .forEach(row -> accumulator.add(row.paymentType(), row.income(), row.transactionCount()));
+            if (this.transactionArchive.overlaps(startDate, endDate)) {
+                var pendingDeletion = this.sellerRepository.findAllIdsPendingDeletion();
+                this.transactionArchive.forEachInRange(startDate, endDate, transaction -> {
+                    if (!pendingDeletion.contains(transaction.sellerId())) {
+                        accumulator.add(transaction.paymentType(), transaction.amount());
+                    }
+                });
+            }
+        } else {
+            if (!this.sellerRepository.existsActiveById(sellerId)) {
+                var errorMessage = String.format("There is no seller with id %d", sellerId);
+                throw new ResourceNotFoundException(errorMessage);
+            }
+            this.findHotIncomeByPaymentTypeForSeller(sellerId, startDate, endDate)
+                    .forEach(row -> accumulator.add(row.paymentType(), row.income(), row.transactionCount()));
+            this.transactionArchive.forEachInRange(startDate, endDate, transaction -> {
+                if (transaction.sellerId() == sellerId) {
+                    accumulator.add(transaction.paymentType(), transaction.amount());
+                }
+            });
+        }
+        return this.toPaymentBreakdownDto(accumulator, startDate, endDate, sellerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PeriodAnalyticsDto> findAnalyticsByPeriods(List<DateRangeDto> periods, BigDecimal incomeThreshold) {
+        var accumulator = this.accumulateIncomeByPeriod(periods);
+        var sellerIds = new HashSet<Long>();
+        for (int period = 0; period < accumulator.periodCount(); period++) {
+            sellerIds.addAll(accumulator.incomeBySeller(period).keySet());
+        }
+        Map<Long, Seller> activeSellers = this.findActiveSellers(sellerIds).stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+
+        var result = new ArrayList<PeriodAnalyticsDto>(periods.size());
+        for (int period = 0; period < periods.size(); period++) {
+            result.add(this.toPeriodAnalyticsDto(periods.get(period), accumulator.incomeBySeller(period), activeSellers, incomeThreshold));
+        }
+        return result;
+    }
+
+    @Override
+    public IncomeSeriesDto findIncomeSeries(Long sellerId, LocalDateTime startDate, LocalDateTime endDate, IncomeGranularity granularity) {
+        if (!this.sellerRepository.existsActiveById(sellerId)) {
+            var errorMessage = String.format("There is no seller with id %d", sellerId);
+            throw new ResourceNotFoundException(errorMessage);
+        }
+        return IncomeSeriesDto.builder()
+                .sellerId(sellerId)
+                .granularity(granularity)
+                .buckets(this.sellerIncomeSeries.compute(sellerId, granularity, startDate, endDate))
+                .build();
+    }
+
+    @Override
+    public SellerRankDto findSellerRank(Long sellerId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!this.sellerRepository.existsActiveById(sellerId)) {
+            var errorMessage = String.format("There is no seller with id %d", sellerId);
+            throw new ResourceNotFoundException(errorMessage);
+        }
+        var now = LocalDateTime.now();
+        var rank = Arrays.stream(IncomeGranularity.values())
+                .filter(granularity -> granularity.truncate(now).equals(startDate) && !endDate.isBefore(now))
+                .findFirst()
+                .map(granularity -> this.sellerRankIndex.rank(sellerId, granularity))
+                .orElseGet(() -> this.findSellerRankAcrossTiers(sellerId, startDate, endDate));
+        var position = rank.incomeCents() == null ? null : rank.sellersAbove() + 1;
+        return SellerRankDto.builder()
+                .sellerId(sellerId)
+                .start(startDate)
+                .end(endDate)
+                .income(MoneyUnits.fromCents(rank.incomeCents() == null ? 0 : rank.incomeCents()))
+                .rank(position)
+                .rankedSellers(rank.rankedSellers())
+                .topPercent(position == null ? null : BigDecimal.valueOf(position * 100L)
+                        .divide(BigDecimal.valueOf(rank.rankedSellers()), 2, RoundingMode.UP))
+                .build();
+    }
+
+    @Override
+    public SseEmitter subscribeToLeaderboard() {
+        return this.leaderboardPublisher.subscribe();
+    }
+
+    private Optional<SellerWithIncomeInternalDto> findBestSellerAcrossTiers(LocalDateTime startDate, LocalDateTime endDate) {
+        var incomeBySeller = this.findIncomeBySellerAcrossTiers(startDate, endDate);
+        return this.findActiveSellers(incomeBySeller.keySet()).stream()
+                .max(Comparator.comparingLong(seller -> incomeBySeller.get(seller.getId())[0]))
+                .map(seller -> SellerWithIncomeInternalDto.builder()
+                        .seller(seller)
+                        .sumOfTransactionAmount(MoneyUnits.fromCents(incomeBySeller.get(seller.getId())[0]))
+                        .build());
+    }
+
+    private Optional<SellerWithIncomeInternalDto> findBestSellerAcrossShards(LocalDateTime startDate, LocalDateTime endDate) {
+        var candidates = this.shardedTransactionStore.findTopSellers(startDate, endDate);
+        var activeSellers = this.findActiveSellers(
+                        candidates.stream().map(SellerIncomeInternalDto::sellerId).toList()).stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+        for (var candidate : candidates) {
+            var seller = activeSellers.get(candidate.sellerId());
+            if (seller != null) {
+                return Optional.of(SellerWithIncomeInternalDto.builder()
+                        .seller(seller)
+                        .sumOfTransactionAmount(candidate.income())
+                        .build());
+            }
+        }
+        return candidates.isEmpty() ? Optional.empty() : this.findBestSellerAcrossTiers(startDate, endDate);
+    }
+
+    /**
+     * Ranking for an arbitrary period, which the live index does not cover: aggregates every seller's
+     * income and counts the ones above, without sorting. Sellers pending deletion are not ranked.
+     */
+    private SellerRankIndex.Rank findSellerRankAcrossTiers(Long sellerId, LocalDateTime startDate, LocalDateTime endDate) {
+        var incomeBySeller = this.findIncomeBySellerAcrossTiers(startDate, endDate);
+        incomeBySeller.keySet().removeAll(this.sellerRepository.findAllIdsPendingDeletion());
+        var income = incomeBySeller.get(sellerId);
+        int sellersAbove = income == null
+                ? incomeBySeller.size()
+                : (int) incomeBySeller.values().stream().filter(cents -> cents[0] > income[0]).count();
+        return new SellerRankIndex.Rank(income == null ? null : income[0], sellersAbove, incomeBySeller.size());
+    }
+
+    private List<SellerDto> findSellersWithIncomeLowerThanThresholdAcrossTiers(BigDecimal incomeThreshold,
+                                                                              LocalDateTime startDate,
+                                                                              LocalDateTime endDate) {
+        var incomeBySeller = this.findIncomeBySellerAcrossTiers(startDate, endDate);
+        long thresholdCents = MoneyUnits.toCents(incomeThreshold);
+        Comparator<Seller> byIncome = Comparator.comparingLong(seller -> incomeBySeller.get(seller.getId())[0]);
+        return this.findActiveSellers(incomeBySeller.keySet()).stream()
+                .filter(seller -> incomeBySeller.get(seller.getId())[0] < thresholdCents)
+                .sorted(byIncome.reversed())
+                .map(this.sellerMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Income aggregates can cover any number of sellers, more than PostgreSQL accepts as bind parameters of one IN list.
+     */
+    private List<Seller> findActiveSellers(Collection<Long> sellerIds) {
+        var ids = List.copyOf(sellerIds);
+        var sellers = new ArrayList<Seller>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            sellers.addAll(this.sellerRepository.findAllActiveByIdIn(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()))));
+        }
+        return sellers;
+    }
+
+    private Map<Long, long[]> findIncomeBySellerAcrossTiers(LocalDateTime startDate, LocalDateTime endDate) {
+        var incomeBySeller = new HashMap<Long, long[]>();
+        this.findHotIncomeBySeller(startDate, endDate).forEach(row ->
+                incomeBySeller.computeIfAbsent(row.sellerId(), id -> new long[1])[0] += MoneyUnits.toCents(row.income()));
+        this.transactionArchive.forEachInRange(startDate, endDate, transaction ->
+                incomeBySeller.computeIfAbsent(transaction.sellerId(), id -> new long[1])[0] += MoneyUnits.toCents(transaction.amount()));
+        return incomeBySeller;
+    }
+
+    private List<SellerIncomeInternalDto> findHotIncomeBySeller(LocalDateTime startDate, LocalDateTime endDate) {
+        return this.shardedTransactionStore.isEnabled()
+                ? this.shardedTransactionStore.findIncomeBySeller(startDate, endDate)
+                : this.transactionRepository.findIncomeBySeller(startDate, endDate);
+    }
+
+    private List<PaymentTypeIncomeInternalDto> findHotIncomeByPaymentType(LocalDateTime startDate, LocalDateTime endDate) {
+        return this.shardedTransactionStore.isEnabled()
+                ? this.shardedTransactionStore.findIncomeByPaymentType(startDate, endDate)
+                : this.transactionRepository.findIncomeByPaymentType(startDate, endDate);
+    }
+
+    private List<PaymentTypeIncomeInternalDto> findHotIncomeByPaymentTypeForSeller(Long sellerId,
+                                                                                   LocalDateTime startDate,
+                                                                                   LocalDateTime endDate) {
+        return this.shardedTransactionStore.isEnabled()
+                ? this.shardedTransactionStore.findIncomeByPaymentTypeForSeller(sellerId, startDate, endDate)
+                : this.transactionRepository.findIncomeByPaymentTypeForSeller(sellerId, startDate, endDate);
+    }
+
+    /**
+     * One date-ordered pass over the union of the periods, on the hot tier and then on the archive.
+     */
+    private PeriodIncomeAccumulator accumulateIncomeByPeriod(List<DateRangeDto> periods) {
+        var unionStart = periods.stream().map(DateRangeDto::startDate).min(Comparator.naturalOrder()).orElseThrow();
+        var unionEnd = periods.stream().map(DateRangeDto::endDate).max(Comparator.naturalOrder()).orElseThrow();
+        var accumulator = new PeriodIncomeAccumulator(periods);
+        if (this.shardedTransactionStore.isEnabled()) {
+            this.shardedTransactionStore.accumulateIncomeByPeriod(unionStart, unionEnd, () -> new PeriodIncomeAccumulator(periods))
+                    .forEach(accumulator::merge);
+        } else {
+            try (var rows = this.transactionRepository.streamIncomeOrderedByDate(unionStart, unionEnd)) {
+                rows.forEach(row -> accumulator.add(row.sellerId(), MoneyUnits.toCents(row.amount()), row.transactionDate()));
+            }
+        }
+        if (this.transactionArchive.overlaps(unionStart, unionEnd)) {
+            var archived = new PeriodIncomeAccumulator(periods);
+            this.transactionArchive.forEachInRange(unionStart, unionEnd, transaction ->
+                    archived.add(transaction.sellerId(), MoneyUnits.toCents(transaction.amount()), transaction.transactionDate()));
+            accumulator.merge(archived);
+        }
+        return accumulator;
+    }
+
+    private PeriodAnalyticsDto toPeriodAnalyticsDto(DateRangeDto period,
+                                                    Map<Long, long[]> incomeBySeller,
+                                                    Map<Long, Seller> activeSellers,
+                                                    BigDecimal incomeThreshold) {
+        var ranked = incomeBySeller.entrySet().stream()
+                .filter(entry -> activeSellers.containsKey(entry.getKey()))
+                .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> entry.getValue()[0]).reversed())
+                .toList();
+        SellerWithIncomeDto topSeller = null;
+        if (!ranked.isEmpty()) {
+            var top = ranked.getFirst();
+            topSeller = this.analyticsMapper.toDto(SellerWithIncomeInternalDto.builder()
+                    .seller(activeSellers.get(top.getKey()))
+                    .sumOfTransactionAmount(MoneyUnits.fromCents(top.getValue()[0]))
+                    .build());
+        }
+        List<SellerDto> sellersBelowThreshold = null;
+        if (incomeThreshold != null) {
+            long thresholdCents = MoneyUnits.toCents(incomeThreshold);
+            sellersBelowThreshold = ranked.stream()
+                    .filter(entry -> entry.getValue()[0] < thresholdCents)
+                    .map(entry -> this.sellerMapper.toDto(activeSellers.get(entry.getKey())))
+                    .toList();
+        }
+        return PeriodAnalyticsDto.builder()
+                .start(period.startDate())
+                .end(period.endDate())
+                .topSeller(topSeller)
+                .sellersWithIncomeLessThanThreshold(sellersBelowThreshold)
+                .build();
+    }
+
+    private PaymentBreakdownDto toPaymentBreakdownDto(PaymentTypeAccumulator accumulator,
+                                                      LocalDateTime startDate,
+                                                      LocalDateTime endDate,
+                                                      Long sellerId) {
+        var byPaymentType = Arrays.stream(PaymentType.values())
+                .map(paymentType -> PaymentTypeIncomeDto.builder()
+                        .paymentType(paymentType)
+                        .income(accumulator.income(paymentType))
+                        .transactionCount(accumulator.count(paymentType))
+                        .build())
+                .toList();
+        return PaymentBreakdownDto.builder()
+                .start(startDate)
+                .end(endDate)
+                .sellerId(sellerId)
+                .totalIncome(accumulator.totalIncome())
+                .totalTransactionCount(accumulator.totalCount())
+                .byPaymentType(byPaymentType)
+                .build();
+    }
 }
@@ -0,0 +1,320 @@
+package ru.cft.service.impl;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Service;
+import ru.cft.cache.SellerInvalidationBus;
+import ru.cft.configuration.ImportProperties;
+import ru.cft.csv.CsvLineParser;
+import ru.cft.dto.importing.ImportReportDto;
+import ru.cft.dto.importing.ImportRowErrorDto;
+import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.transaction.TransactionCreateDto;
+import ru.cft.enums.PaymentType;
+import ru.cft.exception.ImportFailedException;
+import ru.cft.ranking.SellerRankIndex;
+import ru.cft.search.SellerSearchIndex;
+import ru.cft.service.ImportService;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static ru.cft.csv.CsvLineParser.appendQuoted;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImportServiceImpl implements ImportService {
+    private static final String COPY_SELLERS =
+            "COPY seller (name, contact_info, registration_date) FROM STDIN WITH (FORMAT csv)";
+    private static final String CREATE_TRANSACTION_STAGING =
+            "CREATE TEMP TABLE transaction_import (" +
+                    "line_no bigint NOT NULL, " +
+                    "seller bigint NOT NULL, " +
+                    "amount numeric(38, 2) NOT NULL, " +
+                    "payment_type varchar(255) NOT NULL, " +
+                    "transaction_date timestamp(6) NOT NULL" +
+                    ") ON COMMIT DROP";
+    private static final String COPY_TRANSACTIONS =
+            "COPY transaction_import (line_no, seller, amount, payment_type, transaction_date) FROM STDIN WITH (FORMAT csv)";
+    private static final String SELECT_UNKNOWN_SELLERS =
+            "SELECT i.line_no, i.seller FROM transaction_import i " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM seller s WHERE s.id = i.seller AND s.deletion_requested_at IS NULL) " +
+                    "ORDER BY i.line_no";
+    private static final String INSERT_TRANSACTIONS =
+            "INSERT INTO transaction (seller, amount, payment_type, transaction_date) " +
+                    "SELECT i.seller, i.amount, i.payment_type, i.transaction_date FROM transaction_import i " +
+                    "JOIN seller s ON s.id = i.seller AND s.deletion_requested_at IS NULL";
+    private static final String SELECT_MAX_SELLER_ID = "SELECT coalesce(max(id), 0) FROM seller";
+    private static final String SELECT_COPIED_SELLERS =
+            "SELECT id, name, contact_info, registration_date FROM seller " +
+                    "WHERE id > ? AND xmin = pg_current_xact_id()::xid";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final DataSource dataSource;
+    private final Validator validator;
+    private final SellerSearchIndex sellerSearchIndex;
+    private final ImportProperties properties;
+    private final SellerInvalidationBus sellerInvalidationBus;
+    private final SellerRankIndex sellerRankIndex;
+    private final ShardedTransactionStore shardedTransactionStore;
+
+    /**
+     * Sellers copied by this import are read back inside the import transaction (rows created by it, above the
+     * highest id committed before the copy) and added to the search index once it commits.
+     */
+    @Override
+    public ImportReportDto importSellers(InputStream csv, boolean hasHeader) {
+        var registrationDate = TIMESTAMP_FORMAT.format(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        var lastIdBeforeCopy = new long[1];
+        var importedSellers = new ArrayList<SellerDto>();
+        var report = this.copy(csv, hasHeader, connection -> {
+            try (var statement = connection.createStatement();
+                 var maxId = statement.executeQuery(SELECT_MAX_SELLER_ID)) {
+                maxId.next();
+                lastIdBeforeCopy[0] = maxId.getLong(1);
+            }
+        }, COPY_SELLERS, (fields, line, out) -> {
+            requireColumns(fields, 2, 2, "name,contactInfo");
+            var dto = SellerCreateDto.builder()
+                    .name(fields.get(0))
+                    .contactInfo(fields.get(1))
+                    .build();
+            this.validate(dto);
+            appendQuoted(out, dto.name());
+            out.append(',');
+            appendQuoted(out, dto.contactInfo());
+            out.append(',').append(registrationDate).append('\n');
+        }, (connection, session) -> {
+            try (var statement = connection.prepareStatement(SELECT_COPIED_SELLERS)) {
+                statement.setLong(1, lastIdBeforeCopy[0]);
+                try (var sellers = statement.executeQuery()) {
+                    while (sellers.next()) {
+                        importedSellers.add(SellerDto.builder()
+                                .id(sellers.getLong("id"))
+                                .name(sellers.getString("name"))
+                                .contactInfo(sellers.getString("contact_info"))
+                                .registrationDate(sellers.getObject("registration_date", LocalDateTime.class))
+                                .build());
+                    }
+                }
+            }
+            return session.copiedRows;
+        });
+        this.sellerSearchIndex.upsertAll(importedSellers);
+        return report;
+    }
+
+    /**
+     * Transactions are copied into the primary database, which no read path consults while sharding is enabled,
+     * so the import is refused instead of reporting rows that could never be read.
+     */
+    @Override
+    public ImportReportDto importTransactions(InputStream csv, boolean hasHeader) {
+        if (this.shardedTransactionStore.isEnabled()) {
+            throw new ImportFailedException("Transaction import is not supported while sharding is enabled");
+        }
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        var report = this.copy(csv, hasHeader, connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute(CREATE_TRANSACTION_STAGING);
+            }
+        }, COPY_TRANSACTIONS, (fields, line, out) -> {
+            requireColumns(fields, 3, 4, "sellerId,amount,paymentType[,transactionDate]");
+            var dto = TransactionCreateDto.builder()
+                    .sellerId(parse(fields.get(0), "sellerId", Long::valueOf))
+                    .amount(parse(fields.get(1), "amount", BigDecimal::new))
+                    .paymentType(parse(fields.get(2), "paymentType", value -> PaymentType.valueOf(value.toUpperCase(Locale.ROOT))))
+                    .build();
+            var transactionDate = fields.size() == 4 && !fields.get(3).isBlank()
+                    ? parse(fields.get(3), "transactionDate", LocalDateTime::parse)
+                    : now;
+            this.validate(dto);
+            out.append(line).append(',')
+                    .append(dto.sellerId()).append(',')
+                    .append(dto.amount().toPlainString()).append(',')
+                    .append(dto.paymentType().name()).append(',')
+                    .append(TIMESTAMP_FORMAT.format(transactionDate)).append('\n');
+        }, (connection, session) -> {
+            try (var statement = connection.createStatement();
+                 var unknownSellers = statement.executeQuery(SELECT_UNKNOWN_SELLERS)) {
+                while (unknownSellers.next()) {
+                    session.reject(unknownSellers.getLong(1),
+                            String.format("There is no seller with id %d", unknownSellers.getLong(2)));
+                }
+            }
+            try (var statement = connection.createStatement()) {
+                return statement.executeUpdate(INSERT_TRANSACTIONS);
+            }
+        });
+        if (report.importedRows() > 0) {
+            this.sellerInvalidationBus.publishIncomeCleared();
+            this.sellerRankIndex.reload();
+        }
+        return report;
+    }
+
+    private ImportReportDto copy(InputStream csv, boolean hasHeader, BeforeCopy beforeCopy, String copySql,
+                                 RowWriter rowWriter, AfterCopy afterCopy) {
+        var session = new ImportSession(this.properties.maxReportedErrors());
+        long started = System.nanoTime();
+        try (var connection = this.dataSource.getConnection();
+             var reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            connection.setAutoCommit(false);
+            try {
+                beforeCopy.prepare(connection);
+                var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+                try {
+                    this.streamRows(reader, hasHeader, rowWriter, copyIn, session);
+                    session.copiedRows = copyIn.endCopy();
+                } finally {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                }
+                session.importedRows = afterCopy.finish(connection, session);
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            log.error("Import failed after {} rows", session.totalRows, e);
+            throw new ImportFailedException("Import failed: " + e.getMessage(), e);
+        }
+        log.info("Imported {} of {} rows, rejected={}, took={}ms", session.importedRows, session.totalRows,
+                session.rejectedRows, (System.nanoTime() - started) / 1_000_000);
+        return session.toDto();
+    }
+
+    private void streamRows(BufferedReader reader, boolean hasHeader, RowWriter rowWriter, CopyIn copyIn,
+                            ImportSession session) throws IOException, SQLException {
+        var buffer = new StringBuilder(this.properties.copyBufferSize());
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if ((hasHeader && lineNumber == 1) || line.isBlank()) {
+                continue;
+            }
+            session.totalRows++;
+            int rollbackTo = buffer.length();
+            try {
+                rowWriter.write(CsvLineParser.parse(line), lineNumber, buffer);
+            } catch (IllegalArgumentException e) {
+                buffer.setLength(rollbackTo);
+                session.reject(lineNumber, e.getMessage());
+                continue;
+            }
+            if (buffer.length() >= this.properties.copyBufferSize()) {
+                flush(buffer, copyIn);
+            }
+        }
+        flush(buffer, copyIn);
+    }
+
+    private static void flush(StringBuilder buffer, CopyIn copyIn) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        var bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private void validate(Object dto) {
+        var violations = this.validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> String.format("field `%s` %s", violation.getPropertyPath(), violation.getMessage()))
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static void requireColumns(List<String> fields, int min, int max, String expected) {
+        if (fields.size() < min || fields.size() > max) {
+            throw new IllegalArgumentException("expected columns " + expected + " but got " + fields.size());
+        }
+    }
+
+    private static <T> T parse(String value, String field, Function<String, T> parser) {
+        if (value.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("field `%s` has invalid value '%s'", field, value));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("field `%s` has unknown value '%s'", field, value));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(List<String> fields, long line, StringBuilder out);
+    }
+
+    @FunctionalInterface
+    private interface BeforeCopy {
+        void prepare(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface AfterCopy {
+        long finish(Connection connection, ImportSession session) throws SQLException;
+    }
+
+    private static final class ImportSession {
+        private final int maxReportedErrors;
+        private final List<ImportRowErrorDto> errors = new ArrayList<>();
+        private long totalRows;
+        private long rejectedRows;
+        private long copiedRows;
+        private long importedRows;
+
+        private ImportSession(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void reject(long line, String message) {
+            this.rejectedRows++;
+            if (this.errors.size() < this.maxReportedErrors) {
+                this.errors.add(new ImportRowErrorDto(line, message));
+            }
+        }
+
+        private ImportReportDto toDto() {
+            return ImportReportDto.builder()
+                    .totalRows(this.totalRows)
+                    .importedRows(this.importedRows)
+                    .rejectedRows(this.rejectedRows)
+                    .errors(this.errors.stream().sorted(Comparator.comparingLong(ImportRowErrorDto::line)).toList())
+                    .errorsTruncated(this.rejectedRows > this.errors.size())
+                    .build();
+        }
+    }
+}
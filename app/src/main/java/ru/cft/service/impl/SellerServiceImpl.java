@@ -3,38 +3,101 @@ package ru.cft.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.cft.cache.SellerCache;
+import ru.cft.cache.SellerInvalidationBus;
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.seller.SellerLookupDto;
 import ru.cft.dto.seller.SellerPatchDto;
 import ru.cft.dto.seller.SellerUpdateDto;
 import ru.cft.entity.Seller;
+import ru.cft.entity.SellerDeletion;
+import ru.cft.enums.SellerDeletionStatus;
 import ru.cft.exception.ResourceNotFoundException;
 import ru.cft.mapper.SellerMapper;
+import ru.cft.repository.SellerDeletionRepository;
 import ru.cft.repository.SellerRepository;
+import ru.cft.search.SellerSearchIndex;
 import ru.cft.service.SellerService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SellerServiceImpl implements SellerService {
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final SellerRepository sellerRepository;
+    private final SellerDeletionRepository sellerDeletionRepository;
     private final SellerMapper sellerMapper;
+    private final SellerSearchIndex sellerSearchIndex;
+    private final SellerCache sellerCache;
+    private final SellerInvalidationBus sellerInvalidationBus;
 
     @Override
     public List<SellerDto> findAll() {
-        var sellers = this.sellerRepository.findAll();
+        var sellers = this.sellerRepository.findAllActive();
         log.debug("sellers={}", sellers);
         return sellers.stream().map(this.sellerMapper::toDto).toList();
     }
 
     @Override
     public SellerDto findById(Long id) {
+        var cached = this.sellerCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = this.sellerCache.generation();
         var seller = this.findEntityById(id);
         log.debug("seller={}", seller);
-        return this.sellerMapper.toDto(seller);
+        var sellerDto = this.sellerMapper.toDto(seller);
+        this.sellerCache.put(id, sellerDto, generation);
+        return sellerDto;
+    }
+
+    @Override
+    public SellerLookupDto lookup(List<Long> ids) {
+        var requested = new LinkedHashSet<>(ids);
+        var found = HashMap.<Long, SellerDto>newHashMap(requested.size());
+        var uncached = new ArrayList<Long>();
+        for (var id : requested) {
+            var cached = this.sellerCache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        long generation = this.sellerCache.generation();
+        for (int from = 0; from < uncached.size(); from += LOOKUP_CHUNK_SIZE) {
+            var chunk = uncached.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, uncached.size()));
+            for (var seller : this.sellerRepository.findAllActiveByIdIn(chunk)) {
+                var sellerDto = this.sellerMapper.toDto(seller);
+                found.put(seller.getId(), sellerDto);
+                this.sellerCache.put(seller.getId(), sellerDto, generation);
+            }
+        }
+        log.debug("Looked up {} sellers: {} cached, {} found", requested.size(), requested.size() - uncached.size(), found.size());
+
+        var result = new ArrayList<SellerDto>(found.size());
+        var missing = new ArrayList<Long>();
+        for (var id : requested) {
+            var sellerDto = found.get(id);
+            if (sellerDto != null) {
+                result.add(sellerDto);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new SellerLookupDto(result, missing);
     }
 
     @Override
@@ -44,42 +107,90 @@ public class SellerServiceImpl implements SellerService {
         log.debug("enriched seller={}", seller);
         var createdSeller = this.sellerRepository.save(seller);
         log.debug("createdSeller={}", createdSeller);
-        return this.sellerMapper.toDto(createdSeller);
+        var createdSellerDto = this.sellerMapper.toDto(createdSeller);
+        this.sellerSearchIndex.upsert(createdSellerDto);
+        return createdSellerDto;
     }
 
     @Override
     public void deleteById(Long id) {
-        var seller = this.findEntityById(id);
-        log.debug("seller={}", seller);
-        this.sellerRepository.deleteById(seller.getId());
+        if (this.sellerRepository.deleteActiveById(id) == 0) {
+            var errorMessage = String.format("There is no seller with id %d", id);
+            throw new ResourceNotFoundException(errorMessage);
+        }
+        this.sellerSearchIndex.remove(id);
+        this.sellerInvalidationBus.publish(id);
+    }
+
+    @Override
+    @Transactional
+    public SellerDeletionDto requestDeletion(Long id) {
+        var requestedAt = LocalDateTime.now();
+        if (this.sellerRepository.markDeletionRequested(id, requestedAt) == 0) {
+            var errorMessage = String.format("There is no seller with id %d", id);
+            throw new ResourceNotFoundException(errorMessage);
+        }
+        var deletion = this.sellerDeletionRepository.save(SellerDeletion.builder()
+                .sellerId(id)
+                .status(SellerDeletionStatus.IN_PROGRESS)
+                .requestedAt(requestedAt)
+                .build());
+        log.debug("deletion={}", deletion);
+        this.sellerSearchIndex.remove(id);
+        this.sellerInvalidationBus.publish(id);
+        return this.sellerMapper.toDeletionDto(deletion);
+    }
+
+    @Override
+    public SellerDeletionDto findDeletion(Long sellerId) {
+        var deletion = this.sellerDeletionRepository.findById(sellerId)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no deletion of seller with id %d", sellerId)));
+        return this.sellerMapper.toDeletionDto(deletion);
     }
 
     @Override
     public SellerDto put(SellerUpdateDto sellerUpdateDto) {
-        var seller = this.findEntityById(sellerUpdateDto.id());
-        log.debug("seller={}", seller);
-        this.sellerMapper.updateEntity(sellerUpdateDto, seller);
-        var updatedSeller = this.sellerRepository.save(seller);
+        var updatedSeller = this.sellerRepository.updateActive(sellerUpdateDto.id(), sellerUpdateDto.name(), sellerUpdateDto.contactInfo())
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no seller with id %d", sellerUpdateDto.id())));
         log.debug("updatedSeller={}", updatedSeller);
-        return this.sellerMapper.toDto(updatedSeller);
+        var updatedSellerDto = this.sellerMapper.toDto(updatedSeller);
+        this.sellerSearchIndex.upsert(updatedSellerDto);
+        this.sellerInvalidationBus.publish(updatedSellerDto.id());
+        return updatedSellerDto;
     }
 
     @Override
     public SellerDto patch(SellerPatchDto sellerPatchDto) {
-        var seller = this.findEntityById(sellerPatchDto.id());
-        log.debug("seller={}", seller);
-        this.sellerMapper.patchEntity(sellerPatchDto, seller);
-        var patchedSeller = this.sellerRepository.save(seller);
+        var patchedSeller = this.sellerRepository.patchActive(sellerPatchDto.id(), sellerPatchDto.name(), sellerPatchDto.contactInfo())
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no seller with id %d", sellerPatchDto.id())));
         log.debug("patchedSeller={}", patchedSeller);
-        return this.sellerMapper.toDto(patchedSeller);
+        var patchedSellerDto = this.sellerMapper.toDto(patchedSeller);
+        this.sellerSearchIndex.upsert(patchedSellerDto);
+        this.sellerInvalidationBus.publish(patchedSellerDto.id());
+        return patchedSellerDto;
     }
 
     @Override
     public Seller findEntityById(Long id) {
-        return this.sellerRepository.findById(id).orElseThrow(() -> {
-            var errorMessage = String.format("There is no seller with id %d", id);
-            log.error(errorMessage);
-            return new ResourceNotFoundException(errorMessage);
-        });
+        return this.sellerRepository.findActiveById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no seller with id %d", id)));
+    }
+
+    @Override
+    public List<Seller> findEntitiesByIds(Collection<Long> ids) {
+        var requested = List.copyOf(ids);
+        var sellers = new ArrayList<Seller>(requested.size());
+        for (int from = 0; from < requested.size(); from += LOOKUP_CHUNK_SIZE) {
+            var chunk = requested.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, requested.size()));
+            sellers.addAll(this.sellerRepository.findAllActiveByIdIn(chunk));
+        }
+        return sellers;
+    }
+
+    @Override
+    public List<SellerDto> search(String query, int limit) {
+        var sellers = this.sellerSearchIndex.search(query, limit);
+        log.debug("query={}, sellers={}", query, sellers);
+        return sellers;
     }
 }
@@ -3,40 +3,127 @@ package ru.cft.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.anomaly.TransactionAnomalyDetector;
+import ru.cft.archive.ArchivedTransaction;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.cache.TransactionCache;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.transaction.IngestionStatusDto;
 import ru.cft.dto.transaction.TransactionCreateDto;
 import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.dto.transaction.TransactionListDto;
+import ru.cft.dto.transaction.TransactionLookupDto;
+import ru.cft.dto.transaction.TransactionRowDto;
+import ru.cft.entity.Seller;
 import ru.cft.entity.Transaction;
+import ru.cft.enums.FeedOverflowPolicy;
+import ru.cft.enums.IngestionState;
 import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.feed.FeedPosition;
+import ru.cft.feed.TransactionFeed;
+import ru.cft.ingest.TransactionIngestion;
+import ru.cft.leaderboard.LeaderboardPublisher;
 import ru.cft.mapper.TransactionMapper;
+import ru.cft.projection.TransactionProjection;
+import ru.cft.projection.TransactionProjectionQuery;
+import ru.cft.ranking.SellerRankIndex;
 import ru.cft.repository.TransactionRepository;
 import ru.cft.service.SellerService;
 import ru.cft.service.TransactionService;
+import ru.cft.sharding.ShardTransaction;
+import ru.cft.sharding.ShardedTransactionStore;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
     private final SellerService sellerService;
+    private final TransactionArchive transactionArchive;
+    private final LeaderboardPublisher leaderboardPublisher;
+    private final TransactionFeed transactionFeed;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final SellerRankIndex sellerRankIndex;
+    private final TransactionAnomalyDetector transactionAnomalyDetector;
+    private final TransactionIngestion transactionIngestion;
+    private final TransactionProjectionQuery transactionProjectionQuery;
+    private final TransactionCache transactionCache;
 
     @Override
     public List<TransactionDto> findAll() {
-        var transactions = this.transactionRepository.findAll();
-        return transactions.stream().map(this.transactionMapper::toDto).toList();
+        var transactions = this.findHotTransactions();
+        var archivedTransactions = this.transactionArchive.findAll();
+        if (archivedTransactions.isEmpty()) {
+            return transactions.stream().map(this.transactionMapper::toDto).toList();
+        }
+        var result = new ArrayList<TransactionDto>(transactions.size() + archivedTransactions.size());
+        this.appendArchived(archivedTransactions, result);
+        transactions.forEach(transaction -> result.add(this.transactionMapper.toDto(transaction)));
+        return result;
     }
 
     @Override
     public TransactionDto findById(Long id) {
-        var transaction = this.transactionRepository.findById(id).orElseThrow(() -> {
-            var errorMessage = String.format("There is no transaction with id %d", id);
-            log.error(errorMessage);
-            return new ResourceNotFoundException(errorMessage);
-        });
-        return this.transactionMapper.toDto(transaction);
+        var cached = this.findCachedTransaction(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        var transactionDto = this.findUncachedTransaction(id);
+        this.transactionCache.put(transactionDto);
+        return transactionDto;
+    }
+
+    @Override
+    public TransactionLookupDto lookup(List<Long> ids) {
+        var requested = new LinkedHashSet<>(ids);
+        var found = HashMap.<Long, TransactionDto>newHashMap(requested.size());
+        var requestedIds = List.copyOf(requested);
+        for (int from = 0; from < requestedIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            var chunk = requestedIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, requestedIds.size()));
+            this.findHotTransactions(chunk).forEach(transaction ->
+                    found.put(transaction.getId(), this.transactionMapper.toDto(transaction)));
+        }
+        var notHot = requested.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toSet());
+        if (!notHot.isEmpty()) {
+            var archivedTransactions = this.transactionArchive.findByIds(notHot);
+            var sellers = this.findSellers(archivedTransactions.stream().map(ArchivedTransaction::sellerId).collect(Collectors.toSet()));
+            for (var transaction : archivedTransactions) {
+                var seller = sellers.get(transaction.sellerId());
+                if (seller != null) {
+                    found.put(transaction.id(), this.transactionMapper.toDto(transaction, seller));
+                }
+            }
+        }
+        log.debug("Looked up {} transactions: {} found", requested.size(), found.size());
+
+        var result = new ArrayList<TransactionDto>(found.size());
+        var missing = new ArrayList<Long>();
+        for (var id : requested) {
+            var transactionDto = found.get(id);
+            if (transactionDto != null) {
+                result.add(transactionDto);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new TransactionLookupDto(result, missing);
     }
 
     @Override
@@ -47,14 +134,203 @@ public class TransactionServiceImpl implements TransactionService {
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setSeller(seller);
 
-        var createdTransaction = this.transactionRepository.save(transaction);
-        return this.transactionMapper.toDto(createdTransaction);
+        var createdTransaction = this.saveHotTransaction(transaction);
+        return this.publishCreated(createdTransaction);
+    }
+
+    @Override
+    public IngestionStatusDto ingest(TransactionCreateDto transactionCreateDto) {
+        return this.transactionIngestion.accept(transactionCreateDto);
+    }
+
+    @Override
+    public IngestionStatusDto findIngestionStatus(UUID trackingId) {
+        return this.transactionIngestion.findStatus(trackingId)
+                .or(() -> this.transactionRepository.findIdByTrackingId(trackingId)
+                        .map(id -> IngestionStatusDto.builder()
+                                .trackingId(trackingId)
+                                .state(IngestionState.INSERTED)
+                                .transactionId(id)
+                                .build()))
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no ingested transaction with tracking id %s", trackingId)));
+    }
+
+    @Override
+    public void publishIngested(List<Transaction> transactions) {
+        transactions.forEach(this::publishCreated);
     }
 
     @Override
     public List<TransactionDto> findBySellerId(Long sellerId) {
-        this.sellerService.findEntityById(sellerId);
-        List<Transaction> transactions = this.transactionRepository.findAllBySellerId(sellerId);
-        return transactions.stream().map(this.transactionMapper::toDto).toList();
+        var seller = this.sellerService.findEntityById(sellerId);
+        List<Transaction> transactions = this.findHotTransactions(seller);
+        var archivedTransactions = this.transactionArchive.findBySellerId(sellerId);
+        if (archivedTransactions.isEmpty()) {
+            return transactions.stream().map(this.transactionMapper::toDto).toList();
+        }
+        var result = new ArrayList<TransactionDto>(transactions.size() + archivedTransactions.size());
+        archivedTransactions.forEach(transaction -> result.add(this.transactionMapper.toDto(transaction, seller)));
+        transactions.forEach(transaction -> result.add(this.transactionMapper.toDto(transaction)));
+        return result;
+    }
+
+    @Override
+    public TransactionListDto findAll(TransactionProjection projection) {
+        var rows = new ArrayList<TransactionRowDto>();
+        var archivedTransactions = this.transactionArchive.findAll();
+        if (!archivedTransactions.isEmpty()) {
+            var pendingDeletion = this.transactionProjectionQuery.findSellerIdsPendingDeletion();
+            archivedTransactions.stream()
+                    .filter(transaction -> !pendingDeletion.contains(transaction.sellerId()))
+                    .forEach(transaction -> rows.add(projection.project(transaction)));
+        }
+        rows.addAll(this.transactionProjectionQuery.findAll(projection));
+        if (!projection.needsSellers()) {
+            return new TransactionListDto(rows, null);
+        }
+        var sellerIds = rows.stream().map(TransactionRowDto::sellerId).distinct().toList();
+        var sellers = this.sellerService.lookup(sellerIds).found().stream()
+                .collect(Collectors.toMap(SellerDto::id, Function.identity(), (first, second) -> first, LinkedHashMap::new));
+        return this.withSellers(rows, sellers, projection);
+    }
+
+    @Override
+    public TransactionListDto findBySellerId(Long sellerId, TransactionProjection projection) {
+        var seller = this.sellerService.findById(sellerId);
+        var rows = new ArrayList<TransactionRowDto>();
+        this.transactionArchive.findBySellerId(sellerId).forEach(transaction -> rows.add(projection.project(transaction)));
+        rows.addAll(this.transactionProjectionQuery.findBySellerId(sellerId, projection));
+        if (!projection.needsSellers()) {
+            return new TransactionListDto(rows, null);
+        }
+        return this.withSellers(rows, Map.of(sellerId, seller), projection);
+    }
+
+    @Override
+    public List<TransactionDto> findRecentAnomalies(int limit) {
+        return this.transactionAnomalyDetector.findRecent(limit);
+    }
+
+    @Override
+    public SseEmitter subscribeToFeed(FeedPosition lastEvent, FeedOverflowPolicy overflowPolicy) {
+        return this.transactionFeed.subscribe(lastEvent, overflowPolicy);
+    }
+
+    private TransactionDto publishCreated(Transaction createdTransaction) {
+        this.leaderboardPublisher.record(createdTransaction);
+        this.sellerRankIndex.record(createdTransaction);
+        var createdTransactionDto = this.transactionMapper.toDto(createdTransaction);
+        this.transactionCache.put(createdTransactionDto);
+        var anomalyScore = this.transactionAnomalyDetector.score(createdTransaction.getSeller().getId(), createdTransaction.getAmount());
+        if (anomalyScore.isPresent()) {
+            createdTransactionDto = createdTransactionDto.toBuilder().anomalyScore(anomalyScore.getAsDouble()).build();
+            this.transactionAnomalyDetector.recordIfAnomalous(createdTransactionDto);
+        }
+        this.transactionFeed.publish(createdTransactionDto);
+        return createdTransactionDto;
+    }
+
+    /**
+     * A cached transaction is returned only while its seller is active; otherwise the regular lookup decides.
+     */
+    private Optional<TransactionDto> findCachedTransaction(Long id) {
+        var transaction = this.transactionCache.get(id);
+        if (transaction == null) {
+            return Optional.empty();
+        }
+        return this.sellerService.lookup(List.of(transaction.sellerId())).found().stream()
+                .findFirst()
+                .map(seller -> TransactionDto.builder()
+                        .id(transaction.id())
+                        .seller(seller)
+                        .amount(transaction.amount())
+                        .paymentType(transaction.paymentType())
+                        .transactionDate(transaction.transactionDate())
+                        .build());
+    }
+
+    private TransactionDto findUncachedTransaction(Long id) {
+        var transaction = this.findHotTransaction(id);
+        if (transaction.isPresent()) {
+            return this.transactionMapper.toDto(transaction.get());
+        }
+        var archivedTransaction = this.transactionArchive.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("There is no transaction with id %d", id)));
+        var seller = this.sellerService.findEntityById(archivedTransaction.sellerId());
+        return this.transactionMapper.toDto(archivedTransaction, seller);
+    }
+
+    private Transaction saveHotTransaction(Transaction transaction) {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            return this.transactionRepository.save(transaction);
+        }
+        var shardTransaction = this.shardedTransactionStore.insert(transaction.getSeller().getId(),
+                transaction.getAmount(), transaction.getPaymentType(), transaction.getTransactionDate());
+        transaction.setId(shardTransaction.id());
+        return transaction;
+    }
+
+    private Optional<Transaction> findHotTransaction(Long id) {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            return this.transactionRepository.findActiveById(id);
+        }
+        return this.shardedTransactionStore.findById(id).map(shardTransaction ->
+                this.transactionMapper.toEntity(shardTransaction, this.sellerService.findEntityById(shardTransaction.sellerId())));
+    }
+
+    private List<Transaction> findHotTransactions(Seller seller) {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            return this.transactionRepository.findAllBySellerId(seller.getId());
+        }
+        return this.shardedTransactionStore.findBySellerId(seller.getId()).stream()
+                .map(shardTransaction -> this.transactionMapper.toEntity(shardTransaction, seller))
+                .toList();
+    }
+
+    private List<Transaction> findHotTransactions(List<Long> ids) {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            return this.transactionRepository.findAllActiveByIdIn(ids);
+        }
+        var shardTransactions = this.shardedTransactionStore.findByIds(ids);
+        var sellers = this.findSellers(shardTransactions.stream().map(ShardTransaction::sellerId).collect(Collectors.toSet()));
+        return shardTransactions.stream()
+                .filter(shardTransaction -> sellers.containsKey(shardTransaction.sellerId()))
+                .map(shardTransaction -> this.transactionMapper.toEntity(shardTransaction, sellers.get(shardTransaction.sellerId())))
+                .toList();
+    }
+
+    private List<Transaction> findHotTransactions() {
+        if (!this.shardedTransactionStore.isEnabled()) {
+            return this.transactionRepository.findAllActive();
+        }
+        var shardTransactions = this.shardedTransactionStore.findAll();
+        var sellers = this.findSellers(shardTransactions.stream().map(ShardTransaction::sellerId).collect(Collectors.toSet()));
+        return shardTransactions.stream()
+                .filter(shardTransaction -> sellers.containsKey(shardTransaction.sellerId()))
+                .map(shardTransaction -> this.transactionMapper.toEntity(shardTransaction, sellers.get(shardTransaction.sellerId())))
+                .toList();
+    }
+
+    private Map<Long, Seller> findSellers(Set<Long> sellerIds) {
+        return this.sellerService.findEntitiesByIds(sellerIds).stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+    }
+
+    private TransactionListDto withSellers(List<TransactionRowDto> rows, Map<Long, SellerDto> sellers, TransactionProjection projection) {
+        var result = rows.stream()
+                .filter(row -> sellers.containsKey(row.sellerId()))
+                .map(row -> projection.withSeller(row, sellers.get(row.sellerId())))
+                .toList();
+        return new TransactionListDto(result, projection.includeSellers() ? sellers : null);
+    }
+
+    private void appendArchived(List<ArchivedTransaction> archivedTransactions, List<TransactionDto> result) {
+        var sellers = this.findSellers(archivedTransactions.stream().map(ArchivedTransaction::sellerId).collect(Collectors.toSet()));
+        for (var transaction : archivedTransactions) {
+            var seller = sellers.get(transaction.sellerId());
+            if (seller != null) {
+                result.add(this.transactionMapper.toDto(transaction, seller));
+            }
+        }
     }
 }
@@ -0,0 +1,213 @@
+package ru.cft.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.cft.aggregation.MoneyUnits;
+import ru.cft.aggregation.PeriodIncomeAccumulator;
+import ru.cft.configuration.ShardingProperties;
+import ru.cft.dto.PaymentTypeIncomeInternalDto;
+import ru.cft.dto.SellerIncomeInternalDto;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Transaction queries against {@link TransactionShards}. Single-seller and single-transaction queries are
+ * routed to one shard; aggregates are computed per shard and merged here. Because a seller never spans
+ * shards, per-seller partial sums are already final.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardedTransactionStore {
+    private static final String COLUMNS = "id, seller, amount, payment_type, transaction_date";
+    private static final RowMapper<ShardTransaction> TRANSACTION = (rs, rowNum) -> new ShardTransaction(
+            rs.getLong("id"),
+            rs.getLong("seller"),
+            rs.getBigDecimal("amount"),
+            PaymentType.valueOf(rs.getString("payment_type")),
+            rs.getObject("transaction_date", LocalDateTime.class)
+    );
+    private static final RowMapper<SellerIncomeInternalDto> SELLER_INCOME = (rs, rowNum) -> new SellerIncomeInternalDto(
+            rs.getLong("seller"),
+            rs.getBigDecimal("income")
+    );
+    private static final RowMapper<PaymentTypeIncomeInternalDto> PAYMENT_TYPE_INCOME = (rs, rowNum) -> new PaymentTypeIncomeInternalDto(
+            PaymentType.valueOf(rs.getString("payment_type")),
+            rs.getBigDecimal("income"),
+            rs.getLong("transaction_count")
+    );
+    private static final Comparator<SellerIncomeInternalDto> BY_INCOME_DESC =
+            Comparator.comparing(SellerIncomeInternalDto::income).reversed();
+
+    private final TransactionShards shards;
+    private final ShardingProperties properties;
+
+    public boolean isEnabled() {
+        return this.shards.isEnabled();
+    }
+
+    public ShardTransaction insert(long sellerId, BigDecimal amount, PaymentType paymentType, LocalDateTime transactionDate) {
+        int shardIndex = this.shards.shardOfSeller(sellerId);
+        var id = this.shards.shard(shardIndex).queryForObject(
+                "INSERT INTO transaction (" + COLUMNS + ") " +
+                        "VALUES (nextval('transaction_shard_seq') * ? + ?, ?, ?, ?, ?) RETURNING id",
+                Long.class,
+                this.shards.count(), shardIndex, sellerId, amount, paymentType.name(), transactionDate);
+        return new ShardTransaction(id, sellerId, amount, paymentType, transactionDate);
+    }
+
+    public Optional<ShardTransaction> findById(long id) {
+        return this.shards.shard(this.shards.shardOfTransaction(id))
+                .query("SELECT " + COLUMNS + " FROM transaction WHERE id = ?", TRANSACTION, id)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Groups the ids by the shard that owns them and fetches each group with a single {@code = ANY(array)} query.
+     */
+    public List<ShardTransaction> findByIds(Collection<Long> ids) {
+        var idsByShard = new HashMap<Integer, List<Long>>();
+        for (var id : ids) {
+            idsByShard.computeIfAbsent(this.shards.shardOfTransaction(id), shardIndex -> new ArrayList<>()).add(id);
+        }
+        var result = new ArrayList<ShardTransaction>(ids.size());
+        idsByShard.forEach((shardIndex, shardIds) -> result.addAll(this.shards.shard(shardIndex).query(
+                "SELECT " + COLUMNS + " FROM transaction WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", shardIds.toArray())),
+                TRANSACTION)));
+        return result;
+    }
+
+    public List<ShardTransaction> findBySellerId(long sellerId) {
+        return this.shards.shard(this.shards.shardOfSeller(sellerId))
+                .query("SELECT " + COLUMNS + " FROM transaction WHERE seller = ? ORDER BY id", TRANSACTION, sellerId);
+    }
+
+    public List<ShardTransaction> findAll() {
+        return this.shards.scatter(shard -> shard.query("SELECT " + COLUMNS + " FROM transaction", TRANSACTION))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    public List<ShardTransaction> findSince(LocalDateTime since) {
+        return this.shards.scatter(shard -> shard.query(
+                        "SELECT " + COLUMNS + " FROM transaction WHERE transaction_date >= ?", TRANSACTION, since))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * The {@code limit} lowest ids above {@code afterId} across all shards. Each shard returns its own lowest ones,
+     * which is enough to cut the merged list at the limit.
+     */
+    public List<ShardTransaction> findAfterId(long afterId, int limit) {
+        return this.shards.scatter(shard -> shard.query(
+                        "SELECT " + COLUMNS + " FROM transaction WHERE id > ? ORDER BY id LIMIT ?", TRANSACTION, afterId, limit))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(ShardTransaction::id))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Top {@code crm.sharding.top-candidates} sellers of every shard, merged and ordered by income descending.
+     * The global leader is the first of them, unless it has been deleted in the meantime.
+     */
+    public List<SellerIncomeInternalDto> findTopSellers(LocalDateTime start, LocalDateTime end) {
+        return this.shards.scatter(shard -> shard.query(
+                        "SELECT seller, sum(amount) AS income FROM transaction " +
+                                "WHERE transaction_date BETWEEN ? AND ? " +
+                                "GROUP BY seller ORDER BY income DESC LIMIT ?",
+                        SELLER_INCOME, start, end, this.properties.topCandidates()))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(BY_INCOME_DESC)
+                .toList();
+    }
+
+    public List<SellerIncomeInternalDto> findIncomeBySeller(LocalDateTime start, LocalDateTime end) {
+        return this.shards.scatter(shard -> shard.query(
+                        "SELECT seller, sum(amount) AS income FROM transaction " +
+                                "WHERE transaction_date BETWEEN ? AND ? GROUP BY seller",
+                        SELLER_INCOME, start, end))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Streams each shard's transactions of the range in date order into its own accumulator, on a cursor
+     * so no shard result is held in memory. Sellers do not span shards, so the accumulators can simply be merged.
+     */
+    public List<PeriodIncomeAccumulator> accumulateIncomeByPeriod(LocalDateTime start,
+                                                                  LocalDateTime end,
+                                                                  Supplier<PeriodIncomeAccumulator> accumulatorFactory) {
+        return this.shards.scatter(shard -> shard.execute((ConnectionCallback<PeriodIncomeAccumulator>) connection -> {
+            var accumulator = accumulatorFactory.get();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(
+                    "SELECT seller, amount, transaction_date FROM transaction " +
+                            "WHERE transaction_date BETWEEN ? AND ? ORDER BY transaction_date")) {
+                statement.setFetchSize(this.properties.fetchSize());
+                statement.setObject(1, start);
+                statement.setObject(2, end);
+                try (var rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        accumulator.add(rs.getLong(1), MoneyUnits.toCents(rs.getBigDecimal(2)),
+                                rs.getObject(3, LocalDateTime.class));
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return accumulator;
+        }));
+    }
+
+    public List<PaymentTypeIncomeInternalDto> findIncomeByPaymentType(LocalDateTime start, LocalDateTime end) {
+        return this.shards.scatter(shard -> shard.query(
+                        "SELECT payment_type, sum(amount) AS income, count(*) AS transaction_count FROM transaction " +
+                                "WHERE transaction_date BETWEEN ? AND ? GROUP BY payment_type",
+                        PAYMENT_TYPE_INCOME, start, end))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    public List<PaymentTypeIncomeInternalDto> findIncomeByPaymentTypeForSeller(long sellerId, LocalDateTime start, LocalDateTime end) {
+        return this.shards.shard(this.shards.shardOfSeller(sellerId)).query(
+                "SELECT payment_type, sum(amount) AS income, count(*) AS transaction_count FROM transaction " +
+                        "WHERE seller = ? AND transaction_date BETWEEN ? AND ? GROUP BY payment_type",
+                PAYMENT_TYPE_INCOME, sellerId, start, end);
+    }
+
+    public Long findChunkUpperBound(long sellerId, long afterId, int chunkSize) {
+        return this.shards.shard(this.shards.shardOfSeller(sellerId)).queryForObject(
+                "SELECT max(chunk.id) FROM (" +
+                        "SELECT id FROM transaction WHERE seller = ? AND id > ? ORDER BY id LIMIT ?" +
+                        ") chunk",
+                Long.class, sellerId, afterId, chunkSize);
+    }
+
+    public int deleteBySellerIdAndIdRange(long sellerId, long afterId, long upToId) {
+        return this.shards.shard(this.shards.shardOfSeller(sellerId)).update(
+                "DELETE FROM transaction WHERE seller = ? AND id > ? AND id <= ?",
+                sellerId, afterId, upToId);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.cft.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.ShardingProperties;
+import ru.cft.configuration.StatementStatisticsProperties;
+import ru.cft.pool.InstrumentedDataSource;
+import ru.cft.sql.StatementStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Connection pools of the transaction shards. A seller's transactions all live on the shard chosen by
+ * a hash of the seller id; transaction ids are allocated as {@code sequence * shardCount + shardIndex},
+ * so the shard of a transaction is recoverable from its id alone. With SQL statement statistics enabled the pools
+ * count their statements into the statistics of the request, including queries scattered to worker threads.
+ */
+@Component
+@Slf4j
+public class TransactionShards {
+    private static final List<String> SCHEMA = List.of(
+            "CREATE SEQUENCE IF NOT EXISTS transaction_shard_seq",
+            "CREATE TABLE IF NOT EXISTS transaction (" +
+                    "id bigint PRIMARY KEY, " +
+                    "seller bigint NOT NULL, " +
+                    "amount numeric(38, 2), " +
+                    "payment_type varchar(255), " +
+                    "transaction_date timestamp(6))",
+            "CREATE INDEX IF NOT EXISTS transaction_seller_idx ON transaction (seller, id)",
+            "CREATE INDEX IF NOT EXISTS transaction_date_idx ON transaction (transaction_date)"
+    );
+
+    private final boolean enabled;
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TransactionShards(ShardingProperties properties, StatementStatisticsProperties statisticsProperties) {
+        this.enabled = properties.enabled();
+        if (!this.enabled) {
+            return;
+        }
+        if (properties.shards().isEmpty()) {
+            throw new IllegalStateException("crm.sharding.enabled is set but no crm.sharding.shards are configured");
+        }
+        for (int i = 0; i < properties.shards().size(); i++) {
+            var shard = properties.shards().get(i);
+            var config = new HikariConfig();
+            config.setPoolName("transaction-shard-" + i);
+            config.setJdbcUrl(shard.url());
+            config.setUsername(shard.username());
+            config.setPassword(shard.password());
+            config.setMaximumPoolSize(properties.maximumPoolSize());
+            var dataSource = new HikariDataSource(config);
+            this.dataSources.add(dataSource);
+            this.shards.add(new JdbcTemplate(statisticsProperties.enabled() ? new InstrumentedDataSource(dataSource) : dataSource));
+        }
+    }
+
+    @PostConstruct
+    public void initializeSchema() {
+        for (int i = 0; i < this.shards.size(); i++) {
+            var shard = this.shards.get(i);
+            SCHEMA.forEach(shard::execute);
+            log.info("Transaction shard {} is ready", i);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        this.executor.shutdown();
+        this.dataSources.forEach(HikariDataSource::close);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int count() {
+        return this.shards.size();
+    }
+
+    public int shardOfSeller(long sellerId) {
+        long mixed = sellerId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(mixed ^ (mixed >>> 32), this.shards.size());
+    }
+
+    public int shardOfTransaction(long transactionId) {
+        return Math.floorMod(transactionId, this.shards.size());
+    }
+
+    public JdbcTemplate shard(int index) {
+        return this.shards.get(index);
+    }
+
+    /**
+     * Runs the query on every shard in parallel and returns the per-shard results in shard order.
+     */
+    public <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        var futures = new ArrayList<Future<T>>(this.shards.size());
+        var statistics = StatementStatistics.current();
+        for (var shard : this.shards) {
+            futures.add(this.executor.submit(() -> {
+                StatementStatistics.attach(statistics);
+                try {
+                    return query.apply(shard);
+                } finally {
+                    StatementStatistics.end();
+                }
+            }));
+        }
+        var results = new ArrayList<T>(futures.size());
+        try {
+            for (var future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying transaction shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Transaction shard query failed", e.getCause());
+        }
+        return results;
+    }
+}
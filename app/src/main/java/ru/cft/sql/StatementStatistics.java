@@ -0,0 +1,94 @@
+package ru.cft.sql;
+
+import ru.cft.exception.StatementBudgetExceededException;
+
+/**
+ * SQL statements executed while handling one request, and the time spent in them.
+ * Filled by the statement wrappers of {@link ru.cft.pool.InstrumentedDataSource} on the request thread and on the
+ * threads the request {@link #attach attaches} it to, such as the shard scatter workers; other threads are not seen.
+ */
+public final class StatementStatistics {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final ThreadLocal<StatementStatistics> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final int budget;
+    private final boolean failOverBudget;
+    private int statements;
+    private long nanos;
+
+    private StatementStatistics(String endpoint, int budget, boolean failOverBudget) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+        this.failOverBudget = failOverBudget;
+    }
+
+    /**
+     * Starts counting on the current thread.
+     *
+     * @param budget         maximum number of statements, or {@link Integer#MAX_VALUE} for none
+     * @param failOverBudget whether the statement going over the budget should fail instead of just being counted
+     */
+    public static StatementStatistics begin(String endpoint, int budget, boolean failOverBudget) {
+        var statistics = new StatementStatistics(endpoint, budget, failOverBudget);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static StatementStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Counts the statements of the current thread into {@code statistics}, which another thread began; does nothing
+     * for {@code null}. Pair with {@link #end()}.
+     */
+    public static void attach(StatementStatistics statistics) {
+        if (statistics != null) {
+            CURRENT.set(statistics);
+        }
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void record(long nanos) {
+        var statistics = CURRENT.get();
+        if (statistics == null) {
+            return;
+        }
+        if (statistics.add(nanos)) {
+            throw new StatementBudgetExceededException(String.format("%s exceeded its budget of %d SQL statements",
+                    statistics.endpoint, statistics.budget));
+        }
+    }
+
+    private synchronized boolean add(long nanos) {
+        this.statements++;
+        this.nanos += nanos;
+        return this.failOverBudget && this.statements == this.budget + 1;
+    }
+
+    public String endpoint() {
+        return this.endpoint;
+    }
+
+    public int budget() {
+        return this.budget;
+    }
+
+    public synchronized int statements() {
+        return this.statements;
+    }
+
+    public synchronized long nanos() {
+        return this.nanos;
+    }
+
+    public synchronized boolean isOverBudget() {
+        return this.statements > this.budget;
+    }
+}
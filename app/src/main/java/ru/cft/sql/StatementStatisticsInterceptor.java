@@ -0,0 +1,58 @@
+package ru.cft.sql;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.cft.configuration.StatementStatisticsProperties;
+import ru.cft.enums.StatementBudgetMode;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class StatementStatisticsInterceptor implements AsyncHandlerInterceptor {
+    private final Map<String, Integer> budgets;
+    private final boolean failOverBudget;
+
+    public StatementStatisticsInterceptor(StatementStatisticsProperties properties) {
+        this.budgets = properties.budgets().stream()
+                .collect(Collectors.toMap(budget -> endpoint(budget.method(), budget.path()),
+                        StatementStatisticsProperties.Budget::maxStatements));
+        this.failOverBudget = properties.budgetMode() == StatementBudgetMode.FAIL;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        var endpoint = endpoint(request.getMethod(), pattern != null ? pattern.toString() : request.getRequestURI());
+        StatementStatistics.begin(endpoint, this.budgets.getOrDefault(endpoint, Integer.MAX_VALUE), this.failOverBudget);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementStatistics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        var statistics = StatementStatistics.current();
+        StatementStatistics.end();
+        if (statistics == null) {
+            return;
+        }
+        if (statistics.isOverBudget()) {
+            log.warn("{} executed {} SQL statements in {} us, budget is {}", statistics.endpoint(),
+                    statistics.statements(), statistics.nanos() / 1000, statistics.budget());
+        } else {
+            log.debug("{} executed {} SQL statements in {} us", statistics.endpoint(),
+                    statistics.statements(), statistics.nanos() / 1000);
+        }
+    }
+
+    private static String endpoint(String method, String path) {
+        return method + " " + path;
+    }
+}
@@ -0,0 +1,336 @@
+package ru.cft.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import ru.cft.cache.TransactionCache;
+import ru.cft.configuration.WarmUpProperties;
+import ru.cft.enums.PaymentType;
+import ru.cft.enums.WarmUpPhase;
+import ru.cft.repository.SellerRepository;
+import ru.cft.service.SellerService;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static ru.cft.configuration.WebPath.*;
+
+/**
+ * Warms a fresh instance up before {@link WarmUpHealthIndicator} lets readiness report UP: opens the whole
+ * connection pool, runs the read queries of {@link SellerRepository} until the driver prepares them server-side,
+ * loads the most recent transactions and their sellers into the caches with parallel id-range scans, and sends
+ * synthetic read requests through the controllers so the hot paths get JIT-compiled. A failing phase is logged
+ * and skipped, so warm-up never keeps the instance out of rotation for good.
+ */
+@Component
+@Slf4j
+public class WarmUp {
+    private static final String SCAN_SQL =
+            "SELECT id, seller, amount, payment_type, transaction_date FROM transaction WHERE id > ? AND id <= ?";
+    private static final int SELLER_CHUNK_SIZE = 1000;
+    private static final int REQUEST_SAMPLE_SIZE = 1000;
+    private static final int LOOKUP_SIZE = 100;
+
+    private final WarmUpProperties properties;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerRepository sellerRepository;
+    private final SellerService sellerService;
+    private final TransactionCache transactionCache;
+    private final ShardedTransactionStore shardedTransactionStore;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<WarmUpPhase, Duration> phaseDurations = new ConcurrentHashMap<>();
+    private final AtomicLong completedSteps = new AtomicLong();
+    private volatile long totalSteps;
+    private volatile WarmUpPhase phase = WarmUpPhase.PENDING;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private Thread worker;
+
+    public WarmUp(WarmUpProperties properties, DataSource dataSource, SellerRepository sellerRepository,
+                  SellerService sellerService, TransactionCache transactionCache,
+                  ShardedTransactionStore shardedTransactionStore, Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sellerRepository = sellerRepository;
+        this.sellerService = sellerService;
+        this.transactionCache = transactionCache;
+        this.shardedTransactionStore = shardedTransactionStore;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        this.startedNanos = System.nanoTime();
+        if (!this.properties.enabled()) {
+            this.finish();
+            return;
+        }
+        this.worker = Thread.ofPlatform().name("warm-up").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (this.worker != null) {
+            this.worker.interrupt();
+            this.worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public Progress progress() {
+        long startedNanos = this.startedNanos;
+        long endNanos = this.phase == WarmUpPhase.DONE ? this.finishedNanos : System.nanoTime();
+        var phaseDurations = new EnumMap<WarmUpPhase, Duration>(WarmUpPhase.class);
+        phaseDurations.putAll(this.phaseDurations);
+        return new Progress(this.phase, this.completedSteps.get(), this.totalSteps,
+                startedNanos == 0 ? Duration.ZERO : Duration.ofNanos(endNanos - startedNanos), phaseDurations);
+    }
+
+    private void run() {
+        var hot = new HotIds();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            this.runPhase(WarmUpPhase.CONNECTION_POOL, this::openConnectionPool);
+            this.runPhase(WarmUpPhase.QUERY_PLANS, () -> this.prepareSellerQueries(executor));
+            this.runPhase(WarmUpPhase.CACHES, () -> this.loadCaches(executor, hot));
+            this.runPhase(WarmUpPhase.REQUESTS, () -> this.sendSyntheticRequests(executor, hot));
+        }
+        this.finish();
+        log.info("Warm-up finished in {} ms: {}", this.progress().elapsed().toMillis(), this.phaseDurations);
+    }
+
+    private void finish() {
+        this.finishedNanos = System.nanoTime();
+        this.phase = WarmUpPhase.DONE;
+    }
+
+    private void runPhase(WarmUpPhase phase, Callable<?> task) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        this.phase = phase;
+        this.completedSteps.set(0);
+        this.totalSteps = 0;
+        long startNanos = System.nanoTime();
+        try {
+            task.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Warm-up phase {} failed, skipping it", phase, e);
+        }
+        long nanos = System.nanoTime() - startNanos;
+        this.phaseDurations.put(phase, Duration.ofNanos(nanos));
+        this.meterRegistry.timer("crm.warmup.phase", "phase", phase.name().toLowerCase(Locale.ROOT))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        log.info("Warm-up phase {} took {} ms, {} of {} steps done", phase, nanos / 1_000_000,
+                this.completedSteps.get(), this.totalSteps);
+    }
+
+    /**
+     * Borrows as many connections as the pool may hold at once, so none is opened while serving traffic.
+     */
+    private Void openConnectionPool() throws Exception {
+        int size = this.dataSource.isWrapperFor(HikariDataSource.class)
+                ? this.dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : this.properties.parallelism();
+        this.totalSteps = size;
+        var connections = new ArrayList<Connection>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(this.dataSource.getConnection());
+                this.completedSteps.incrementAndGet();
+            }
+        } finally {
+            for (var connection : connections) {
+                connection.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The driver switches a statement to a server-side prepared one after a few executions on a connection,
+     * so every read query runs that many times on each worker. Updates and deletes are left alone.
+     */
+    private Void prepareSellerQueries(ExecutorService executor) throws Exception {
+        int repetitions = this.properties.queryRepetitions();
+        this.totalSteps = (long) this.properties.parallelism() * repetitions;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int worker = 0; worker < this.properties.parallelism(); worker++) {
+            tasks.add(() -> {
+                for (int i = 0; i < repetitions; i++) {
+                    var now = LocalDateTime.now();
+                    this.sellerRepository.findActiveById(-1L);
+                    this.sellerRepository.existsActiveById(-1L);
+                    this.sellerRepository.findAllActiveByIdIn(List.of(-1L));
+                    this.sellerRepository.findByIdGreaterThanAndDeletionRequestedAtIsNullOrderByIdAsc(Long.MAX_VALUE, Limit.of(1));
+                    this.sellerRepository.findBestSellerByPeriod(now, now);
+                    this.sellerRepository.findAllSellersWithIncomeLowerThanThreshold(BigDecimal.ZERO, now, now);
+                    this.completedSteps.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runAll(executor, tasks);
+        return null;
+    }
+
+    /**
+     * Splits the ids of the most recent transactions into one range per worker and scans the ranges in parallel
+     * into the transaction cache, then loads the sellers seen there into the seller cache in parallel chunks.
+     */
+    private Void loadCaches(ExecutorService executor, HotIds hot) throws Exception {
+        if (this.shardedTransactionStore.isEnabled()) {
+            log.info("Transactions are sharded, skipping the transaction cache warm-up");
+            return null;
+        }
+        var maxId = this.jdbcTemplate.queryForObject("SELECT max(id) FROM transaction", Long.class);
+        if (maxId == null) {
+            return null;
+        }
+        hot.maxTransactionId = maxId;
+        long fromId = Math.max(0, maxId - this.properties.hotTransactions());
+        int parallelism = this.properties.parallelism();
+        long rangeSize = Math.ceilDiv(maxId - fromId, parallelism);
+        this.totalSteps = maxId - fromId;
+        var scans = new ArrayList<Callable<Void>>();
+        for (long afterId = fromId; afterId < maxId; afterId += rangeSize) {
+            long rangeStart = afterId;
+            long rangeEnd = Math.min(maxId, afterId + rangeSize);
+            scans.add(() -> {
+                this.scan(rangeStart, rangeEnd, hot.sellerIds);
+                return null;
+            });
+        }
+        runAll(executor, scans);
+
+        var sellerIds = List.copyOf(hot.sellerIds);
+        var lookups = new ArrayList<Callable<Void>>();
+        for (int from = 0; from < sellerIds.size(); from += SELLER_CHUNK_SIZE) {
+            var chunk = sellerIds.subList(from, Math.min(from + SELLER_CHUNK_SIZE, sellerIds.size()));
+            lookups.add(() -> {
+                this.sellerService.lookup(chunk);
+                return null;
+            });
+        }
+        runAll(executor, lookups);
+        return null;
+    }
+
+    private void scan(long afterId, long upToId, Set<Long> sellerIds) {
+        int hotSellers = this.properties.hotSellers();
+        this.jdbcTemplate.query(SCAN_SQL, rs -> {
+            long sellerId = rs.getLong("seller");
+            this.transactionCache.put(rs.getLong("id"), sellerId, rs.getBigDecimal("amount"),
+                    PaymentType.valueOf(rs.getString("payment_type")), rs.getObject("transaction_date", LocalDateTime.class));
+            if (sellerIds.size() < hotSellers) {
+                sellerIds.add(sellerId);
+            }
+            this.completedSteps.incrementAndGet();
+        }, afterId, upToId);
+    }
+
+    /**
+     * Sends the read requests of the API to this instance over HTTP, so filters, interceptors and serialization
+     * are compiled along with the controllers. Error responses are expected and ignored.
+     */
+    private Void sendSyntheticRequests(ExecutorService executor, HotIds hot) throws Exception {
+        var port = this.environment.getProperty("local.server.port", Integer.class);
+        if (port == null) {
+            log.info("No local web server, skipping synthetic requests");
+            return null;
+        }
+        var client = RestClient.create("http://localhost:" + port + API_VERSION_V1);
+        long maxTransactionId = Math.max(1, hot.maxTransactionId);
+        var transactionIds = LongStream.rangeClosed(Math.max(1, maxTransactionId - REQUEST_SAMPLE_SIZE + 1), maxTransactionId)
+                .boxed()
+                .toList();
+        var sellerIds = hot.sellerIds.isEmpty()
+                ? List.of(1L)
+                : hot.sellerIds.stream().limit(REQUEST_SAMPLE_SIZE).toList();
+        int requests = this.properties.syntheticRequests();
+        int parallelism = this.properties.parallelism();
+        this.totalSteps = requests;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int worker = 0; worker < parallelism; worker++) {
+            int first = worker;
+            tasks.add(() -> {
+                for (int i = first; i < requests && !Thread.currentThread().isInterrupted(); i += parallelism) {
+                    this.send(client, i, sellerIds, transactionIds);
+                    this.completedSteps.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runAll(executor, tasks);
+        return null;
+    }
+
+    private void send(RestClient client, int index, List<Long> sellerIds, List<Long> transactionIds) {
+        RestClient.RequestHeadersSpec<?> request = switch (index % 4) {
+            case 0 -> client.get().uri(PATH_SELLER + "/{id}", sellerIds.get(index % sellerIds.size()));
+            case 1 -> client.get().uri(PATH_TRANSACTION + "/{id}", transactionIds.get(index % transactionIds.size()));
+            case 2 -> client.post().uri(PATH_SELLER + "/lookup")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("ids", window(sellerIds, index)));
+            default -> client.post().uri(PATH_TRANSACTION + "/lookup")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("ids", window(transactionIds, index)));
+        };
+        request.exchange((clientRequest, response) -> response.getStatusCode());
+    }
+
+    private static List<Long> window(List<Long> ids, int offset) {
+        int from = offset % ids.size();
+        return ids.subList(from, Math.min(ids.size(), from + LOOKUP_SIZE));
+    }
+
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+        for (var future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    private static final class HotIds {
+        private final Set<Long> sellerIds = ConcurrentHashMap.newKeySet();
+        private volatile long maxTransactionId;
+    }
+
+    /**
+     * @param completedSteps connections, query rounds, transactions or requests done in the current phase
+     * @param elapsed        time since the application became ready, up to the end of the warm-up
+     */
+    public record Progress(WarmUpPhase phase, long completedSteps, long totalSteps, Duration elapsed,
+                           Map<WarmUpPhase, Duration> phaseDurations) {
+    }
+}
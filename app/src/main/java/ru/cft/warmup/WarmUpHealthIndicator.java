@@ -0,0 +1,38 @@
+package ru.cft.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import ru.cft.configuration.WarmUpProperties;
+import ru.cft.enums.WarmUpPhase;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} until {@link WarmUp} is done, so the readiness group stays down meanwhile.
+ * A warm-up running longer than {@code crm.warm-up.timeout} no longer holds readiness back.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+    private final WarmUp warmUp;
+    private final WarmUpProperties properties;
+
+    @Override
+    public Health health() {
+        var progress = this.warmUp.progress();
+        boolean done = progress.phase() == WarmUpPhase.DONE;
+        boolean timedOut = !done && progress.elapsed().compareTo(this.properties.timeout()) > 0;
+        var phaseDurations = new LinkedHashMap<String, Long>();
+        progress.phaseDurations().forEach((phase, duration) -> phaseDurations.put(phase.name(), duration.toMillis()));
+        return (done || timedOut ? Health.up() : Health.outOfService())
+                .withDetail("phase", progress.phase())
+                .withDetail("completedSteps", progress.completedSteps())
+                .withDetail("totalSteps", progress.totalSteps())
+                .withDetail("elapsedMs", progress.elapsed().toMillis())
+                .withDetail("phaseDurationsMs", phaseDurations)
+                .withDetail("timedOut", timedOut)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.cft.advice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ErrorLogSamplerTest {
+    @Test
+    void testThat_record_shouldLetFirstOccurrenceThroughAndCountTheRest() {
+        var sampler = new ErrorLogSampler(Duration.ofHours(1));
+
+        assertEquals(0, sampler.record("ResourceNotFoundException"));
+        assertEquals(ErrorLogSampler.SUPPRESSED, sampler.record("ResourceNotFoundException"));
+        assertEquals(ErrorLogSampler.SUPPRESSED, sampler.record("ResourceNotFoundException"));
+        assertEquals(0, sampler.record("ConstraintViolationException"));
+        assertEquals(3, sampler.total("ResourceNotFoundException"));
+    }
+
+    @Test
+    void testThat_record_shouldReportSuppressedCount_whenIntervalElapsed() {
+        var sampler = new ErrorLogSampler(Duration.ZERO);
+
+        assertEquals(0, sampler.record("ResourceNotFoundException"));
+        assertEquals(0, sampler.record("ResourceNotFoundException"));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.cft.aggregation;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.dto.DateRangeDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeriodIncomeAccumulatorTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 8, 1, 0, 0);
+    private static final List<DateRangeDto> PERIODS = List.of(
+            new DateRangeDto(DAY, DAY.plusDays(1).minusNanos(1000)),
+            new DateRangeDto(DAY.plusDays(1), DAY.plusDays(2).minusNanos(1000)),
+            new DateRangeDto(DAY, DAY.plusDays(7))
+    );
+
+    @Test
+    void testThat_add_shouldCountEachRowInEveryPeriodContainingIt() {
+        var accumulator = new PeriodIncomeAccumulator(PERIODS);
+        accumulator.add(1L, 100, DAY.plusHours(1));
+        accumulator.add(2L, 50, DAY.plusHours(23));
+        accumulator.add(1L, 200, DAY.plusDays(1).plusHours(2));
+        accumulator.add(2L, 70, DAY.plusDays(3));
+
+        assertEquals(100, accumulator.incomeBySeller(0).get(1L)[0]);
+        assertEquals(50, accumulator.incomeBySeller(0).get(2L)[0]);
+        assertEquals(200, accumulator.incomeBySeller(1).get(1L)[0]);
+        assertFalse(accumulator.incomeBySeller(1).containsKey(2L));
+        assertEquals(300, accumulator.incomeBySeller(2).get(1L)[0]);
+        assertEquals(120, accumulator.incomeBySeller(2).get(2L)[0]);
+    }
+
+    @Test
+    void testThat_add_shouldStillCountRowsArrivingOutOfOrder() {
+        var accumulator = new PeriodIncomeAccumulator(PERIODS);
+        accumulator.add(1L, 200, DAY.plusDays(1).plusHours(2));
+        accumulator.add(1L, 100, DAY.plusHours(1));
+
+        assertEquals(100, accumulator.incomeBySeller(0).get(1L)[0]);
+        assertEquals(200, accumulator.incomeBySeller(1).get(1L)[0]);
+        assertEquals(300, accumulator.incomeBySeller(2).get(1L)[0]);
+    }
+
+    @Test
+    void testThat_merge_shouldSumIncomeOfBothAccumulators() {
+        var hot = new PeriodIncomeAccumulator(PERIODS);
+        var archived = new PeriodIncomeAccumulator(PERIODS);
+        hot.add(1L, 100, DAY.plusHours(1));
+        archived.add(1L, 40, DAY.plusHours(3));
+        archived.add(3L, 10, DAY.plusHours(4));
+
+        hot.merge(archived);
+
+        assertEquals(140, hot.incomeBySeller(0).get(1L)[0]);
+        assertEquals(10, hot.incomeBySeller(0).get(3L)[0]);
+        assertTrue(hot.incomeBySeller(1).isEmpty());
+    }
+}
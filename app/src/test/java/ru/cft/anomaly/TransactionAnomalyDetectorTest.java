@@ -0,0 +1,61 @@
+package ru.cft.anomaly;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.configuration.AnomalyProperties;
+import ru.cft.dto.transaction.TransactionDto;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionAnomalyDetectorTest {
+    private final TransactionAnomalyDetector detector = new TransactionAnomalyDetector(new AnomalyProperties(0.1, 5, 4.0, 0.01, 2));
+
+    @Test
+    void testThat_score_shouldStayEmptyUntilSellerHasEnoughHistory() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(this.detector.score(1L, BigDecimal.valueOf(100 + i % 2)).isEmpty());
+        }
+        assertTrue(this.detector.score(1L, BigDecimal.valueOf(100)).isPresent());
+        assertTrue(this.detector.score(2L, BigDecimal.valueOf(100)).isEmpty());
+    }
+
+    @Test
+    void testThat_score_shouldBeHigh_whenAmountIsFarAboveSellerNorm() {
+        for (int i = 0; i < 50; i++) {
+            this.detector.score(1L, BigDecimal.valueOf(i % 2 == 0 ? 90 : 110));
+        }
+
+        var usual = this.detector.score(1L, BigDecimal.valueOf(105)).orElseThrow();
+        var unusual = this.detector.score(1L, BigDecimal.valueOf(1000)).orElseThrow();
+
+        assertTrue(usual < 1, "usual=" + usual);
+        assertTrue(unusual > 4, "unusual=" + unusual);
+    }
+
+    @Test
+    void testThat_score_shouldKeepSellersApartAcrossTableGrowth() {
+        for (long sellerId = 0; sellerId < 5000; sellerId++) {
+            for (int i = 0; i < 6; i++) {
+                this.detector.score(sellerId, BigDecimal.valueOf(sellerId));
+            }
+        }
+
+        assertEquals(0.0, this.detector.score(1234L, BigDecimal.valueOf(1234)).orElseThrow());
+        assertEquals(0.0, this.detector.score(4999L, BigDecimal.valueOf(4999)).orElseThrow());
+    }
+
+    @Test
+    void testThat_findRecent_shouldReturnLatestAnomaliesNewestFirst() {
+        this.detector.recordIfAnomalous(TransactionDto.builder().id(1L).anomalyScore(5.0).build());
+        this.detector.recordIfAnomalous(TransactionDto.builder().id(2L).anomalyScore(1.0).build());
+        this.detector.recordIfAnomalous(TransactionDto.builder().id(3L).anomalyScore(6.0).build());
+        this.detector.recordIfAnomalous(TransactionDto.builder().id(4L).anomalyScore(7.0).build());
+
+        var recent = this.detector.findRecent(10);
+
+        assertEquals(2, recent.size());
+        assertEquals(4L, recent.get(0).id());
+        assertEquals(3L, recent.get(1).id());
+    }
+}
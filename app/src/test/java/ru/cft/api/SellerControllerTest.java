@@ -6,18 +6,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.cft.configuration.BinaryFormatConfiguration;
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
 import ru.cft.dto.seller.SellerPatchDto;
 import ru.cft.dto.seller.SellerUpdateDto;
+import ru.cft.enums.SellerDeletionStatus;
 import ru.cft.exception.ResourceNotFoundException;
 import ru.cft.service.SellerService;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -57,6 +62,25 @@ class SellerControllerTest {
         verify(this.sellerService, times(1)).findAll();
     }
 
+    @Test
+    void testThat_findAll_shouldReturnCbor_whenCborIsAccepted() throws Exception {
+        var sellers = List.of(
+                SellerDto.builder().id(1L).name("John Doe 1").contactInfo("john@doe1.com").registrationDate(FIXED_DATE).build(),
+                SellerDto.builder().id(2L).name("John Doe 2").contactInfo("john@doe2.com").registrationDate(FIXED_DATE).build()
+        );
+        var cborMediaType = MediaType.parseMediaType("application/cbor");
+        var cborObjectMapper = BinaryFormatConfiguration.cborObjectMapper(Jackson2ObjectMapperBuilder.json());
+
+        when(this.sellerService.findAll()).thenReturn(sellers);
+
+        var body = this.mockMvc.perform(get(PATH).accept(cborMediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(cborMediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(sellers, List.of(cborObjectMapper.readValue(body, SellerDto[].class)));
+    }
+
     @Test
     void testThat_findById_shouldReturnOkWithSeller() throws Exception {
         long id = 42L;
@@ -419,4 +443,49 @@ class SellerControllerTest {
 
         verify(this.sellerService, times(1)).deleteById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testThat_search_shouldReturnOkWithList() throws Exception {
+        var sellers = List.of(
+                SellerDto.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build()
+        );
+
+        when(this.sellerService.search("doe", 5)).thenReturn(sellers);
+
+        this.mockMvc.perform(get(PATH + "/search").param("q", "doe").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(this.objectMapper.writeValueAsString(sellers)));
+
+        verify(this.sellerService, times(1)).search("doe", 5);
+    }
+
+    @Test
+    void testThat_search_shouldReturnBadRequest_whenQueryIsTooShort() throws Exception {
+        this.mockMvc.perform(get(PATH + "/search").param("q", "do"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(HttpStatus.BAD_REQUEST.value()));
+
+        verify(this.sellerService, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void testThat_delete_shouldReturnAccepted_whenAsyncDeletionRequested() throws Exception {
+        long id = 42L;
+        var deletionDto = SellerDeletionDto.builder()
+                .sellerId(id)
+                .status(SellerDeletionStatus.IN_PROGRESS)
+                .requestedAt(FIXED_DATE)
+                .build();
+
+        when(this.sellerService.requestDeletion(id)).thenReturn(deletionDto);
+
+        this.mockMvc.perform(delete(PATH + "/{id}", id).param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", PATH + "/" + id + "/deletion"))
+                .andExpect(jsonPath("$.sellerId").value(id))
+                .andExpect(jsonPath("$.status").value("IN_PROGRESS"));
+
+        verify(this.sellerService, times(1)).requestDeletion(id);
+        verify(this.sellerService, never()).deleteById(any());
+    }
+}
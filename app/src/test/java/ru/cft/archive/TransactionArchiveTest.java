@@ -0,0 +1,150 @@
+package ru.cft.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.cft.configuration.ArchiveProperties;
+import ru.cft.enums.PaymentType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionArchiveTest {
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 10, 12, 30, 15, 123_456_000);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 5, 8, 0, 0);
+
+    @TempDir
+    Path directory;
+    private TransactionArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.archive = new TransactionArchive(new ArchiveProperties(true, this.directory, 12, 1000, 100, 100));
+        this.archive.load();
+    }
+
+    @Test
+    void testThat_segment_shouldRoundTripAllColumns() throws IOException {
+        var rows = new TransactionSegmentBuilder();
+        rows.add(1L, 7L, new BigDecimal("100.50"), PaymentType.CARD, JANUARY);
+        rows.add(2L, 8L, new BigDecimal("0.01"), PaymentType.TRANSFER, JANUARY.plusDays(1));
+        this.archive.append("january", rows);
+
+        var reloaded = new TransactionArchive(new ArchiveProperties(true, this.directory, 12, 1000, 100, 100));
+        reloaded.load();
+
+        assertEquals(List.of(
+                new ArchivedTransaction(1L, 7L, new BigDecimal("100.50"), PaymentType.CARD, JANUARY),
+                new ArchivedTransaction(2L, 8L, new BigDecimal("0.01"), PaymentType.TRANSFER, JANUARY.plusDays(1))
+        ), reloaded.findAll());
+    }
+
+    @Test
+    void testThat_forEachInRange_shouldSkipNonOverlappingSegmentsAndFilterRows() throws IOException {
+        var january = new TransactionSegmentBuilder();
+        january.add(1L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        january.add(2L, 7L, BigDecimal.ONE, PaymentType.CASH, JANUARY.plusDays(10));
+        this.archive.append("january", january);
+        var march = new TransactionSegmentBuilder();
+        march.add(3L, 8L, BigDecimal.TEN, PaymentType.CARD, MARCH);
+        this.archive.append("march", march);
+
+        var found = new ArrayList<Long>();
+        this.archive.forEachInRange(JANUARY.plusDays(5), MARCH.minusDays(1), transaction -> found.add(transaction.id()));
+
+        assertEquals(List.of(2L), found);
+        assertEquals(1, this.archive.findSegments(JANUARY.plusDays(5), MARCH.minusDays(1)).size());
+        assertTrue(this.archive.overlaps(MARCH, MARCH.plusDays(1)));
+        assertFalse(this.archive.overlaps(MARCH.plusMonths(1), MARCH.plusMonths(2)));
+    }
+
+    @Test
+    void testThat_findById_shouldReturnArchivedTransaction_whenPresent() throws IOException {
+        var rows = new TransactionSegmentBuilder();
+        rows.add(5L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        rows.add(9L, 8L, BigDecimal.ONE, PaymentType.CARD, JANUARY);
+        this.archive.append("january", rows);
+
+        assertEquals(8L, this.archive.findById(9L).orElseThrow().sellerId());
+        assertTrue(this.archive.findById(6L).isEmpty());
+        assertEquals(1, this.archive.findBySellerId(7L).size());
+    }
+
+    @Test
+    void testThat_refresh_shouldPickUpSegmentsPublishedByAnotherInstance() throws IOException {
+        var january = new TransactionSegmentBuilder();
+        january.add(1L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        this.archive.append("january", january);
+        var other = new TransactionArchive(new ArchiveProperties(true, this.directory, 12, 1000, 100, 100));
+        other.load();
+        var march = new TransactionSegmentBuilder();
+        march.add(2L, 8L, BigDecimal.ONE, PaymentType.CARD, MARCH);
+        this.archive.append("march", march);
+
+        assertTrue(other.findById(2L).isEmpty());
+        other.refresh();
+
+        assertEquals(List.of(1L, 2L), other.findAll().stream().map(ArchivedTransaction::id).toList());
+        this.archive.refresh();
+        assertEquals(2, this.archive.findSegments(JANUARY, MARCH).size());
+    }
+
+    @Test
+    void testThat_stagedSegment_shouldStayInvisibleUntilPublished() throws IOException {
+        var rows = new TransactionSegmentBuilder();
+        rows.add(1L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        var staged = this.archive.stage("january", rows);
+
+        var reloaded = new TransactionArchive(new ArchiveProperties(true, this.directory, 12, 1000, 100, 100));
+        reloaded.load();
+        assertTrue(this.archive.findAll().isEmpty());
+        assertTrue(reloaded.findAll().isEmpty());
+        assertEquals(1, reloaded.findStaged().size());
+
+        this.archive.publish(staged);
+
+        assertEquals(1, this.archive.findAll().size());
+        assertTrue(this.archive.findStaged().isEmpty());
+    }
+
+    @Test
+    void testThat_sellerFilter_shouldRejectMostAbsentSellers_andSurviveReload() throws IOException {
+        var rows = new TransactionSegmentBuilder();
+        rows.add(1L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        rows.add(2L, 8L, BigDecimal.ONE, PaymentType.CARD, JANUARY);
+        var segment = this.archive.append("january", rows);
+        var reopened = TransactionSegment.open(segment.getPath());
+
+        assertTrue(reopened.mayContainSeller(7L));
+        assertTrue(reopened.mayContainSeller(8L));
+        long falsePositives = LongStream.range(100, 1100).filter(reopened::mayContainSeller).count();
+        assertTrue(falsePositives < 50, "false positives: " + falsePositives);
+        assertTrue(this.archive.findBySellerId(9L).isEmpty());
+        assertEquals(List.of(2L), this.archive.findByIds(Set.of(2L, 3L)).stream().map(ArchivedTransaction::id).toList());
+    }
+
+    @Test
+    void testThat_purgeSeller_shouldHideArchivedTransactions_acrossReloads() throws IOException {
+        var rows = new TransactionSegmentBuilder();
+        rows.add(1L, 7L, BigDecimal.TEN, PaymentType.CASH, JANUARY);
+        rows.add(2L, 8L, BigDecimal.ONE, PaymentType.CARD, JANUARY);
+        this.archive.append("january", rows);
+
+        this.archive.purgeSeller(8L);
+        var reloaded = new TransactionArchive(new ArchiveProperties(true, this.directory, 12, 1000, 100, 100));
+        reloaded.load();
+
+        assertEquals(List.of(1L), this.archive.findAll().stream().map(ArchivedTransaction::id).toList());
+        assertEquals(List.of(1L), reloaded.findAll().stream().map(ArchivedTransaction::id).toList());
+        assertTrue(reloaded.findById(2L).isEmpty());
+        assertTrue(reloaded.findBySellerId(8L).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package ru.cft.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.configuration.IncomeSeriesProperties;
+import ru.cft.enums.IncomeGranularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncomeBucketCacheTest {
+    private static final LocalDateTime BUCKET = LocalDateTime.of(2025, 8, 1, 0, 0);
+
+    private static IncomeBucketCache cache() {
+        return new IncomeBucketCache(new IncomeSeriesProperties(100, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testThat_putAll_shouldKeepBucketsPerSellerAndGranularity() {
+        var cache = cache();
+        cache.putAll(1L, IncomeGranularity.DAY, Map.of(BUCKET, 1500L), cache.generation());
+
+        assertEquals(1500L, cache.get(1L, IncomeGranularity.DAY, BUCKET));
+        assertNull(cache.get(1L, IncomeGranularity.MONTH, BUCKET));
+        assertNull(cache.get(2L, IncomeGranularity.DAY, BUCKET));
+    }
+
+    @Test
+    void testThat_putAll_shouldIgnoreBucketsLoadedBeforeClear() {
+        var cache = cache();
+        long generation = cache.generation();
+        cache.clear();
+
+        cache.putAll(1L, IncomeGranularity.DAY, Map.of(BUCKET, 1500L), generation);
+
+        assertNull(cache.get(1L, IncomeGranularity.DAY, BUCKET));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testThat_invalidate_shouldRemoveOnlyBucketsOverlappingTheRange() {
+        var cache = cache();
+        var week = IncomeGranularity.WEEK.truncate(BUCKET);
+        cache.putAll(1L, IncomeGranularity.DAY, Map.of(BUCKET, 100L, BUCKET.minusDays(1), 200L), cache.generation());
+        cache.putAll(1L, IncomeGranularity.WEEK, Map.of(week, 300L), cache.generation());
+        cache.putAll(1L, IncomeGranularity.MONTH, Map.of(BUCKET.minusMonths(1), 400L), cache.generation());
+
+        cache.invalidate(BUCKET, BUCKET.plusMonths(1));
+
+        assertNull(cache.get(1L, IncomeGranularity.DAY, BUCKET));
+        assertNull(cache.get(1L, IncomeGranularity.WEEK, week));
+        assertEquals(200L, cache.get(1L, IncomeGranularity.DAY, BUCKET.minusDays(1)));
+        assertEquals(400L, cache.get(1L, IncomeGranularity.MONTH, BUCKET.minusMonths(1)));
+    }
+
+    @Test
+    void testThat_evictSeller_shouldKeepOtherSellers_andIgnoreLoadsStartedBefore() {
+        var cache = cache();
+        cache.putAll(1L, IncomeGranularity.DAY, Map.of(BUCKET, 100L), cache.generation());
+        cache.putAll(2L, IncomeGranularity.DAY, Map.of(BUCKET, 200L), cache.generation());
+        long generation = cache.generation();
+
+        cache.evictSeller(1L);
+        cache.putAll(1L, IncomeGranularity.DAY, Map.of(BUCKET, 100L), generation);
+
+        assertNull(cache.get(1L, IncomeGranularity.DAY, BUCKET));
+        assertEquals(200L, cache.get(2L, IncomeGranularity.DAY, BUCKET));
+    }
+
+    @Test
+    void testThat_truncate_shouldAlignBucketsLikeDateTrunc() {
+        var date = LocalDateTime.of(2025, 8, 28, 15, 45, 23);
+
+        assertEquals(LocalDateTime.of(2025, 8, 28, 0, 0), IncomeGranularity.DAY.truncate(date));
+        assertEquals(LocalDateTime.of(2025, 8, 25, 0, 0), IncomeGranularity.WEEK.truncate(date));
+        assertEquals(LocalDateTime.of(2025, 8, 1, 0, 0), IncomeGranularity.MONTH.truncate(date));
+        assertEquals(5, IncomeGranularity.WEEK.bucketCount(LocalDateTime.of(2025, 8, 1, 0, 0), date));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.cft.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.configuration.SellerCacheProperties;
+import ru.cft.dto.seller.SellerDto;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SellerCacheTest {
+    private static SellerCache cache(int maxSize) {
+        return new SellerCache(new SellerCacheProperties(true, maxSize, "seller_invalidation", Duration.ofSeconds(5), Duration.ofSeconds(5)));
+    }
+
+    private static SellerDto seller(long id) {
+        return SellerDto.builder().id(id).name("Seller " + id).build();
+    }
+
+    @Test
+    void testThat_put_shouldEvictLeastRecentlyUsed_whenFull() {
+        var cache = cache(2);
+        cache.put(1L, seller(1), cache.generation());
+        cache.put(2L, seller(2), cache.generation());
+        cache.get(1L);
+        cache.put(3L, seller(3), cache.generation());
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+    }
+
+    @Test
+    void testThat_put_shouldIgnoreValueLoadedBeforeEviction() {
+        var cache = cache(10);
+        long generation = cache.generation();
+        cache.evict(1L);
+
+        cache.put(1L, seller(1), generation);
+
+        assertNull(cache.get(1L));
+    }
+}
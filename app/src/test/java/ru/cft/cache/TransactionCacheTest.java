@@ -0,0 +1,55 @@
+package ru.cft.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.configuration.TransactionCacheProperties;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheTest {
+    private static final LocalDateTime FIXED_DATE =
+            LocalDateTime.of(2025, 8, 28, 15, 45, 23, 123_456_789);
+
+    private static TransactionDto transaction(long id, String amount) {
+        return TransactionDto.builder()
+                .id(id)
+                .seller(SellerDto.builder().id(7L).name("John Doe").build())
+                .amount(new BigDecimal(amount))
+                .paymentType(PaymentType.TRANSFER)
+                .transactionDate(FIXED_DATE)
+                .build();
+    }
+
+    @Test
+    void testThat_get_shouldReturnStoredFields() {
+        var cache = new TransactionCache(new TransactionCacheProperties(true, 16));
+        cache.put(transaction(5L, "199.99"));
+
+        assertEquals(new CachedTransaction(5L, 7L, new BigDecimal("199.99"), PaymentType.TRANSFER, FIXED_DATE), cache.get(5L));
+        assertNull(cache.get(6L));
+    }
+
+    @Test
+    void testThat_put_shouldOverwriteOlderTransaction_inSameSlot() {
+        var cache = new TransactionCache(new TransactionCacheProperties(true, 20));
+        cache.put(transaction(1L, "10"));
+        cache.put(transaction(1L + cache.capacity(), "20"));
+
+        assertEquals(16, cache.capacity());
+        assertNull(cache.get(1L));
+        assertEquals(new BigDecimal("20.00"), cache.get(17L).amount());
+    }
+
+    @Test
+    void testThat_get_shouldReturnNull_whenDisabled() {
+        var cache = new TransactionCache(new TransactionCacheProperties(false, 16));
+        cache.put(transaction(1L, "10"));
+
+        assertNull(cache.get(1L));
+    }
+}
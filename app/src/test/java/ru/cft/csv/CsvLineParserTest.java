@@ -0,0 +1,33 @@
+package ru.cft.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvLineParserTest {
+    @Test
+    void testThat_parse_shouldSplitPlainFields() {
+        assertEquals(List.of("42", "199.99", "CARD"), CsvLineParser.parse("42,199.99,CARD"));
+    }
+
+    @Test
+    void testThat_parse_shouldHandleQuotedFields() {
+        assertEquals(List.of("Doe, John", "say \"hi\"", ""), CsvLineParser.parse("\"Doe, John\",\"say \"\"hi\"\"\","));
+    }
+
+    @Test
+    void testThat_parse_shouldThrowException_whenQuoteIsNotClosed() {
+        assertThrows(IllegalArgumentException.class, () -> CsvLineParser.parse("\"Doe, John"));
+    }
+
+    @Test
+    void testThat_appendQuoted_shouldRoundTrip() {
+        var out = new StringBuilder();
+        CsvLineParser.appendQuoted(out, "Doe, \"John\"");
+
+        assertEquals(List.of("Doe, \"John\""), CsvLineParser.parse(out.toString()));
+    }
+}
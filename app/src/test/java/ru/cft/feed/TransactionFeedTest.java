@@ -0,0 +1,251 @@
+package ru.cft.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.cft.configuration.TransactionFeedProperties;
+import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.entity.Seller;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.FeedOverflowPolicy;
+import ru.cft.enums.PaymentType;
+import ru.cft.mapper.TransactionMapper;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransactionFeedTest {
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final ShardedTransactionStore shardedTransactionStore = mock(ShardedTransactionStore.class);
+    private final SellerRepository sellerRepository = mock(SellerRepository.class);
+    private final TransactionMapper transactionMapper = mock(TransactionMapper.class);
+    private final List<TransactionFeed> feeds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.feeds.forEach(TransactionFeed::shutdown);
+    }
+
+    @Test
+    void testThat_subscriber_shouldReceiveDroppedEvent_whenBufferOverflowsWithDropPolicy() throws Exception {
+        var feed = this.feed(10, 2);
+        var emitter = (RecordingEmitter) feed.subscribe(null, FeedOverflowPolicy.DROP);
+        emitter.block();
+        feed.publish(transaction(1L));
+        emitter.awaitBlocked();
+        for (long id = 2; id <= 5; id++) {
+            feed.publish(transaction(id));
+        }
+        emitter.release();
+
+        assertTransaction(1L, emitter.next());
+        var dropped = emitter.next();
+        assertEquals("dropped", dropped.name());
+        assertTrue(dropped.data().contains("\"dropped\":2"), dropped.data());
+        assertTransaction(2L, emitter.next());
+        assertTransaction(3L, emitter.next());
+        assertNull(emitter.poll());
+    }
+
+    @Test
+    void testThat_subscriber_shouldBeDisconnected_whenBufferOverflowsWithDisconnectPolicy() throws Exception {
+        var feed = this.feed(10, 2);
+        var emitter = (RecordingEmitter) feed.subscribe(null, FeedOverflowPolicy.DISCONNECT);
+        emitter.block();
+        feed.publish(transaction(1L));
+        emitter.awaitBlocked();
+        for (long id = 2; id <= 4; id++) {
+            feed.publish(transaction(id));
+        }
+        emitter.release();
+
+        assertTransaction(1L, emitter.next());
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        feed.publish(transaction(5L));
+        assertNull(emitter.poll());
+    }
+
+    @Test
+    void testThat_subscribe_shouldResumeFromHistoryBySequence_whenTransactionIdsArriveOutOfOrder() throws Exception {
+        var feed = this.feed(10, 10);
+        var live = (RecordingEmitter) feed.subscribe(null, null);
+        feed.publish(transaction(10L));
+        feed.publish(transaction(5L));
+        feed.publish(transaction(7L));
+        var first = live.next();
+        assertTransaction(10L, first);
+
+        var resumed = (RecordingEmitter) feed.subscribe(FeedPosition.parse(first.id()), null);
+
+        assertTransaction(5L, resumed.next());
+        assertTransaction(7L, resumed.next());
+        assertNull(resumed.poll());
+        verifyNoInteractions(this.transactionRepository);
+    }
+
+    @Test
+    void testThat_subscribe_shouldReplayFromDatabase_whenHistoryNoLongerHoldsPosition() throws Exception {
+        var feed = this.feed(2, 10);
+        feed.publish(transaction(1L));
+        feed.publish(transaction(2L));
+        feed.publish(transaction(3L));
+        var first = Transaction.builder().id(1L).build();
+        var second = Transaction.builder().id(2L).build();
+        when(this.transactionRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(500))).thenReturn(List.of(first, second));
+        when(this.transactionMapper.toDto(first)).thenReturn(transaction(1L));
+
+        var emitter = (RecordingEmitter) feed.subscribe(FeedPosition.parse("0"), null);
+
+        var replayed = emitter.next();
+        assertTransaction(1L, replayed);
+        assertEquals(new FeedPosition(0, 1L), FeedPosition.parse(replayed.id()));
+        assertTransaction(2L, emitter.next());
+        assertTransaction(3L, emitter.next());
+        assertNull(emitter.poll());
+        verify(this.transactionMapper, never()).toDto(second);
+    }
+
+    @Test
+    void testThat_subscribe_shouldReplayFromShards_whenShardingIsEnabled() throws Exception {
+        var feed = this.feed(10, 10);
+        var seller = Seller.builder().id(7L).build();
+        var active = new ShardTransaction(4L, 7L, BigDecimal.TEN, PaymentType.CASH, LocalDateTime.now());
+        var pendingDeletion = new ShardTransaction(6L, 8L, BigDecimal.ONE, PaymentType.CARD, LocalDateTime.now());
+        var entity = Transaction.builder().id(4L).seller(seller).build();
+        when(this.shardedTransactionStore.isEnabled()).thenReturn(true);
+        when(this.shardedTransactionStore.findAfterId(0L, 500)).thenReturn(List.of(active, pendingDeletion));
+        when(this.sellerRepository.findAllActiveByIdIn(Set.of(7L, 8L))).thenReturn(List.of(seller));
+        when(this.transactionMapper.toEntity(active, seller)).thenReturn(entity);
+        when(this.transactionMapper.toDto(entity)).thenReturn(transaction(4L));
+
+        var emitter = (RecordingEmitter) feed.subscribe(FeedPosition.parse("0"), null);
+
+        assertTransaction(4L, emitter.next());
+        assertNull(emitter.poll());
+        verifyNoInteractions(this.transactionRepository);
+    }
+
+    @Test
+    void testThat_parse_shouldReadSequenceAndTransactionId() {
+        assertEquals(new FeedPosition(17L, 42L), FeedPosition.parse("17-42"));
+        assertEquals(new FeedPosition(0, 42L), FeedPosition.parse("42"));
+        assertEquals("17-42", new FeedPosition(17L, 42L).toString());
+        assertThrows(IllegalArgumentException.class, () -> FeedPosition.parse("17-x"));
+    }
+
+    private TransactionFeed feed(int historySize, int bufferSize) {
+        var properties = new TransactionFeedProperties(historySize, bufferSize, 500, FeedOverflowPolicy.DROP,
+                Duration.ofMinutes(1), Duration.ofMinutes(30));
+        var feed = new TransactionFeed(this.transactionRepository, this.shardedTransactionStore, this.sellerRepository,
+                this.transactionMapper, new ObjectMapper().findAndRegisterModules(), properties) {
+            @Override
+            SseEmitter createEmitter() {
+                return new RecordingEmitter();
+            }
+        };
+        this.feeds.add(feed);
+        return feed;
+    }
+
+    private static TransactionDto transaction(long id) {
+        return TransactionDto.builder().id(id).amount(BigDecimal.TEN).build();
+    }
+
+    private static void assertTransaction(long transactionId, Event event) {
+        assertNotNull(event);
+        assertEquals("transaction", event.name());
+        assertEquals(transactionId, FeedPosition.parse(event.id()).transactionId());
+        assertTrue(event.data().contains("\"id\":" + transactionId), event.data());
+    }
+
+    private record Event(String id, String name, String data) {
+        static Event parse(String text) {
+            String id = null;
+            String name = null;
+            var data = new StringBuilder();
+            for (var line : text.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5));
+                }
+            }
+            return new Event(id, name, data.toString());
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+        private volatile CountDownLatch blocked;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            var text = builder.build().stream()
+                    .map(item -> String.valueOf(item.getData()))
+                    .collect(Collectors.joining());
+            if (text.startsWith(":")) {
+                return;
+            }
+            this.events.add(Event.parse(text));
+            var currentGate = this.gate;
+            if (currentGate != null) {
+                this.blocked.countDown();
+                try {
+                    currentGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            this.completed.countDown();
+        }
+
+        void block() {
+            this.blocked = new CountDownLatch(1);
+            this.gate = new CountDownLatch(1);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(this.blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            var currentGate = this.gate;
+            this.gate = null;
+            currentGate.countDown();
+        }
+
+        Event next() throws InterruptedException {
+            return this.events.poll(5, TimeUnit.SECONDS);
+        }
+
+        Event poll() throws InterruptedException {
+            return this.events.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.cft.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.cft.enums.PaymentType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIngestLogTest {
+    private static final LocalDateTime ACCEPTED_AT = LocalDateTime.of(2025, 8, 28, 15, 45, 23, 123_456_000);
+    private static final long MAX_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testThat_open_shouldReplayRecordsAfterCheckpoint() throws IOException {
+        IngestedTransaction first;
+        IngestedTransaction second;
+        try (var log = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            first = this.append(log, 1L, "100.50", PaymentType.CARD);
+            second = this.append(log, 2L, "0.01", PaymentType.TRANSFER);
+            log.sync(second.endOffset());
+            log.checkpoint(first.endOffset());
+        }
+
+        try (var reopened = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            assertEquals(List.of(second), reopened.pending());
+            assertEquals(second.endOffset(), reopened.writtenOffset());
+        }
+    }
+
+    @Test
+    void testThat_open_shouldCutOffTornRecord() throws IOException {
+        IngestedTransaction first;
+        try (var log = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            first = this.append(log, 1L, "10", PaymentType.CASH);
+            this.append(log, 2L, "20", PaymentType.CASH);
+        }
+        var file = this.directory.resolve(TransactionIngestLog.LOG_FILE);
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        IngestedTransaction third;
+        try (var reopened = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            assertEquals(List.of(first), reopened.pending());
+            assertEquals(first.endOffset(), Files.size(file));
+            third = this.append(reopened, 3L, "30", PaymentType.CARD);
+        }
+
+        try (var reopened = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            assertEquals(List.of(first, third), reopened.pending());
+        }
+    }
+
+    @Test
+    void testThat_open_shouldStopAtCorruptedRecord() throws IOException {
+        IngestedTransaction first;
+        try (var log = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            first = this.append(log, 1L, "10", PaymentType.CASH);
+            this.append(log, 2L, "20", PaymentType.CASH);
+        }
+        try (var channel = FileChannel.open(this.directory.resolve(TransactionIngestLog.LOG_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), first.endOffset() + 12);
+        }
+
+        try (var reopened = TransactionIngestLog.open(this.directory, MAX_SIZE)) {
+            assertEquals(List.of(first), reopened.pending());
+        }
+    }
+
+    @Test
+    void testThat_checkpoint_shouldTruncateDrainedLogOverLimit() throws IOException {
+        try (var log = TransactionIngestLog.open(this.directory, 1)) {
+            var first = this.append(log, 1L, "10", PaymentType.CASH);
+            log.checkpoint(first.endOffset());
+            assertEquals(0, log.writtenOffset());
+            var second = this.append(log, 2L, "20", PaymentType.CARD);
+            log.sync(second.endOffset());
+        }
+
+        try (var reopened = TransactionIngestLog.open(this.directory, 1)) {
+            assertEquals(1, reopened.pending().size());
+            assertEquals(2L, reopened.pending().getFirst().sellerId());
+        }
+    }
+
+    private IngestedTransaction append(TransactionIngestLog log, long sellerId, String amount, PaymentType paymentType) throws IOException {
+        return log.append(UUID.randomUUID(), sellerId, new BigDecimal(amount), paymentType, ACCEPTED_AT);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.cft.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SellerLeaderboardTest {
+    private static final long MINUTE = 29_000_000L;
+
+    @Test
+    void testThat_record_shouldKeepTopSellersOrderedByIncome() {
+        var leaderboard = new SellerLeaderboard(15, 2);
+        leaderboard.record(1L, "John", 100, MINUTE);
+        leaderboard.record(2L, "Jane", 300, MINUTE);
+        leaderboard.record(3L, "Jack", 200, MINUTE + 1);
+        leaderboard.record(1L, "John", 250, MINUTE + 2);
+
+        assertEquals(List.of(
+                new SellerLeaderboard.Ranked(1L, "John", 350),
+                new SellerLeaderboard.Ranked(2L, "Jane", 300)
+        ), leaderboard.snapshot().entries());
+    }
+
+    @Test
+    void testThat_advanceTo_shouldExpireOldBucketsAndPromoteRemainingSellers() {
+        var leaderboard = new SellerLeaderboard(15, 1);
+        leaderboard.record(1L, "John", 500, MINUTE);
+        leaderboard.record(2L, "Jane", 300, MINUTE + 5);
+        var before = leaderboard.snapshot();
+
+        leaderboard.advanceTo(MINUTE + 15);
+
+        var after = leaderboard.snapshot();
+        assertEquals(List.of(new SellerLeaderboard.Ranked(1L, "John", 500)), before.entries());
+        assertEquals(List.of(new SellerLeaderboard.Ranked(2L, "Jane", 300)), after.entries());
+        assertTrue(after.version() > before.version());
+    }
+
+    @Test
+    void testThat_record_shouldIgnoreTransactionsOlderThanWindow() {
+        var leaderboard = new SellerLeaderboard(15, 3);
+        leaderboard.record(1L, "John", 100, MINUTE + 20);
+        leaderboard.record(2L, "Jane", 300, MINUTE);
+
+        assertEquals(List.of(new SellerLeaderboard.Ranked(1L, "John", 100)), leaderboard.snapshot().entries());
+    }
+
+    @Test
+    void testThat_snapshot_shouldNotChangeVersion_whenOutsiderStaysBelowTop() {
+        var leaderboard = new SellerLeaderboard(15, 1);
+        leaderboard.record(1L, "John", 500, MINUTE);
+        var version = leaderboard.snapshot().version();
+
+        leaderboard.record(2L, "Jane", 100, MINUTE);
+
+        assertEquals(version, leaderboard.snapshot().version());
+    }
+}
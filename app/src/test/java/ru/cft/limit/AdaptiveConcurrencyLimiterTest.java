@@ -0,0 +1,67 @@
+package ru.cft.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long RTT_NANOS = 10_000_000L;
+
+    @Test
+    void testThat_tryAcquire_shouldRejectRequests_whenLimitIsReached() {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 2.0, 0.2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void testThat_release_shouldShrinkLimit_whenRequestsAreDropped() {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 10, 2, 10, 2.0, 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(RTT_NANOS, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testThat_release_shouldShrinkLimit_whenLatencyGrows() {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 50, 1, 100, 1.0, 1.0);
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.release(RTT_NANOS, false);
+        limiter.tryAcquire();
+        int limitBefore = limiter.getLimit();
+
+        limiter.release(RTT_NANOS * 10, false);
+
+        assertTrue(limiter.getLimit() < limitBefore);
+    }
+
+    @Test
+    void testThat_release_shouldNotGrowLimit_whenUtilizationIsLow() {
+        var limiter = new AdaptiveConcurrencyLimiter("test", 20, 1, 100, 2.0, 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(RTT_NANOS, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void testThat_constructor_shouldThrowException_whenLimitsAreInconsistent() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter("test", 1, 2, 10, 2.0, 0.2));
+    }
+}
@@ -0,0 +1,140 @@
+package ru.cft.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.cft.enums.ConnectionPath;
+import ru.cft.exception.StatementBudgetExceededException;
+import ru.cft.sql.StatementStatistics;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedDataSourceTest {
+    private static final String SQL = "SELECT 1";
+
+    @Mock
+    private DataSource target;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ConnectionPoolAccounting accounting;
+
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        this.dataSource = new InstrumentedDataSource(this.target, () -> this.accounting);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StatementStatistics.end();
+        ConnectionPathContext.clear();
+    }
+
+    @Test
+    void testThat_getConnection_shouldAccountBorrowToPathOfThread() throws SQLException {
+        when(this.target.getConnection()).thenReturn(this.connection);
+        ConnectionPathContext.set(ConnectionPath.WRITE);
+
+        try (var ignored = this.dataSource.getConnection()) {
+            verify(this.accounting).recordAcquire(eq(ConnectionPath.WRITE), anyLong());
+            verify(this.accounting, never()).recordUsage(any(), anyLong());
+        }
+
+        verify(this.accounting).recordUsage(eq(ConnectionPath.WRITE), anyLong());
+        verify(this.connection).close();
+    }
+
+    @Test
+    void testThat_getConnection_shouldCountTimeout() throws SQLException {
+        when(this.target.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+
+        assertThrows(SQLTransientConnectionException.class, () -> this.dataSource.getConnection());
+
+        verify(this.accounting).recordTimeout(ConnectionPath.BACKGROUND);
+    }
+
+    @Test
+    void testThat_statements_shouldBeCountedPerRequest() throws SQLException {
+        when(this.target.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(SQL)).thenReturn(this.statement);
+        var statistics = StatementStatistics.begin("GET /api/v1/transaction", Integer.MAX_VALUE, false);
+
+        try (var connection = this.dataSource.getConnection(); var statement = connection.prepareStatement(SQL)) {
+            statement.executeQuery();
+            statement.setLong(1, 42L);
+            statement.executeQuery();
+        }
+
+        assertEquals(2, statistics.statements());
+        assertFalse(statistics.isOverBudget());
+        verify(this.statement, times(2)).executeQuery();
+        verify(this.statement).close();
+    }
+
+    @Test
+    void testThat_statements_shouldFailOverBudget_whenBudgetIsEnforced() throws SQLException {
+        when(this.target.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(SQL)).thenReturn(this.statement);
+        var statistics = StatementStatistics.begin("GET /api/v1/transaction", 1, true);
+
+        try (var connection = this.dataSource.getConnection(); var statement = connection.prepareStatement(SQL)) {
+            statement.executeQuery();
+            var exception = assertThrows(StatementBudgetExceededException.class, statement::executeQuery);
+            assertEquals("GET /api/v1/transaction exceeded its budget of 1 SQL statements", exception.getMessage());
+        }
+
+        assertTrue(statistics.isOverBudget());
+    }
+
+    @Test
+    void testThat_statements_shouldBeCounted_whenAccountingIsDisabled() throws SQLException {
+        var statementsOnly = new InstrumentedDataSource(this.target);
+        when(this.target.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(SQL)).thenReturn(this.statement);
+        var statistics = StatementStatistics.begin("GET /api/v1/transaction", Integer.MAX_VALUE, false);
+
+        try (var connection = statementsOnly.getConnection(); var statement = connection.prepareStatement(SQL)) {
+            statement.executeQuery();
+        }
+
+        assertEquals(1, statistics.statements());
+        verify(this.connection).close();
+        verifyNoInteractions(this.accounting);
+    }
+
+    @Test
+    void testThat_statements_shouldBeCountedOnAttachedThread() throws Exception {
+        when(this.target.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(SQL)).thenReturn(this.statement);
+        var statistics = StatementStatistics.begin("GET /api/v1/analytics", Integer.MAX_VALUE, false);
+
+        var worker = Thread.ofVirtual().start(() -> {
+            StatementStatistics.attach(statistics);
+            try (var connection = this.dataSource.getConnection(); var statement = connection.prepareStatement(SQL)) {
+                statement.executeQuery();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                StatementStatistics.end();
+            }
+        });
+        worker.join();
+
+        assertEquals(1, statistics.statements());
+    }
+}
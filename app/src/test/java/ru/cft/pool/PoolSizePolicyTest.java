@@ -0,0 +1,49 @@
+package ru.cft.pool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolSizePolicyTest {
+    private static final long TARGET_WAIT_NANOS = 5_000_000L;
+    private static final long USAGE_NANOS = 2_000_000L;
+
+    @Test
+    void testThat_next_shouldGrowPool_whenConnectionsAreWaitedFor() {
+        var policy = new PoolSizePolicy(4, 20, 2, TARGET_WAIT_NANOS, 2.0);
+
+        assertEquals(12, policy.next(10, TARGET_WAIT_NANOS * 3, USAGE_NANOS, 0, 10));
+    }
+
+    @Test
+    void testThat_next_shouldGrowPool_whenAcquireTimesOut() {
+        var policy = new PoolSizePolicy(4, 20, 2, TARGET_WAIT_NANOS, 2.0);
+
+        assertEquals(12, policy.next(10, 0, 0, 3, 10));
+    }
+
+    @Test
+    void testThat_next_shouldShrinkPool_whenDatabaseSlowsDown() {
+        var policy = new PoolSizePolicy(4, 20, 2, TARGET_WAIT_NANOS, 2.0);
+        policy.next(10, 0, USAGE_NANOS, 0, 10);
+
+        assertEquals(8, policy.next(10, TARGET_WAIT_NANOS * 3, USAGE_NANOS * 5, 0, 10));
+    }
+
+    @Test
+    void testThat_next_shouldReleaseOneConnection_whenPoolIsMostlyIdle() {
+        var policy = new PoolSizePolicy(4, 20, 2, TARGET_WAIT_NANOS, 2.0);
+
+        assertEquals(9, policy.next(10, 0, USAGE_NANOS, 0, 2));
+        assertEquals(10, policy.next(10, 0, USAGE_NANOS, 0, 8));
+    }
+
+    @Test
+    void testThat_next_shouldKeepSizeWithinBounds() {
+        var policy = new PoolSizePolicy(4, 20, 2, TARGET_WAIT_NANOS, 2.0);
+
+        assertEquals(20, policy.next(19, TARGET_WAIT_NANOS * 3, USAGE_NANOS, 0, 19));
+        assertEquals(4, policy.next(4, 0, USAGE_NANOS, 0, 0));
+        assertEquals(20, policy.next(30, 0, 0, 0, 0));
+    }
+}
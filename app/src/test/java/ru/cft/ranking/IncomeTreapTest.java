@@ -0,0 +1,47 @@
+package ru.cft.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncomeTreapTest {
+    @Test
+    void testThat_countAbove_shouldCountOnlyStrictlyGreaterIncomes() {
+        var treap = new IncomeTreap();
+        treap.insert(500, 1L);
+        treap.insert(300, 2L);
+        treap.insert(300, 3L);
+        treap.insert(100, 4L);
+
+        assertEquals(0, treap.countAbove(500));
+        assertEquals(1, treap.countAbove(300));
+        assertEquals(3, treap.countAbove(100));
+        assertEquals(4, treap.size());
+    }
+
+    @Test
+    void testThat_updates_shouldMatchBruteForceCounts() {
+        var treap = new IncomeTreap();
+        var incomes = new HashMap<Long, Long>();
+        var random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long sellerId = random.nextInt(200);
+            long cents = random.nextInt(1000);
+            var previous = incomes.get(sellerId);
+            if (previous != null) {
+                treap.remove(previous, sellerId);
+            }
+            long updated = previous == null ? cents : previous + cents;
+            treap.insert(updated, sellerId);
+            incomes.put(sellerId, updated);
+
+            long probe = random.nextInt(20000);
+            long expected = incomes.values().stream().filter(income -> income > probe).count();
+            assertEquals(expected, treap.countAbove(probe));
+        }
+        assertEquals(incomes.size(), treap.size());
+    }
+}
@@ -0,0 +1,130 @@
+package ru.cft.ranking;
+
+import org.junit.jupiter.api.Test;
+import ru.cft.dto.SellerIncomeInternalDto;
+import ru.cft.entity.Seller;
+import ru.cft.entity.Transaction;
+import ru.cft.enums.IncomeGranularity;
+import ru.cft.enums.PaymentType;
+import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.sharding.ShardedTransactionStore;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SellerRankIndexTest {
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final SellerRepository sellerRepository = mock(SellerRepository.class);
+    private final SellerRankIndex index =
+            new SellerRankIndex(this.transactionRepository, mock(ShardedTransactionStore.class), this.sellerRepository);
+
+    private static Transaction transaction(long sellerId, String amount, LocalDateTime date) {
+        return Transaction.builder()
+                .seller(Seller.builder().id(sellerId).build())
+                .amount(new BigDecimal(amount))
+                .paymentType(PaymentType.CARD)
+                .transactionDate(date)
+                .build();
+    }
+
+    @Test
+    void testThat_rank_shouldReflectEveryRecordedTransaction() {
+        var now = LocalDateTime.now();
+        this.index.record(transaction(1L, "100", now));
+        this.index.record(transaction(2L, "300", now));
+        this.index.record(transaction(3L, "200", now));
+        this.index.record(transaction(1L, "250", now));
+
+        var rank = this.index.rank(3L, IncomeGranularity.DAY);
+
+        assertEquals(20000L, rank.incomeCents());
+        assertEquals(2, rank.sellersAbove());
+        assertEquals(3, rank.rankedSellers());
+    }
+
+    @Test
+    void testThat_rank_shouldIgnoreTransactionsOfPreviousPeriods() {
+        var now = LocalDateTime.now();
+        this.index.record(transaction(1L, "100", now));
+        this.index.record(transaction(2L, "300", IncomeGranularity.MONTH.truncate(now).minusDays(1)));
+
+        var rank = this.index.rank(2L, IncomeGranularity.MONTH);
+
+        assertNull(rank.incomeCents());
+        assertEquals(1, rank.rankedSellers());
+    }
+
+    @Test
+    void testThat_record_shouldSkipAmount_whenItDoesNotFitInCents() {
+        var now = LocalDateTime.now();
+        this.index.record(transaction(1L, "100", now));
+
+        assertDoesNotThrow(() -> this.index.record(transaction(2L, "100000000000000000", now)));
+
+        assertNull(this.index.rank(2L, IncomeGranularity.DAY).incomeCents());
+        assertEquals(1, this.index.rank(1L, IncomeGranularity.DAY).rankedSellers());
+    }
+
+    @Test
+    void testThat_reload_shouldReplaceRecordedIncomes_withDatabaseTotals() {
+        var now = LocalDateTime.now();
+        this.index.record(transaction(1L, "100", now));
+        this.index.record(transaction(2L, "300", now));
+        when(this.transactionRepository.findIncomeBySeller(any(), any())).thenReturn(List.of(
+                SellerIncomeInternalDto.builder().sellerId(1L).income(new BigDecimal("500")).build(),
+                SellerIncomeInternalDto.builder().sellerId(3L).income(new BigDecimal("50")).build()
+        ));
+
+        this.index.reload();
+
+        var rank = this.index.rank(1L, IncomeGranularity.DAY);
+        assertEquals(50000L, rank.incomeCents());
+        assertEquals(0, rank.sellersAbove());
+        assertEquals(2, rank.rankedSellers());
+        assertNull(this.index.rank(2L, IncomeGranularity.DAY).incomeCents());
+    }
+
+    @Test
+    void testThat_reload_shouldSkipSellersPendingDeletion() {
+        when(this.sellerRepository.findAllIdsPendingDeletion()).thenReturn(Set.of(3L));
+        when(this.transactionRepository.findIncomeBySeller(any(), any())).thenReturn(List.of(
+                SellerIncomeInternalDto.builder().sellerId(1L).income(new BigDecimal("500")).build(),
+                SellerIncomeInternalDto.builder().sellerId(3L).income(new BigDecimal("900")).build()
+        ));
+
+        this.index.reload();
+
+        var rank = this.index.rank(1L, IncomeGranularity.DAY);
+        assertEquals(0, rank.sellersAbove());
+        assertEquals(1, rank.rankedSellers());
+        assertNull(this.index.rank(3L, IncomeGranularity.DAY).incomeCents());
+    }
+
+    @Test
+    void testThat_reload_shouldKeepTransactionsRecordedWhileQuerying() {
+        var now = LocalDateTime.now();
+        var recorded = new AtomicBoolean();
+        when(this.transactionRepository.findIncomeBySeller(any(), any())).thenAnswer(invocation -> {
+            if (recorded.compareAndSet(false, true)) {
+                this.index.record(transaction(2L, "300", now));
+            }
+            return List.of(SellerIncomeInternalDto.builder().sellerId(1L).income(new BigDecimal("500")).build());
+        });
+
+        this.index.reload();
+
+        for (var granularity : IncomeGranularity.values()) {
+            assertEquals(30000L, this.index.rank(2L, granularity).incomeCents());
+            assertEquals(1, this.index.rank(2L, granularity).sellersAbove());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ru.cft.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import ru.cft.configuration.SellerSearchProperties;
+import ru.cft.dto.seller.SellerDto;
+import ru.cft.mapper.SellerMapper;
+import ru.cft.repository.SellerRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SellerSearchIndexTest {
+    private static final LocalDateTime FIXED_DATE =
+            LocalDateTime.of(2025, 8, 28, 15, 45, 23);
+
+    @Mock
+    private SellerRepository sellerRepository;
+    @Mock
+    private SellerMapper sellerMapper;
+    private SellerSearchIndex sellerSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.sellerSearchIndex = new SellerSearchIndex(this.sellerRepository, this.sellerMapper,
+                new SellerSearchProperties(1000, 100000));
+    }
+
+    @Test
+    void testThat_search_shouldRankNameMatchesBeforeContactMatches() {
+        var byContact = seller(1L, "Jane Roe", "doe@shop.com");
+        var byName = seller(2L, "John Doe", "john@shop.com");
+        var byNamePrefix = seller(3L, "Doe Trading", "sales@trading.com");
+        var unrelated = seller(4L, "Acme", "acme@acme.com");
+        List.of(byContact, byName, byNamePrefix, unrelated).forEach(this.sellerSearchIndex::upsert);
+
+        var result = this.sellerSearchIndex.search("DOE", 10);
+
+        assertEquals(List.of(byNamePrefix, byName, byContact), result);
+    }
+
+    @Test
+    void testThat_search_shouldRespectLimit() {
+        for (long id = 1; id <= 10; id++) {
+            this.sellerSearchIndex.upsert(seller(id, "Seller " + id, "seller" + id + "@shop.com"));
+        }
+
+        assertEquals(3, this.sellerSearchIndex.search("seller", 3).size());
+    }
+
+    @Test
+    void testThat_upsert_shouldReplacePreviousVersion() {
+        this.sellerSearchIndex.upsert(seller(1L, "John Doe", "john@doe.com"));
+        var renamed = seller(1L, "Richard Roe", "richard@roe.com");
+
+        this.sellerSearchIndex.upsert(renamed);
+
+        assertTrue(this.sellerSearchIndex.search("doe", 10).isEmpty());
+        assertEquals(List.of(renamed), this.sellerSearchIndex.search("roe", 10));
+    }
+
+    @Test
+    void testThat_remove_shouldHideSellerFromSearch() {
+        this.sellerSearchIndex.upsert(seller(1L, "John Doe", "john@doe.com"));
+
+        this.sellerSearchIndex.remove(1L);
+
+        assertTrue(this.sellerSearchIndex.search("john", 10).isEmpty());
+    }
+
+    @Test
+    void testThat_search_shouldRequireAllTrigrams() {
+        this.sellerSearchIndex.upsert(seller(1L, "abcd", "x@y.z"));
+        this.sellerSearchIndex.upsert(seller(2L, "bcde", "x@y.z"));
+
+        assertEquals(List.of(seller(1L, "abcd", "x@y.z")), this.sellerSearchIndex.search("abcd", 10));
+    }
+
+    @Test
+    void testThat_rebuild_shouldKeepCurrentState_whenLoadFails() {
+        var existing = seller(1L, "John Doe", "john@doe.com");
+        this.sellerSearchIndex.upsert(existing);
+        when(this.sellerRepository.findByIdGreaterThanAndDeletionRequestedAtIsNullOrderByIdAsc(anyLong(), any(Limit.class)))
+                .thenThrow(new DataAccessResourceFailureException("database is down"))
+                .thenReturn(List.of());
+
+        assertThrows(DataAccessResourceFailureException.class, this.sellerSearchIndex::rebuild);
+
+        assertEquals(List.of(existing), this.sellerSearchIndex.search("doe", 10));
+        this.sellerSearchIndex.rebuild();
+        assertTrue(this.sellerSearchIndex.search("doe", 10).isEmpty());
+    }
+
+    private static SellerDto seller(Long id, String name, String contactInfo) {
+        return SellerDto.builder().id(id).name(name).contactInfo(contactInfo).registrationDate(FIXED_DATE).build();
+    }
+}
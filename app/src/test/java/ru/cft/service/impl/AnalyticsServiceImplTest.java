@@ -5,13 +5,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.cft.archive.ArchivedTransaction;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.dto.DateRangeDto;
+import ru.cft.dto.PaymentTypeIncomeInternalDto;
+import ru.cft.dto.SellerIncomeInternalDto;
 import ru.cft.dto.SellerWithIncomeInternalDto;
+import ru.cft.dto.TransactionIncomeInternalDto;
+import ru.cft.dto.analytics.IncomeBucketDto;
+import ru.cft.dto.analytics.IncomeSeriesDto;
+import ru.cft.dto.analytics.PeriodAnalyticsDto;
 import ru.cft.dto.seller.SellerDto;
 import ru.cft.entity.Seller;
+import ru.cft.enums.IncomeGranularity;
+import ru.cft.enums.PaymentType;
 import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.leaderboard.LeaderboardPublisher;
 import ru.cft.mapper.AnalyticsMapper;
 import ru.cft.mapper.SellerMapper;
+import ru.cft.ranking.SellerRankIndex;
 import ru.cft.repository.SellerRepository;
+import ru.cft.repository.TransactionRepository;
+import ru.cft.series.SellerIncomeSeries;
+import ru.cft.sharding.ShardedTransactionStore;
 import ru.cft.dto.analytics.SellerWithIncomeDto;
 
 import java.math.BigDecimal;
@@ -19,6 +35,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +51,18 @@ class AnalyticsServiceImplTest {
     private SellerRepository sellerRepository;
     @Mock
     private AnalyticsMapper analyticsMapper;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private TransactionArchive transactionArchive;
+    @Mock
+    private LeaderboardPublisher leaderboardPublisher;
+    @Mock
+    private ShardedTransactionStore shardedTransactionStore;
+    @Mock
+    private SellerIncomeSeries sellerIncomeSeries;
+    @Mock
+    private SellerRankIndex sellerRankIndex;
     @InjectMocks
     private AnalyticsServiceImpl analyticsService;
     private static final LocalDateTime FIXED_DATE =
@@ -81,6 +113,37 @@ class AnalyticsServiceImplTest {
         verifyNoInteractions(this.analyticsMapper);
     }
 
+    @Test
+    void testThat_findTopSellerByPeriod_shouldMergeHotAndArchivedIncome_whenArchiveOverlaps() {
+        var first = Seller.builder().id(1L).name("John Doe 1").build();
+        var second = Seller.builder().id(2L).name("John Doe 2").build();
+        var expectedDto = SellerWithIncomeDto.builder()
+                .seller(SellerDto.builder().id(second.getId()).name(second.getName()).build())
+                .sumOfTransactionAmount(new BigDecimal("700.00"))
+                .build();
+
+        when(this.transactionArchive.overlaps(START_DATE, END_DATE)).thenReturn(true);
+        when(this.transactionRepository.findIncomeBySeller(START_DATE, END_DATE)).thenReturn(List.of(
+                SellerIncomeInternalDto.builder().sellerId(1L).income(BigDecimal.valueOf(500)).build(),
+                SellerIncomeInternalDto.builder().sellerId(2L).income(BigDecimal.valueOf(300)).build()
+        ));
+        doAnswer(invocation -> {
+            Consumer<ArchivedTransaction> action = invocation.getArgument(2);
+            action.accept(new ArchivedTransaction(10L, 2L, BigDecimal.valueOf(400), PaymentType.CARD, START_DATE));
+            return null;
+        }).when(this.transactionArchive).forEachInRange(eq(START_DATE), eq(END_DATE), any());
+        when(this.sellerRepository.findAllActiveByIdIn(anyCollection())).thenReturn(List.of(first, second));
+        when(this.analyticsMapper.toDto(SellerWithIncomeInternalDto.builder()
+                .seller(second)
+                .sumOfTransactionAmount(new BigDecimal("700.00"))
+                .build())).thenReturn(expectedDto);
+
+        var result = this.analyticsService.findTopSellerByPeriod(START_DATE, END_DATE);
+
+        assertEquals(expectedDto, result);
+        verify(this.sellerRepository, never()).findBestSellerByPeriod(any(), any());
+    }
+
     @Test
     void testThat_findSellersWithIncomeLessThanThresholdByPeriod_shouldReturnListOfDtos() {
         var incomeThreshold = BigDecimal.valueOf(500);
@@ -121,4 +184,173 @@ class AnalyticsServiceImplTest {
         verify(this.sellerRepository).findAllSellersWithIncomeLowerThanThreshold(incomeThreshold, START_DATE, END_DATE);
         verifyNoInteractions(this.sellerMapper);
     }
+
+    @Test
+    void testThat_findSellersWithIncomeLessThanThresholdByPeriod_shouldLookUpSellersInChunks_whenManySellersHaveIncome() {
+        when(this.transactionArchive.overlaps(START_DATE, END_DATE)).thenReturn(true);
+        when(this.transactionRepository.findIncomeBySeller(START_DATE, END_DATE)).thenReturn(LongStream.rangeClosed(1, 2500)
+                .mapToObj(id -> SellerIncomeInternalDto.builder().sellerId(id).income(BigDecimal.ONE).build())
+                .toList());
+
+        var result = this.analyticsService.findSellersWithIncomeLessThanThresholdByPeriod(BigDecimal.TEN, START_DATE, END_DATE);
+
+        assertTrue(result.isEmpty());
+        verify(this.sellerRepository, times(3)).findAllActiveByIdIn(argThat(ids -> ids.size() <= 1000));
+    }
+
+    @Test
+    void testThat_findAnalyticsByPeriods_shouldAggregateEveryPeriodInOnePass() {
+        var first = Seller.builder().id(1L).name("John Doe 1").build();
+        var second = Seller.builder().id(2L).name("John Doe 2").build();
+        var firstDay = new DateRangeDto(START_DATE, START_DATE.plusDays(1).minusNanos(1000));
+        var secondDay = new DateRangeDto(START_DATE.plusDays(1), START_DATE.plusDays(2).minusNanos(1000));
+        var firstDto = SellerDto.builder().id(first.getId()).name(first.getName()).build();
+        var secondDto = SellerDto.builder().id(second.getId()).name(second.getName()).build();
+        var firstDayTop = SellerWithIncomeDto.builder().seller(firstDto).sumOfTransactionAmount(new BigDecimal("500.00")).build();
+        var secondDayTop = SellerWithIncomeDto.builder().seller(secondDto).sumOfTransactionAmount(new BigDecimal("300.00")).build();
+
+        when(this.transactionRepository.streamIncomeOrderedByDate(firstDay.startDate(), secondDay.endDate())).thenReturn(Stream.of(
+                new TransactionIncomeInternalDto(1L, BigDecimal.valueOf(500), START_DATE.plusHours(1)),
+                new TransactionIncomeInternalDto(2L, BigDecimal.valueOf(50), START_DATE.plusHours(2)),
+                new TransactionIncomeInternalDto(2L, BigDecimal.valueOf(300), START_DATE.plusDays(1).plusHours(1))
+        ));
+        when(this.sellerRepository.findAllActiveByIdIn(anyCollection())).thenReturn(List.of(first, second));
+        when(this.analyticsMapper.toDto(SellerWithIncomeInternalDto.builder().seller(first).sumOfTransactionAmount(new BigDecimal("500.00")).build()))
+                .thenReturn(firstDayTop);
+        when(this.analyticsMapper.toDto(SellerWithIncomeInternalDto.builder().seller(second).sumOfTransactionAmount(new BigDecimal("300.00")).build()))
+                .thenReturn(secondDayTop);
+        when(this.sellerMapper.toDto(second)).thenReturn(secondDto);
+
+        var result = this.analyticsService.findAnalyticsByPeriods(List.of(firstDay, secondDay), BigDecimal.valueOf(100));
+
+        assertEquals(List.of(
+                PeriodAnalyticsDto.builder().start(firstDay.startDate()).end(firstDay.endDate())
+                        .topSeller(firstDayTop).sellersWithIncomeLessThanThreshold(List.of(secondDto)).build(),
+                PeriodAnalyticsDto.builder().start(secondDay.startDate()).end(secondDay.endDate())
+                        .topSeller(secondDayTop).sellersWithIncomeLessThanThreshold(List.of()).build()
+        ), result);
+        verify(this.transactionRepository).streamIncomeOrderedByDate(any(), any());
+        verify(this.sellerRepository).findAllActiveByIdIn(anyCollection());
+        verify(this.sellerRepository, never()).findBestSellerByPeriod(any(), any());
+    }
+
+    @Test
+    void testThat_findAnalyticsByPeriods_shouldLookUpSellersInChunks_whenManySellersHaveIncome() {
+        var period = new DateRangeDto(START_DATE, END_DATE);
+        when(this.transactionRepository.streamIncomeOrderedByDate(START_DATE, END_DATE)).thenReturn(LongStream.rangeClosed(1, 2001)
+                .mapToObj(id -> new TransactionIncomeInternalDto(id, BigDecimal.ONE, START_DATE.plusHours(1))));
+
+        var result = this.analyticsService.findAnalyticsByPeriods(List.of(period), null);
+
+        assertEquals(1, result.size());
+        assertNull(result.getFirst().topSeller());
+        verify(this.sellerRepository, times(3)).findAllActiveByIdIn(argThat(ids -> ids.size() <= 1000));
+    }
+
+    @Test
+    void testThat_findIncomeSeries_shouldReturnSeriesOfActiveSeller() {
+        var buckets = List.of(
+                IncomeBucketDto.builder().start(START_DATE).income(new BigDecimal("100.00")).build(),
+                IncomeBucketDto.builder().start(START_DATE.plusDays(1)).income(new BigDecimal("0.00")).build()
+        );
+        when(this.sellerRepository.existsActiveById(1L)).thenReturn(true);
+        when(this.sellerIncomeSeries.compute(1L, IncomeGranularity.DAY, START_DATE, END_DATE)).thenReturn(buckets);
+
+        var result = this.analyticsService.findIncomeSeries(1L, START_DATE, END_DATE, IncomeGranularity.DAY);
+
+        assertEquals(IncomeSeriesDto.builder().sellerId(1L).granularity(IncomeGranularity.DAY).buckets(buckets).build(), result);
+    }
+
+    @Test
+    void testThat_findIncomeSeries_shouldThrowException_whenSellerDoesNotExist() {
+        when(this.sellerRepository.existsActiveById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> this.analyticsService.findIncomeSeries(1L, START_DATE, END_DATE, IncomeGranularity.DAY));
+        verifyNoInteractions(this.sellerIncomeSeries);
+    }
+
+    @Test
+    void testThat_findSellerRank_shouldAggregateIncome_whenPeriodIsNotLive() {
+        when(this.sellerRepository.existsActiveById(2L)).thenReturn(true);
+        when(this.transactionRepository.findIncomeBySeller(START_DATE, END_DATE)).thenReturn(List.of(
+                SellerIncomeInternalDto.builder().sellerId(1L).income(BigDecimal.valueOf(500)).build(),
+                SellerIncomeInternalDto.builder().sellerId(2L).income(BigDecimal.valueOf(300)).build(),
+                SellerIncomeInternalDto.builder().sellerId(3L).income(BigDecimal.valueOf(100)).build(),
+                SellerIncomeInternalDto.builder().sellerId(4L).income(BigDecimal.valueOf(50)).build()
+        ));
+
+        var result = this.analyticsService.findSellerRank(2L, START_DATE, END_DATE);
+
+        assertEquals(new BigDecimal("300.00"), result.income());
+        assertEquals(2, result.rank());
+        assertEquals(4, result.rankedSellers());
+        assertEquals(new BigDecimal("50.00"), result.topPercent());
+        verifyNoInteractions(this.sellerRankIndex);
+    }
+
+    @Test
+    void testThat_findSellerRank_shouldNotRankSellersPendingDeletion_whenPeriodIsNotLive() {
+        when(this.sellerRepository.existsActiveById(2L)).thenReturn(true);
+        when(this.sellerRepository.findAllIdsPendingDeletion()).thenReturn(Set.of(1L));
+        when(this.transactionRepository.findIncomeBySeller(START_DATE, END_DATE)).thenReturn(List.of(
+                SellerIncomeInternalDto.builder().sellerId(1L).income(BigDecimal.valueOf(500)).build(),
+                SellerIncomeInternalDto.builder().sellerId(2L).income(BigDecimal.valueOf(300)).build(),
+                SellerIncomeInternalDto.builder().sellerId(3L).income(BigDecimal.valueOf(100)).build()
+        ));
+
+        var result = this.analyticsService.findSellerRank(2L, START_DATE, END_DATE);
+
+        assertEquals(1, result.rank());
+        assertEquals(2, result.rankedSellers());
+    }
+
+    @Test
+    void testThat_findPaymentBreakdownByPeriod_shouldFillAllPaymentTypes() {
+        when(this.transactionRepository.findIncomeByPaymentType(START_DATE, END_DATE)).thenReturn(List.of(
+                PaymentTypeIncomeInternalDto.builder().paymentType(PaymentType.CARD).income(BigDecimal.valueOf(150.5)).transactionCount(3L).build(),
+                PaymentTypeIncomeInternalDto.builder().paymentType(PaymentType.CASH).income(BigDecimal.valueOf(49.5)).transactionCount(1L).build()
+        ));
+
+        var result = this.analyticsService.findPaymentBreakdownByPeriod(START_DATE, END_DATE, null);
+
+        assertEquals(new BigDecimal("200.00"), result.totalIncome());
+        assertEquals(4, result.totalTransactionCount());
+        assertEquals(PaymentType.values().length, result.byPaymentType().size());
+        var transfer = result.byPaymentType().get(PaymentType.TRANSFER.ordinal());
+        assertEquals(PaymentType.TRANSFER, transfer.paymentType());
+        assertEquals(new BigDecimal("0.00"), transfer.income());
+        assertEquals(0, transfer.transactionCount());
+        verify(this.transactionRepository).findIncomeByPaymentType(START_DATE, END_DATE);
+        verifyNoInteractions(this.sellerRepository);
+    }
+
+    @Test
+    void testThat_findPaymentBreakdownByPeriod_shouldSkipArchivedTransactions_whenSellerIsPendingDeletion() {
+        when(this.transactionArchive.overlaps(START_DATE, END_DATE)).thenReturn(true);
+        when(this.sellerRepository.findAllIdsPendingDeletion()).thenReturn(Set.of(2L));
+        doAnswer(invocation -> {
+            Consumer<ArchivedTransaction> action = invocation.getArgument(2);
+            action.accept(new ArchivedTransaction(10L, 1L, BigDecimal.valueOf(40), PaymentType.CARD, START_DATE));
+            action.accept(new ArchivedTransaction(11L, 2L, BigDecimal.valueOf(60), PaymentType.CARD, START_DATE));
+            return null;
+        }).when(this.transactionArchive).forEachInRange(eq(START_DATE), eq(END_DATE), any());
+
+        var result = this.analyticsService.findPaymentBreakdownByPeriod(START_DATE, END_DATE, null);
+
+        assertEquals(new BigDecimal("40.00"), result.totalIncome());
+        assertEquals(1, result.totalTransactionCount());
+    }
+
+    @Test
+    void testThat_findPaymentBreakdownByPeriod_shouldThrowException_whenSellerDoesNotExist() {
+        long sellerId = 42L;
+        when(this.sellerRepository.existsActiveById(sellerId)).thenReturn(false);
+
+        var exception = assertThrows(ResourceNotFoundException.class,
+                () -> this.analyticsService.findPaymentBreakdownByPeriod(START_DATE, END_DATE, sellerId));
+
+        assertEquals("There is no seller with id " + sellerId, exception.getMessage());
+        verifyNoInteractions(this.transactionRepository);
+    }
 }
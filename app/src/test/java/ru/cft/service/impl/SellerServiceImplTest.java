@@ -5,18 +5,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.cft.cache.SellerCache;
+import ru.cft.cache.SellerInvalidationBus;
 import ru.cft.dto.seller.SellerCreateDto;
+import ru.cft.dto.seller.SellerDeletionDto;
 import ru.cft.dto.seller.SellerDto;
 import ru.cft.dto.seller.SellerPatchDto;
 import ru.cft.dto.seller.SellerUpdateDto;
 import ru.cft.entity.Seller;
+import ru.cft.entity.SellerDeletion;
+import ru.cft.enums.SellerDeletionStatus;
 import ru.cft.exception.ResourceNotFoundException;
 import ru.cft.mapper.SellerMapper;
+import ru.cft.repository.SellerDeletionRepository;
 import ru.cft.repository.SellerRepository;
+import ru.cft.search.SellerSearchIndex;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -27,7 +35,15 @@ class SellerServiceImplTest {
     @Mock
     private SellerRepository sellerRepository;
     @Mock
+    private SellerDeletionRepository sellerDeletionRepository;
+    @Mock
     private SellerMapper sellerMapper;
+    @Mock
+    private SellerSearchIndex sellerSearchIndex;
+    @Mock
+    private SellerCache sellerCache;
+    @Mock
+    private SellerInvalidationBus sellerInvalidationBus;
     @InjectMocks
     private SellerServiceImpl sellerService;
     private static final LocalDateTime FIXED_DATE =
@@ -48,14 +64,14 @@ class SellerServiceImplTest {
                         .build()
         ).toList();
 
-        when(this.sellerRepository.findAll()).thenReturn(sellers);
+        when(this.sellerRepository.findAllActive()).thenReturn(sellers);
         when(this.sellerMapper.toDto(sellers.get(0))).thenReturn(expectedDtos.get(0));
         when(this.sellerMapper.toDto(sellers.get(1))).thenReturn(expectedDtos.get(1));
 
         var result = this.sellerService.findAll();
 
         assertEquals(expectedDtos, result);
-        verify(this.sellerRepository, times(1)).findAll();
+        verify(this.sellerRepository, times(1)).findAllActive();
         verify(this.sellerMapper, times(2)).toDto(any(Seller.class));
     }
 
@@ -70,29 +86,73 @@ class SellerServiceImplTest {
                 .registrationDate(seller.getRegistrationDate())
                 .build();
 
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.of(seller));
+        when(this.sellerRepository.findActiveById(id)).thenReturn(Optional.of(seller));
         when(this.sellerMapper.toDto(seller)).thenReturn(expectedDto);
 
         var result = this.sellerService.findById(id);
 
         assertEquals(expectedDto, result);
-        verify(sellerRepository, times(1)).findById(id);
+        verify(sellerRepository, times(1)).findActiveById(id);
         verify(sellerMapper, times(1)).toDto(seller);
+        verify(this.sellerCache).put(id, expectedDto, 0L);
+    }
+
+    @Test
+    void testThat_findById_shouldReturnCachedDto_whenCached() {
+        var id = 42L;
+        var cachedDto = SellerDto.builder().id(id).name("John Doe").build();
+
+        when(this.sellerCache.get(id)).thenReturn(cachedDto);
+
+        var result = this.sellerService.findById(id);
+
+        assertEquals(cachedDto, result);
+        verifyNoInteractions(this.sellerRepository, this.sellerMapper);
     }
 
     @Test
     void testThat_findById_shouldThrowException_whenNotExists() {
         var id = 42L;
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.sellerRepository.findActiveById(id)).thenReturn(Optional.empty());
 
         var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.sellerService.findById(id));
 
         assertEquals(String.format("There is no seller with id %d", id), exception.getMessage());
-        verify(this.sellerRepository, times(1)).findById(id);
+        verify(this.sellerRepository, times(1)).findActiveById(id);
         verifyNoInteractions(this.sellerMapper);
     }
 
+    @Test
+    void testThat_lookup_shouldCombineCacheAndDatabase_andReportMissingIds() {
+        var cachedDto = SellerDto.builder().id(1L).name("John Doe 1").build();
+        var seller = Seller.builder().id(2L).name("John Doe 2").contactInfo("john2@doe.com").registrationDate(FIXED_DATE).build();
+        var sellerDto = SellerDto.builder().id(2L).name("John Doe 2").build();
+
+        when(this.sellerCache.get(1L)).thenReturn(cachedDto);
+        when(this.sellerRepository.findAllActiveByIdIn(List.of(2L, 3L))).thenReturn(List.of(seller));
+        when(this.sellerMapper.toDto(seller)).thenReturn(sellerDto);
+
+        var result = this.sellerService.lookup(List.of(2L, 1L, 2L, 3L));
+
+        assertEquals(List.of(sellerDto, cachedDto), result.found());
+        assertEquals(List.of(3L), result.missing());
+        verify(this.sellerRepository, times(1)).findAllActiveByIdIn(List.of(2L, 3L));
+        verify(this.sellerCache).put(2L, sellerDto, 0L);
+    }
+
+    @Test
+    void testThat_findEntitiesByIds_shouldQueryInChunks_whenManyIdsAreRequested() {
+        var ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+        var seller = Seller.builder().id(1L).name("John Doe").build();
+        when(this.sellerRepository.findAllActiveByIdIn(ids.subList(0, 1000))).thenReturn(List.of(seller));
+
+        var result = this.sellerService.findEntitiesByIds(ids);
+
+        assertEquals(List.of(seller), result);
+        verify(this.sellerRepository, times(3)).findAllActiveByIdIn(argThat(chunk -> chunk.size() <= 1000));
+    }
+
     @Test
     void testThat_create_shouldSaveAndReturnDto() {
         var sellerCreateDto = SellerCreateDto.builder().name("John Doe").contactInfo("john@doe.com").build();
@@ -115,40 +175,43 @@ class SellerServiceImplTest {
         verify(this.sellerMapper).toEntityWithoutEnrichment(sellerCreateDto);
         verify(this.sellerRepository).save(seller);
         verify(this.sellerMapper).toDto(saved);
+        verify(this.sellerSearchIndex).upsert(expectedDto);
     }
 
     @Test
     void testThat_deleteById_shouldDelete_whenExists() {
         var id = 42L;
-        var seller = Seller.builder().id(id).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
 
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.of(seller));
+        when(this.sellerRepository.deleteActiveById(id)).thenReturn(1);
 
         this.sellerService.deleteById(id);
 
-        verify(this.sellerRepository).deleteById(id);
+        verify(this.sellerRepository).deleteActiveById(id);
+        verify(this.sellerRepository, never()).findActiveById(any());
+        verify(this.sellerSearchIndex).remove(id);
+        verify(this.sellerInvalidationBus).publish(id);
     }
 
     @Test
     void testThat_deleteById_shouldThrowException_whenNotExists() {
         var id = 42L;
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.sellerRepository.deleteActiveById(id)).thenReturn(0);
 
-        assertThrows(ResourceNotFoundException.class,
+        var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.sellerService.deleteById(id));
 
-        verify(this.sellerRepository, never()).deleteById(any());
+        assertEquals(String.format("There is no seller with id %d", id), exception.getMessage());
+        verifyNoInteractions(this.sellerSearchIndex, this.sellerInvalidationBus);
     }
 
     @Test
     void testThat_put_shouldUpdateAndReturnDto_whenExists() {
-        var seller = Seller.builder().id(42L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
-        var sellerUpdateDto = SellerUpdateDto.builder().id(seller.getId()).name("Updated Doe").contactInfo("updated@doe.com").build();
+        var sellerUpdateDto = SellerUpdateDto.builder().id(42L).name("Updated Doe").contactInfo("updated@doe.com").build();
         var updatedSeller = Seller.builder()
-                .id(seller.getId())
+                .id(sellerUpdateDto.id())
                 .name(sellerUpdateDto.name())
                 .contactInfo(sellerUpdateDto.contactInfo())
-                .registrationDate(seller.getRegistrationDate())
+                .registrationDate(FIXED_DATE)
                 .build();
         var expectedDto = SellerDto.builder()
                 .id(updatedSeller.getId())
@@ -157,20 +220,17 @@ class SellerServiceImplTest {
                 .registrationDate(updatedSeller.getRegistrationDate())
                 .build();
 
-        when(this.sellerRepository.findById(seller.getId())).thenReturn(Optional.of(seller));
-        doAnswer(invocation -> {
-            seller.setName(sellerUpdateDto.name());
-            seller.setContactInfo(sellerUpdateDto.contactInfo());
-            return null;
-        }).when(this.sellerMapper).updateEntity(sellerUpdateDto, seller);
-        when(this.sellerRepository.save(seller)).thenReturn(updatedSeller);
+        when(this.sellerRepository.updateActive(sellerUpdateDto.id(), sellerUpdateDto.name(), sellerUpdateDto.contactInfo()))
+                .thenReturn(Optional.of(updatedSeller));
         when(this.sellerMapper.toDto(updatedSeller)).thenReturn(expectedDto);
 
         var result = this.sellerService.put(sellerUpdateDto);
 
         assertEquals(expectedDto, result);
-        verify(this.sellerMapper).updateEntity(sellerUpdateDto, seller);
-        verify(this.sellerRepository).save(seller);
+        verify(this.sellerRepository, never()).findActiveById(any());
+        verify(this.sellerRepository, never()).save(any());
+        verify(this.sellerSearchIndex).upsert(expectedDto);
+        verify(this.sellerInvalidationBus).publish(sellerUpdateDto.id());
     }
 
     @Test
@@ -178,26 +238,24 @@ class SellerServiceImplTest {
         var id = 42L;
         var sellerUpdateDto = SellerUpdateDto.builder().id(id).name("Updated Doe").contactInfo("updated@doe.com").build();
 
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.sellerRepository.updateActive(id, sellerUpdateDto.name(), sellerUpdateDto.contactInfo()))
+                .thenReturn(Optional.empty());
 
         var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.sellerService.put(sellerUpdateDto));
 
         assertEquals(String.format("There is no seller with id %d", id), exception.getMessage());
-        verify(this.sellerRepository).findById(id);
-        verify(this.sellerRepository, never()).save(any());
-        verifyNoInteractions(this.sellerMapper);
+        verifyNoInteractions(this.sellerMapper, this.sellerSearchIndex, this.sellerInvalidationBus);
     }
 
     @Test
     void testThat_patch_shouldPatchAndReturnDto_whenExists() {
-        var seller = Seller.builder().id(42L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
-        var sellerPatchDto = SellerPatchDto.builder().id(seller.getId()).name("Updated Doe").build();
+        var sellerPatchDto = SellerPatchDto.builder().id(42L).name("Updated Doe").build();
         var patchedSeller = Seller.builder()
-                .id(seller.getId())
+                .id(sellerPatchDto.id())
                 .name(sellerPatchDto.name())
-                .contactInfo(seller.getContactInfo())
-                .registrationDate(seller.getRegistrationDate())
+                .contactInfo("john@doe.com")
+                .registrationDate(FIXED_DATE)
                 .build();
         var expectedDto = SellerDto.builder()
                 .id(patchedSeller.getId())
@@ -206,19 +264,17 @@ class SellerServiceImplTest {
                 .registrationDate(patchedSeller.getRegistrationDate())
                 .build();
 
-        when(this.sellerRepository.findById(seller.getId())).thenReturn(Optional.of(seller));
-        doAnswer(invocation -> {
-            seller.setName(sellerPatchDto.name());
-            return null;
-        }).when(this.sellerMapper).patchEntity(sellerPatchDto, seller);
-        when(this.sellerRepository.save(seller)).thenReturn(patchedSeller);
+        when(this.sellerRepository.patchActive(sellerPatchDto.id(), sellerPatchDto.name(), null))
+                .thenReturn(Optional.of(patchedSeller));
         when(this.sellerMapper.toDto(patchedSeller)).thenReturn(expectedDto);
 
         var result = this.sellerService.patch(sellerPatchDto);
 
         assertEquals(expectedDto, result);
-        verify(this.sellerMapper).patchEntity(sellerPatchDto, seller);
-        verify(this.sellerRepository).save(seller);
+        verify(this.sellerRepository, never()).findActiveById(any());
+        verify(this.sellerRepository, never()).save(any());
+        verify(this.sellerSearchIndex).upsert(expectedDto);
+        verify(this.sellerInvalidationBus).publish(sellerPatchDto.id());
     }
 
     @Test
@@ -226,15 +282,13 @@ class SellerServiceImplTest {
         var id = 42L;
         var sellerPatchDto = SellerPatchDto.builder().id(id).name("Updated Doe").build();
 
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.sellerRepository.patchActive(id, sellerPatchDto.name(), null)).thenReturn(Optional.empty());
 
         var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.sellerService.patch(sellerPatchDto));
 
         assertEquals(String.format("There is no seller with id %d", id), exception.getMessage());
-        verify(this.sellerRepository).findById(id);
-        verify(this.sellerRepository, never()).save(any());
-        verifyNoInteractions(this.sellerMapper);
+        verifyNoInteractions(this.sellerMapper, this.sellerSearchIndex, this.sellerInvalidationBus);
     }
 
     @Test
@@ -242,23 +296,67 @@ class SellerServiceImplTest {
         var id = 42L;
         var seller = Seller.builder().id(id).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
 
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.of(seller));
+        when(this.sellerRepository.findActiveById(id)).thenReturn(Optional.of(seller));
 
         var result = this.sellerService.findEntityById(id);
 
         assertEquals(seller, result);
-        verify(this.sellerRepository).findById(id);
+        verify(this.sellerRepository).findActiveById(id);
     }
 
     @Test
     void testThat_findEntityById_shouldThrowException_whenNotExists() {
         var id = 42L;
-        when(this.sellerRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.sellerRepository.findActiveById(id)).thenReturn(Optional.empty());
 
         var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.sellerService.findEntityById(id));
 
         assertEquals(String.format("There is no seller with id %d", id), exception.getMessage());
-        verify(this.sellerRepository).findById(id);
+        verify(this.sellerRepository).findActiveById(id);
+    }
+
+    @Test
+    void testThat_search_shouldReturnSellersFromIndex() {
+        var expectedDtos = List.of(
+                SellerDto.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build()
+        );
+        when(this.sellerSearchIndex.search("doe", 20)).thenReturn(expectedDtos);
+
+        var result = this.sellerService.search("doe", 20);
+
+        assertEquals(expectedDtos, result);
+        verifyNoInteractions(this.sellerRepository);
+    }
+
+    @Test
+    void testThat_requestDeletion_shouldMarkSellerAndScheduleDeletion_whenExists() {
+        var id = 42L;
+        var expectedDto = SellerDeletionDto.builder().sellerId(id).status(SellerDeletionStatus.IN_PROGRESS).build();
+
+        when(this.sellerRepository.markDeletionRequested(eq(id), any(LocalDateTime.class))).thenReturn(1);
+        when(this.sellerDeletionRepository.save(any(SellerDeletion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(this.sellerMapper.toDeletionDto(any(SellerDeletion.class))).thenReturn(expectedDto);
+
+        var result = this.sellerService.requestDeletion(id);
+
+        assertEquals(expectedDto, result);
+        verify(this.sellerDeletionRepository).save(argThat(deletion ->
+                deletion.getSellerId() == id && deletion.getStatus() == SellerDeletionStatus.IN_PROGRESS));
+        verify(this.sellerSearchIndex).remove(id);
+        verify(this.sellerInvalidationBus).publish(id);
+        verify(this.sellerRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void testThat_requestDeletion_shouldThrowException_whenNotExists() {
+        var id = 42L;
+        when(this.sellerRepository.markDeletionRequested(eq(id), any(LocalDateTime.class))).thenReturn(0);
+
+        var exception = assertThrows(ResourceNotFoundException.class,
+                () -> this.sellerService.requestDeletion(id));
+
+        assertEquals("There is no seller with id " + id, exception.getMessage());
+        verifyNoInteractions(this.sellerDeletionRepository, this.sellerSearchIndex, this.sellerInvalidationBus);
     }
 }
@@ -5,21 +5,44 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.cft.anomaly.TransactionAnomalyDetector;
+import ru.cft.archive.ArchivedTransaction;
+import ru.cft.archive.TransactionArchive;
+import ru.cft.cache.CachedTransaction;
+import ru.cft.cache.TransactionCache;
 import ru.cft.dto.seller.SellerDto;
+import ru.cft.dto.seller.SellerLookupDto;
+import ru.cft.dto.transaction.IngestionStatusDto;
 import ru.cft.dto.transaction.TransactionCreateDto;
 import ru.cft.dto.transaction.TransactionDto;
+import ru.cft.dto.transaction.TransactionRowDto;
 import ru.cft.entity.Seller;
 import ru.cft.entity.Transaction;
+import ru.cft.enums.IngestionState;
 import ru.cft.enums.PaymentType;
+import ru.cft.enums.TransactionField;
 import ru.cft.exception.ResourceNotFoundException;
+import ru.cft.feed.TransactionFeed;
+import ru.cft.ingest.TransactionIngestion;
+import ru.cft.leaderboard.LeaderboardPublisher;
 import ru.cft.mapper.TransactionMapper;
+import ru.cft.projection.TransactionProjection;
+import ru.cft.projection.TransactionProjectionQuery;
+import ru.cft.ranking.SellerRankIndex;
 import ru.cft.repository.TransactionRepository;
 import ru.cft.service.SellerService;
+import ru.cft.sharding.ShardTransaction;
+import ru.cft.sharding.ShardedTransactionStore;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +55,24 @@ class TransactionServiceImplTest {
     private TransactionMapper transactionMapper;
     @Mock
     private SellerService sellerService;
+    @Mock
+    private TransactionArchive transactionArchive;
+    @Mock
+    private LeaderboardPublisher leaderboardPublisher;
+    @Mock
+    private TransactionFeed transactionFeed;
+    @Mock
+    private ShardedTransactionStore shardedTransactionStore;
+    @Mock
+    private SellerRankIndex sellerRankIndex;
+    @Mock
+    private TransactionAnomalyDetector transactionAnomalyDetector;
+    @Mock
+    private TransactionIngestion transactionIngestion;
+    @Mock
+    private TransactionProjectionQuery transactionProjectionQuery;
+    @Mock
+    private TransactionCache transactionCache;
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -65,7 +106,7 @@ class TransactionServiceImplTest {
                         .build()
         ).toList();
 
-        when(this.transactionRepository.findAll()).thenReturn(transactions);
+        when(this.transactionRepository.findAllActive()).thenReturn(transactions);
         when(this.transactionMapper.toDto(transactions.get(0))).thenReturn(expectedDtos.get(0));
         when(this.transactionMapper.toDto(transactions.get(1))).thenReturn(expectedDtos.get(1));
         when(this.transactionMapper.toDto(transactions.get(2))).thenReturn(expectedDtos.get(2));
@@ -73,7 +114,7 @@ class TransactionServiceImplTest {
         var result = this.transactionService.findAll();
 
         assertEquals(expectedDtos, result);
-        verify(this.transactionRepository).findAll();
+        verify(this.transactionRepository).findAllActive();
         verify(this.transactionMapper, times(3)).toDto(any(Transaction.class));
     }
 
@@ -94,29 +135,114 @@ class TransactionServiceImplTest {
                 .transactionDate(transaction.getTransactionDate())
                 .build();
 
-        when(this.transactionRepository.findById(id)).thenReturn(Optional.of(transaction));
+        when(this.transactionRepository.findActiveById(id)).thenReturn(Optional.of(transaction));
         when(this.transactionMapper.toDto(transaction)).thenReturn(expectedDto);
 
         var result = this.transactionService.findById(id);
 
         assertEquals(expectedDto, result);
-        verify(this.transactionRepository).findById(id);
+        verify(this.transactionRepository).findActiveById(id);
         verify(this.transactionMapper).toDto(transaction);
     }
 
+    @Test
+    void testThat_findById_shouldReturnCachedTransaction_withCurrentSeller() {
+        var id = 42L;
+        var sellerDto = SellerDto.builder().id(7L).name("John Doe").build();
+        var cached = new CachedTransaction(id, sellerDto.id(), new BigDecimal("100.00"), PaymentType.CARD, FIXED_DATE);
+
+        when(this.transactionCache.get(id)).thenReturn(cached);
+        when(this.sellerService.lookup(List.of(sellerDto.id()))).thenReturn(new SellerLookupDto(List.of(sellerDto), List.of()));
+
+        var result = this.transactionService.findById(id);
+
+        assertEquals(TransactionDto.builder()
+                .id(id)
+                .seller(sellerDto)
+                .amount(cached.amount())
+                .paymentType(cached.paymentType())
+                .transactionDate(cached.transactionDate())
+                .build(), result);
+        verifyNoInteractions(this.transactionRepository, this.transactionArchive);
+    }
+
+    @Test
+    void testThat_findById_shouldFallBackToDatabase_whenCachedSellerIsGone() {
+        var seller = Seller.builder().id(7L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
+        var id = 42L;
+        var transaction = Transaction.builder().id(id).seller(seller).amount(BigDecimal.TEN).paymentType(PaymentType.CASH).transactionDate(FIXED_DATE).build();
+        var expectedDto = TransactionDto.builder().id(id).amount(BigDecimal.TEN).build();
+
+        when(this.transactionCache.get(id)).thenReturn(new CachedTransaction(id, seller.getId(), BigDecimal.TEN, PaymentType.CASH, FIXED_DATE));
+        when(this.sellerService.lookup(List.of(seller.getId()))).thenReturn(new SellerLookupDto(List.of(), List.of(seller.getId())));
+        when(this.transactionRepository.findActiveById(id)).thenReturn(Optional.of(transaction));
+        when(this.transactionMapper.toDto(transaction)).thenReturn(expectedDto);
+
+        var result = this.transactionService.findById(id);
+
+        assertEquals(expectedDto, result);
+        verify(this.transactionCache).put(expectedDto);
+    }
+
     @Test
     void testThat_findById_shouldThrowException_whenNotExists() {
         var id = 42L;
-        when(this.transactionRepository.findById(id)).thenReturn(Optional.empty());
+        when(this.transactionRepository.findActiveById(id)).thenReturn(Optional.empty());
 
         var exception = assertThrows(ResourceNotFoundException.class,
                 () -> this.transactionService.findById(id));
 
         assertEquals(String.format("There is no transaction with id %d", id), exception.getMessage());
-        verify(this.transactionRepository).findById(id);
+        verify(this.transactionRepository).findActiveById(id);
         verifyNoInteractions(this.transactionMapper);
     }
 
+    @Test
+    void testThat_findById_shouldReturnArchivedDto_whenNotInDatabase() {
+        var seller = Seller.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
+        var id = 42L;
+        var archived = new ArchivedTransaction(id, seller.getId(), BigDecimal.valueOf(100), PaymentType.CARD, FIXED_DATE);
+        var expectedDto = TransactionDto.builder()
+                .id(id)
+                .seller(SellerDto.builder().id(seller.getId()).name(seller.getName()).build())
+                .amount(archived.amount())
+                .paymentType(archived.paymentType())
+                .transactionDate(archived.transactionDate())
+                .build();
+
+        when(this.transactionRepository.findActiveById(id)).thenReturn(Optional.empty());
+        when(this.transactionArchive.findById(id)).thenReturn(Optional.of(archived));
+        when(this.sellerService.findEntityById(seller.getId())).thenReturn(seller);
+        when(this.transactionMapper.toDto(archived, seller)).thenReturn(expectedDto);
+
+        var result = this.transactionService.findById(id);
+
+        assertEquals(expectedDto, result);
+        verify(this.transactionArchive).findById(id);
+        verify(this.transactionMapper).toDto(archived, seller);
+    }
+
+    @Test
+    void testThat_lookup_shouldCombineDatabaseAndArchive_andReportMissingIds() {
+        var seller = Seller.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
+        var transaction = Transaction.builder().id(7L).seller(seller).amount(BigDecimal.TEN).paymentType(PaymentType.CASH).transactionDate(FIXED_DATE).build();
+        var archived = new ArchivedTransaction(42L, seller.getId(), BigDecimal.valueOf(100), PaymentType.CARD, FIXED_DATE);
+        var transactionDto = TransactionDto.builder().id(7L).amount(transaction.getAmount()).build();
+        var archivedDto = TransactionDto.builder().id(42L).amount(archived.amount()).build();
+
+        when(this.transactionRepository.findAllActiveByIdIn(List.of(42L, 7L, 99L))).thenReturn(List.of(transaction));
+        when(this.transactionMapper.toDto(transaction)).thenReturn(transactionDto);
+        when(this.transactionArchive.findByIds(Set.of(42L, 99L))).thenReturn(List.of(archived));
+        when(this.sellerService.findEntitiesByIds(Set.of(seller.getId()))).thenReturn(List.of(seller));
+        when(this.transactionMapper.toDto(archived, seller)).thenReturn(archivedDto);
+
+        var result = this.transactionService.lookup(List.of(42L, 7L, 99L, 7L));
+
+        assertEquals(List.of(archivedDto, transactionDto), result.found());
+        assertEquals(List.of(99L), result.missing());
+        verify(this.transactionRepository, times(1)).findAllActiveByIdIn(List.of(42L, 7L, 99L));
+    }
+
     @Test
     void testThat_create_shouldSaveAndReturnDto() {
         var seller = Seller.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
@@ -147,7 +273,56 @@ class TransactionServiceImplTest {
         verify(this.transactionMapper).toEntityWithoutEnrichment(transactionCreateDto);
         verify(this.sellerService).findEntityById(seller.getId());
         verify(this.transactionRepository).save(transaction);
+        verify(this.leaderboardPublisher).record(saved);
+        verify(this.sellerRankIndex).record(saved);
         verify(this.transactionMapper).toDto(saved);
+        verify(this.transactionFeed).publish(expectedDto);
+    }
+
+    @Test
+    void testThat_create_shouldAttachAnomalyScore_whenSellerHasHistory() {
+        var seller = Seller.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
+        var transactionCreateDto = TransactionCreateDto.builder().sellerId(seller.getId()).amount(BigDecimal.valueOf(5000)).paymentType(PaymentType.CARD).build();
+        var transaction = Transaction.builder().amount(transactionCreateDto.amount()).paymentType(transactionCreateDto.paymentType()).build();
+        var saved = Transaction.builder()
+                .id(42L).seller(seller).amount(transactionCreateDto.amount()).paymentType(transactionCreateDto.paymentType()).transactionDate(FIXED_DATE).build();
+        var dto = TransactionDto.builder().id(saved.getId()).amount(saved.getAmount()).paymentType(saved.getPaymentType()).build();
+        var scoredDto = dto.toBuilder().anomalyScore(7.5).build();
+
+        when(this.transactionMapper.toEntityWithoutEnrichment(transactionCreateDto)).thenReturn(transaction);
+        when(this.sellerService.findEntityById(seller.getId())).thenReturn(seller);
+        when(this.transactionRepository.save(transaction)).thenReturn(saved);
+        when(this.transactionMapper.toDto(saved)).thenReturn(dto);
+        when(this.transactionAnomalyDetector.score(seller.getId(), saved.getAmount())).thenReturn(OptionalDouble.of(7.5));
+
+        var result = this.transactionService.create(transactionCreateDto);
+
+        assertEquals(scoredDto, result);
+        verify(this.transactionAnomalyDetector).recordIfAnomalous(scoredDto);
+        verify(this.transactionFeed).publish(scoredDto);
+    }
+
+    @Test
+    void testThat_create_shouldInsertIntoSellerShard_whenShardingEnabled() {
+        var seller = Seller.builder().id(1L).name("John Doe").contactInfo("john@doe.com").registrationDate(FIXED_DATE).build();
+        var transactionCreateDto = TransactionCreateDto.builder().sellerId(seller.getId()).amount(BigDecimal.valueOf(150)).paymentType(PaymentType.CASH).build();
+        var transaction = Transaction.builder().amount(transactionCreateDto.amount()).paymentType(transactionCreateDto.paymentType()).build();
+        var expectedDto = TransactionDto.builder().id(42L).amount(transactionCreateDto.amount()).paymentType(transactionCreateDto.paymentType()).build();
+
+        when(this.shardedTransactionStore.isEnabled()).thenReturn(true);
+        when(this.transactionMapper.toEntityWithoutEnrichment(transactionCreateDto)).thenReturn(transaction);
+        when(this.sellerService.findEntityById(seller.getId())).thenReturn(seller);
+        when(this.shardedTransactionStore.insert(eq(seller.getId()), eq(transactionCreateDto.amount()), eq(PaymentType.CASH), any(LocalDateTime.class)))
+                .thenReturn(new ShardTransaction(42L, seller.getId(), transactionCreateDto.amount(), PaymentType.CASH, FIXED_DATE));
+        when(this.transactionMapper.toDto(transaction)).thenReturn(expectedDto);
+
+        var result = this.transactionService.create(transactionCreateDto);
+
+        assertEquals(expectedDto, result);
+        assertEquals(42L, transaction.getId());
+        verify(this.leaderboardPublisher).record(transaction);
+        verify(this.transactionFeed).publish(expectedDto);
+        verifyNoInteractions(this.transactionRepository);
     }
 
     @Test
@@ -204,6 +379,65 @@ class TransactionServiceImplTest {
         verify(this.transactionMapper, times(2)).toDto(any(Transaction.class));
     }
 
+    @Test
+    void testThat_findAll_shouldReturnSellersOnce_whenSellersAreIncluded() {
+        var projection = new TransactionProjection(EnumSet.of(TransactionField.ID, TransactionField.AMOUNT), true);
+        var archived = new ArchivedTransaction(1L, 7L, BigDecimal.valueOf(100), PaymentType.CARD, FIXED_DATE);
+        var rows = List.of(
+                TransactionRowDto.builder().id(2L).sellerId(7L).amount(BigDecimal.valueOf(200)).build(),
+                TransactionRowDto.builder().id(3L).sellerId(7L).amount(BigDecimal.valueOf(300)).build(),
+                TransactionRowDto.builder().id(4L).sellerId(8L).amount(BigDecimal.valueOf(400)).build()
+        );
+        var sellerDto = SellerDto.builder().id(7L).name("John Doe").build();
+
+        when(this.transactionArchive.findAll()).thenReturn(List.of(archived));
+        when(this.transactionProjectionQuery.findAll(projection)).thenReturn(rows);
+        when(this.sellerService.lookup(List.of(7L, 8L))).thenReturn(new SellerLookupDto(List.of(sellerDto), List.of(8L)));
+
+        var result = this.transactionService.findAll(projection);
+
+        assertEquals(List.of(
+                TransactionRowDto.builder().id(1L).sellerId(7L).amount(BigDecimal.valueOf(100)).build(),
+                rows.get(0),
+                rows.get(1)
+        ), result.transactions());
+        assertEquals(Map.of(7L, sellerDto), result.sellers());
+        verifyNoInteractions(this.transactionRepository, this.transactionMapper);
+    }
+
+    @Test
+    void testThat_findAll_shouldSkipArchivedTransactionsOfSellersPendingDeletion_whenSellersAreNotRequested() {
+        var projection = new TransactionProjection(EnumSet.of(TransactionField.ID, TransactionField.AMOUNT), false);
+        var hot = TransactionRowDto.builder().id(3L).amount(BigDecimal.valueOf(300)).build();
+
+        when(this.transactionArchive.findAll()).thenReturn(List.of(
+                new ArchivedTransaction(1L, 7L, BigDecimal.valueOf(100), PaymentType.CARD, FIXED_DATE),
+                new ArchivedTransaction(2L, 8L, BigDecimal.valueOf(200), PaymentType.CARD, FIXED_DATE)
+        ));
+        when(this.transactionProjectionQuery.findSellerIdsPendingDeletion()).thenReturn(Set.of(8L));
+        when(this.transactionProjectionQuery.findAll(projection)).thenReturn(List.of(hot));
+
+        var result = this.transactionService.findAll(projection);
+
+        assertEquals(List.of(TransactionRowDto.builder().id(1L).amount(BigDecimal.valueOf(100)).build(), hot), result.transactions());
+        verifyNoInteractions(this.sellerService);
+    }
+
+    @Test
+    void testThat_findBySellerId_shouldEmbedSeller_whenSellerFieldIsRequested() {
+        var projection = new TransactionProjection(EnumSet.of(TransactionField.SELLER, TransactionField.AMOUNT), false);
+        var sellerDto = SellerDto.builder().id(7L).name("John Doe").build();
+
+        when(this.sellerService.findById(7L)).thenReturn(sellerDto);
+        when(this.transactionProjectionQuery.findBySellerId(7L, projection))
+                .thenReturn(List.of(TransactionRowDto.builder().sellerId(7L).amount(BigDecimal.TEN).build()));
+
+        var result = this.transactionService.findBySellerId(7L, projection);
+
+        assertEquals(List.of(TransactionRowDto.builder().seller(sellerDto).amount(BigDecimal.TEN).build()), result.transactions());
+        assertNull(result.sellers());
+    }
+
     @Test
     void testThat_findBySellerId_shouldReturnEmptyList_whenSellerDoesNotExist() {
         var sellerId = 42L;
@@ -220,4 +454,28 @@ class TransactionServiceImplTest {
         verifyNoInteractions(this.transactionRepository, this.transactionMapper);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testThat_findIngestionStatus_shouldFallBackToDatabase_whenStatusIsNotTracked() {
+        var trackingId = UUID.randomUUID();
+
+        when(this.transactionIngestion.findStatus(trackingId)).thenReturn(Optional.empty());
+        when(this.transactionRepository.findIdByTrackingId(trackingId)).thenReturn(Optional.of(42L));
+
+        var result = this.transactionService.findIngestionStatus(trackingId);
+
+        assertEquals(IngestionStatusDto.builder().trackingId(trackingId).state(IngestionState.INSERTED).transactionId(42L).build(), result);
+    }
+
+    @Test
+    void testThat_findIngestionStatus_shouldThrowException_whenTrackingIdIsUnknown() {
+        var trackingId = UUID.randomUUID();
+
+        when(this.transactionIngestion.findStatus(trackingId)).thenReturn(Optional.empty());
+        when(this.transactionRepository.findIdByTrackingId(trackingId)).thenReturn(Optional.empty());
+
+        var exception = assertThrows(ResourceNotFoundException.class,
+                () -> this.transactionService.findIngestionStatus(trackingId));
+
+        assertEquals("There is no ingested transaction with tracking id " + trackingId, exception.getMessage());
+    }
+}
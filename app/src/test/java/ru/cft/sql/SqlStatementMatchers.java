@@ -0,0 +1,25 @@
+package ru.cft.sql;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers over the statement count that every API response reports in {@link StatementStatistics#STATEMENTS_HEADER}.
+ */
+public final class SqlStatementMatchers {
+    private SqlStatementMatchers() {
+    }
+
+    public static ResultMatcher statementCountAtMost(int expected) {
+        return result -> {
+            var request = result.getRequest();
+            var header = result.getResponse().getHeader(StatementStatistics.STATEMENTS_HEADER);
+            assertNotNull(header, () -> String.format("%s %s did not report its SQL statements", request.getMethod(), request.getRequestURI()));
+            int actual = Integer.parseInt(header);
+            assertTrue(actual <= expected, () -> String.format("%s %s executed %d SQL statements, expected at most %d",
+                    request.getMethod(), request.getRequestURI(), actual, expected));
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package ru.cft.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import ru.cft.advice.GlobalExceptionHandler;
+import ru.cft.advice.StatementStatisticsAdvice;
+import ru.cft.configuration.StatementStatisticsProperties;
+import ru.cft.enums.StatementBudgetMode;
+import ru.cft.pool.ConnectionPoolAccounting;
+import ru.cft.pool.InstrumentedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.cft.sql.SqlStatementMatchers.statementCountAtMost;
+
+@ExtendWith(MockitoExtension.class)
+class StatementStatisticsInterceptorTest {
+    private static final String PATH = "/api/v1/statements/{count}";
+    private static final String SQL = "SELECT 1";
+
+    @Mock
+    private DataSource target;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ConnectionPoolAccounting accounting;
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        this.dataSource = new InstrumentedDataSource(this.target, () -> this.accounting);
+        when(this.target.getConnection()).thenReturn(this.connection);
+        when(this.connection.prepareStatement(SQL)).thenReturn(this.statement);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StatementStatistics.end();
+    }
+
+    @Test
+    void testThat_statementCountAtMost_shouldRejectRequest_whenEndpointGoesOverBudget() throws Exception {
+        var mockMvc = this.mockMvc(StatementBudgetMode.WARN, 1);
+
+        var result = mockMvc.perform(get(PATH, 2))
+                .andExpect(status().isOk())
+                .andExpect(header().string(StatementStatistics.STATEMENTS_HEADER, "2"))
+                .andExpect(statementCountAtMost(2));
+
+        var error = assertThrows(AssertionError.class, () -> result.andExpect(statementCountAtMost(1)));
+        assertEquals("GET /api/v1/statements/2 executed 2 SQL statements, expected at most 1", error.getMessage());
+        assertNull(StatementStatistics.current());
+    }
+
+    @Test
+    void testThat_request_shouldFailOnStatementOverBudget_whenBudgetModeIsFail() throws Exception {
+        var mockMvc = this.mockMvc(StatementBudgetMode.FAIL, 1);
+
+        mockMvc.perform(get(PATH, 3))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("GET " + PATH + " exceeded its budget of 1 SQL statements"))
+                .andExpect(header().string(StatementStatistics.STATEMENTS_HEADER, "2"));
+
+        verify(this.statement, times(2)).executeQuery();
+        verify(this.connection).close();
+        assertNull(StatementStatistics.current());
+    }
+
+    @Test
+    void testThat_request_shouldSucceed_whenEndpointStaysWithinBudget() throws Exception {
+        var mockMvc = this.mockMvc(StatementBudgetMode.FAIL, 1);
+
+        mockMvc.perform(get(PATH, 1))
+                .andExpect(status().isOk())
+                .andExpect(statementCountAtMost(1));
+
+        verify(this.statement).executeQuery();
+    }
+
+    private MockMvc mockMvc(StatementBudgetMode mode, int maxStatements) {
+        var properties = new StatementStatisticsProperties(true, true, mode,
+                List.of(new StatementStatisticsProperties.Budget("GET", PATH, maxStatements)));
+        return MockMvcBuilders.standaloneSetup(new StatementController(this.dataSource))
+                .addInterceptors(new StatementStatisticsInterceptor(properties))
+                .setControllerAdvice(new StatementStatisticsAdvice(properties), new GlobalExceptionHandler(Duration.ofSeconds(10)))
+                .build();
+    }
+
+    @RestController
+    static class StatementController {
+        private final DataSource dataSource;
+
+        StatementController(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @GetMapping(PATH)
+        List<Integer> execute(@PathVariable int count) throws SQLException {
+            try (var connection = this.dataSource.getConnection(); var statement = connection.prepareStatement(SQL)) {
+                for (int i = 0; i < count; i++) {
+                    statement.executeQuery();
+                }
+            }
+            return List.of(count);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.cft.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import ru.cft.configuration.WarmUpProperties;
+import ru.cft.enums.WarmUpPhase;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WarmUpHealthIndicatorTest {
+    private static final WarmUpProperties PROPERTIES =
+            new WarmUpProperties(true, 4, 100_000, 10_000, 5, 2000, Duration.ofMinutes(2));
+
+    private static WarmUpHealthIndicator indicator(WarmUpPhase phase, Duration elapsed) {
+        var warmUp = mock(WarmUp.class);
+        when(warmUp.progress()).thenReturn(new WarmUp.Progress(phase, 10, 40, elapsed, Map.of()));
+        return new WarmUpHealthIndicator(warmUp, PROPERTIES);
+    }
+
+    @Test
+    void testThat_health_shouldBeOutOfService_whileWarmingUp() {
+        var health = indicator(WarmUpPhase.CACHES, Duration.ofSeconds(30)).health();
+
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals(WarmUpPhase.CACHES, health.getDetails().get("phase"));
+        assertEquals(10L, health.getDetails().get("completedSteps"));
+    }
+
+    @Test
+    void testThat_health_shouldBeUp_whenDone() {
+        assertEquals(Status.UP, indicator(WarmUpPhase.DONE, Duration.ofSeconds(30)).health().getStatus());
+    }
+
+    @Test
+    void testThat_health_shouldBeUp_whenTimedOut() {
+        var health = indicator(WarmUpPhase.REQUESTS, Duration.ofMinutes(3)).health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(true, health.getDetails().get("timedOut"));
+    }
+}